@@ -6,12 +6,15 @@ import com.hypixel.hytale.server.core.event.events.player.PlayerDisconnectEvent;
 import com.hypixel.hytale.server.core.plugin.JavaPlugin;
 import com.hypixel.hytale.server.core.plugin.JavaPluginInit;
 
+import net.crefax.hytale.events.commands.EventsAuditCommand;
 import net.crefax.hytale.events.commands.EventsCommand;
+import net.crefax.hytale.events.commands.EventsHistoryCommand;
 import net.crefax.hytale.events.commands.EventsTriggerCommand;
 import net.crefax.hytale.events.commands.EventsReloadCommand;
 import net.crefax.hytale.events.manager.SchedulerManager;
 import net.crefax.hytale.events.config.EventConfig;
 import net.crefax.hytale.events.i18n.I18nManager;
+import net.crefax.hytale.events.log.AsyncLogHandler;
 
 import javax.annotation.Nonnull;
 import java.util.logging.Logger;
@@ -28,11 +31,13 @@ import java.util.logging.Logger;
 public class EventSchedulerMod extends JavaPlugin {
 
     private static final Logger LOGGER = Logger.getLogger("EventScheduler");
+    private static final int LOG_BUFFER_SIZE = 4096;
     
     private static EventSchedulerMod instance;
     private SchedulerManager schedulerManager;
     private EventConfig config;
     private I18nManager i18n;
+    private AsyncLogHandler logHandler;
 
     public EventSchedulerMod(@Nonnull JavaPluginInit init) {
         super(init);
@@ -42,6 +47,9 @@ public class EventSchedulerMod extends JavaPlugin {
     protected void setup() {
         instance = this;
         
+        // Plugin log output is written by a background thread, not the scheduler threads
+        this.logHandler = AsyncLogHandler.install(LOGGER, LOG_BUFFER_SIZE);
+        
         LOGGER.info("========================================");
         LOGGER.info("     Events Scheduler v1.0.0           ");
         LOGGER.info("     Scheduled Event System            ");
@@ -62,6 +70,8 @@ public class EventSchedulerMod extends JavaPlugin {
         this.getCommandRegistry().registerCommand(new EventsCommand(this));
         this.getCommandRegistry().registerCommand(new EventsTriggerCommand(this));
         this.getCommandRegistry().registerCommand(new EventsReloadCommand(this));
+        this.getCommandRegistry().registerCommand(new EventsHistoryCommand(this));
+        this.getCommandRegistry().registerCommand(new EventsAuditCommand(this));
         
         // Register events - player tracking
         this.getEventRegistry().registerGlobal(PlayerReadyEvent.class, this::onPlayerReady);
@@ -70,6 +80,16 @@ public class EventSchedulerMod extends JavaPlugin {
         LOGGER.info("[EventScheduler] Plugin loaded successfully!");
     }
     
+    @Override
+    protected void shutdown() {
+        if (schedulerManager != null) {
+            schedulerManager.shutdown();
+        }
+        if (logHandler != null) {
+            logHandler.uninstall(LOGGER);
+        }
+    }
+    
     private void onPlayerReady(PlayerReadyEvent event) {
         schedulerManager.registerPlayer(event.getPlayer());
     }
@@ -0,0 +1,143 @@
+package net.crefax.hytale.events.audit;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+/**
+ * Player Index
+ *
+ * Stable dictionary from player UUID to a small int, so recipient sets can
+ * be stored as bitmaps. Indices are handed out in order of first appearance
+ * and never reused. The dictionary is an append-only file; a record is
+ * appended for every new player and whenever a known player's name changes.
+ *
+ * Record layout: index (int), uuid (2 longs), username (UTF).
+ *
+ * Not thread-safe; the audit log calls it from its IO thread only.
+ *
+ * @author Crefax
+ */
+final class PlayerIndex {
+
+    private static final Logger LOGGER = Logger.getLogger("EventScheduler");
+
+    private final Path file;
+    private final Map<UUID, Integer> indices = new HashMap<>();
+    private final List<UUID> uuids = new ArrayList<>();
+    private final List<String> names = new ArrayList<>();
+    private final Map<String, UUID> byName = new HashMap<>();
+    private RandomAccessFile writer;
+
+    PlayerIndex(Path file) {
+        this.file = file;
+    }
+
+    void open() throws IOException {
+        long valid = 0;
+        if (Files.exists(file)) {
+            // The dictionary is small (tens of bytes per player), read it in one go
+            byte[] bytes = Files.readAllBytes(file);
+            ByteArrayInputStream raw = new ByteArrayInputStream(bytes);
+            DataInputStream in = new DataInputStream(raw);
+            try {
+                while (raw.available() > 0) {
+                    int index = in.readInt();
+                    UUID uuid = new UUID(in.readLong(), in.readLong());
+                    String name = in.readUTF();
+                    if (index == uuids.size()) {
+                        indices.put(uuid, index);
+                        uuids.add(uuid);
+                        names.add(name);
+                    } else if (index < uuids.size()) {
+                        names.set(index, name);
+                    } else {
+                        LOGGER.warning("[EventScheduler] Player index is corrupt at entry " + index + ", ignoring the rest.");
+                        break;
+                    }
+                    byName.put(name.toLowerCase(Locale.ROOT), uuid);
+                    valid = bytes.length - raw.available();
+                }
+            } catch (EOFException e) {
+                LOGGER.warning("[EventScheduler] Player index ends with a partial record, ignoring it.");
+            }
+        }
+        writer = new RandomAccessFile(file.toFile(), "rw");
+        // New records go after the last complete one
+        writer.setLength(valid);
+        writer.seek(valid);
+    }
+
+    /**
+     * Index of a player, assigning the next free one on first sight
+     */
+    int indexOf(UUID uuid, String username) throws IOException {
+        Integer index = indices.get(uuid);
+        if (index != null) {
+            if (username != null && !username.equals(names.get(index))) {
+                byName.remove(names.get(index).toLowerCase(Locale.ROOT));
+                names.set(index, username);
+                byName.put(username.toLowerCase(Locale.ROOT), uuid);
+                append(index, uuid, username);
+            }
+            return index;
+        }
+        int next = uuids.size();
+        String name = username != null ? username : uuid.toString();
+        indices.put(uuid, next);
+        uuids.add(uuid);
+        names.add(name);
+        byName.put(name.toLowerCase(Locale.ROOT), uuid);
+        append(next, uuid, name);
+        return next;
+    }
+
+    /**
+     * Index of a known player, or -1
+     */
+    int find(UUID uuid) {
+        Integer index = indices.get(uuid);
+        return index != null ? index : -1;
+    }
+
+    /**
+     * UUID of a known player by last seen username (case-insensitive), or null
+     */
+    UUID findByName(String username) {
+        return byName.get(username.toLowerCase(Locale.ROOT));
+    }
+
+    int size() {
+        return uuids.size();
+    }
+
+    void close() throws IOException {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+        }
+    }
+
+    private void append(int index, UUID uuid, String name) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(40);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(index);
+        out.writeLong(uuid.getMostSignificantBits());
+        out.writeLong(uuid.getLeastSignificantBits());
+        out.writeUTF(name);
+        writer.write(bytes.toByteArray());
+    }
+}
@@ -0,0 +1,171 @@
+package net.crefax.hytale.events.audit;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Recipient Bitmap
+ *
+ * Compressed set of player indices (see {@link PlayerIndex}). Each set is
+ * stored in whichever of three encodings is smallest for it:
+ * ARRAY = varint deltas between sorted indices (few recipients);
+ * BITS = one bit per index up to the highest one (many scattered recipients);
+ * RUNS = varint pairs of gap and run length (long contiguous ranges).
+ *
+ * @author Crefax
+ */
+public final class RecipientBitmap {
+
+    static final byte ARRAY = 1;
+    static final byte BITS = 2;
+    static final byte RUNS = 3;
+
+    private final byte encoding;
+    private final int cardinality;
+    private final byte[] payload;
+
+    private RecipientBitmap(byte encoding, int cardinality, byte[] payload) {
+        this.encoding = encoding;
+        this.cardinality = cardinality;
+        this.payload = payload;
+    }
+
+    /**
+     * Build a bitmap from the first count entries of sorted, distinct indices
+     */
+    public static RecipientBitmap of(int[] sorted, int count) {
+        if (count == 0) {
+            return new RecipientBitmap(ARRAY, 0, new byte[0]);
+        }
+        int arraySize = 0;
+        int previous = -1;
+        for (int i = 0; i < count; i++) {
+            arraySize += varintSize(sorted[i] - previous - 1);
+            previous = sorted[i];
+        }
+        int runSize = 0;
+        int runEnd = -1;
+        for (int i = 0; i < count; i++) {
+            int start = sorted[i];
+            while (i + 1 < count && sorted[i + 1] == sorted[i] + 1) {
+                i++;
+            }
+            runSize += varintSize(start - runEnd - 1) + varintSize(sorted[i] - start + 1);
+            runEnd = sorted[i];
+        }
+        int bitsSize = (sorted[count - 1] >>> 3) + 1;
+
+        if (bitsSize <= arraySize && bitsSize <= runSize) {
+            byte[] bits = new byte[bitsSize];
+            for (int i = 0; i < count; i++) {
+                bits[sorted[i] >>> 3] |= (byte) (1 << (sorted[i] & 7));
+            }
+            return new RecipientBitmap(BITS, count, bits);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.min(arraySize, runSize));
+        if (arraySize <= runSize) {
+            previous = -1;
+            for (int i = 0; i < count; i++) {
+                writeVarint(out, sorted[i] - previous - 1);
+                previous = sorted[i];
+            }
+            return new RecipientBitmap(ARRAY, count, out.toByteArray());
+        }
+        runEnd = -1;
+        int i = 0;
+        while (i < count) {
+            int start = sorted[i];
+            int end = start;
+            while (i + 1 < count && sorted[i + 1] == end + 1) {
+                end = sorted[++i];
+            }
+            writeVarint(out, start - runEnd - 1);
+            writeVarint(out, end - start + 1);
+            runEnd = end;
+            i++;
+        }
+        return new RecipientBitmap(RUNS, count, out.toByteArray());
+    }
+
+    public boolean contains(int index) {
+        if (index < 0) return false;
+        switch (encoding) {
+            case BITS:
+                int at = index >>> 3;
+                return at < payload.length && (payload[at] & (1 << (index & 7))) != 0;
+            case ARRAY: {
+                int[] cursor = {0};
+                int value = -1;
+                for (int i = 0; i < cardinality; i++) {
+                    value += readVarint(payload, cursor) + 1;
+                    if (value >= index) return value == index;
+                }
+                return false;
+            }
+            case RUNS: {
+                int[] cursor = {0};
+                int end = -1;
+                while (cursor[0] < payload.length) {
+                    int start = end + readVarint(payload, cursor) + 1;
+                    end = start + readVarint(payload, cursor) - 1;
+                    if (index < start) return false;
+                    if (index <= end) return true;
+                }
+                return false;
+            }
+            default:
+                return false;
+        }
+    }
+
+    public int cardinality() {
+        return cardinality;
+    }
+
+    /** Encoded size without the header */
+    public int sizeInBytes() {
+        return payload.length;
+    }
+
+    void write(DataOutput out) throws IOException {
+        out.writeByte(encoding);
+        out.writeInt(cardinality);
+        out.writeInt(payload.length);
+        out.write(payload);
+    }
+
+    static RecipientBitmap read(DataInput in) throws IOException {
+        byte encoding = in.readByte();
+        int cardinality = in.readInt();
+        byte[] payload = new byte[in.readInt()];
+        in.readFully(payload);
+        return new RecipientBitmap(encoding, cardinality, payload);
+    }
+
+    private static int varintSize(int value) {
+        int size = 1;
+        while ((value >>>= 7) != 0) size++;
+        return size;
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarint(byte[] bytes, int[] cursor) {
+        int value = 0;
+        int shift = 0;
+        while (true) {
+            byte b = bytes[cursor[0]++];
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+            shift += 7;
+        }
+    }
+}
@@ -0,0 +1,473 @@
+package net.crefax.hytale.events.audit;
+
+import net.crefax.hytale.events.player.OnlinePlayer;
+import net.crefax.hytale.events.player.PlayerSelection;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Reward Audit Log
+ *
+ * Remembers who received each event fire, so "did player X get event Y on
+ * day Z" can be answered without digging through logs. Every fire appends
+ * one record holding its recipient set as a {@link RecipientBitmap} over the
+ * {@link PlayerIndex}, which costs about one bit per known player per fire
+ * (less for small or contiguous sets), and the set of players it targeted
+ * but failed to serve. A player missed a fire only if they are in that
+ * second set; fires that did not target a player are not theirs to miss.
+ * An in-memory index keeps the time and offset of each fire; queries read
+ * only the bitmaps they need.
+ *
+ * Files live under mods/EventScheduler/audit/. Segments roll over at 4 MiB
+ * and are deleted once everything in them is older than the retention.
+ * All file access happens on a single background thread.
+ *
+ * Segment layout: header (long), then records of time (long), event
+ * (UTF), received and missed bitmaps (each encoding byte, cardinality int,
+ * payload length int, payload). Segments written before missed fires were
+ * recorded have no header and only the received bitmap; their fires count
+ * only where the player received them.
+ *
+ * @author Crefax
+ */
+public class RewardAudit {
+
+    private static final Logger LOGGER = Logger.getLogger("EventScheduler");
+    private static final String PLAYERS_FILE = "players.dat";
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".dat";
+    private static final long SEGMENT_MAX_BYTES = 4L * 1024 * 1024;
+    private static final long SEGMENT_HEADER = 0x4553415544495432L; // "ESAUDIT2", never a fire time
+
+    /**
+     * Whether a player received one fire that targeted them
+     */
+    public static final class FireResult {
+        public final String eventName;
+        public final long time;
+        public final boolean received;
+
+        FireResult(String eventName, long time, boolean received) {
+            this.eventName = eventName;
+            this.time = time;
+            this.received = received;
+        }
+    }
+
+    /**
+     * Received and missed fires of a player over a time range
+     */
+    public static final class Summary {
+        public final int fires;
+        public final int received;
+
+        Summary(int fires, int received) {
+            this.fires = fires;
+            this.received = received;
+        }
+
+        public int missed() {
+            return fires - received;
+        }
+    }
+
+    private static final class FireEntry {
+        final String eventName;
+        final long time;
+        final long offset;
+        final boolean hasMissed; // false for records from before missed fires were recorded
+
+        FireEntry(String eventName, long time, long offset, boolean hasMissed) {
+            this.eventName = eventName;
+            this.time = time;
+            this.offset = offset;
+            this.hasMissed = hasMissed;
+        }
+    }
+
+    private final Path directory;
+    private final long retentionMillis;
+    private final ExecutorService io;
+    private final PlayerIndex players;
+
+    // Index: every fire in append order, and the newest fire time per segment
+    private final List<FireEntry> fires = new ArrayList<>();
+    private final Map<String, String> eventNames = new HashMap<>();
+    private final TreeMap<Integer, Long> segmentNewest = new TreeMap<>();
+    private final TreeMap<Integer, RandomAccessFile> readers = new TreeMap<>();
+    private int activeSegment;
+    private RandomAccessFile writer;
+
+    public RewardAudit(Path directory, int retentionDays) {
+        this.directory = directory;
+        this.retentionMillis = Math.max(1, retentionDays) * 24L * 60 * 60 * 1000;
+        this.players = new PlayerIndex(directory.resolve(PLAYERS_FILE));
+        this.io = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "EventScheduler-Audit");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Open the audit log and rebuild the fire index from the segment files
+     */
+    public void open() throws IOException {
+        Files.createDirectories(directory);
+        synchronized (this) {
+            players.open();
+            List<Integer> segments = listSegments();
+            long valid = 0;
+            for (int segment : segments) {
+                valid = scanSegment(segment);
+            }
+            activeSegment = segments.isEmpty() ? 1 : segments.get(segments.size() - 1);
+            if (valid > 0 && !hasHeader(activeSegment)) {
+                // An old segment stays as it is, new records start a new one
+                activeSegment++;
+                valid = 0;
+            }
+            writer = new RandomAccessFile(segmentPath(activeSegment).toFile(), "rw");
+            // New records go after the last complete one
+            writer.setLength(valid);
+            if (valid == 0) {
+                writer.writeLong(SEGMENT_HEADER);
+            }
+        }
+        LOGGER.info("[EventScheduler] Reward audit opened: " + fires.size() + " fire(s), " + players.size() + " player(s).");
+    }
+
+    /**
+     * Record the recipients of a fire.
+     *
+     * @param recipients the targeted players (an immutable snapshot view)
+     * @param failed     players whose rewards or commands failed, who missed the fire, or null
+     */
+    public void recordAsync(String eventName, long time, PlayerSelection recipients, Set<UUID> failed) {
+        io.execute(() -> {
+            try {
+                synchronized (this) {
+                    int[] received = new int[recipients.size()];
+                    int[] missed = new int[failed != null ? Math.min(failed.size(), recipients.size()) : 0];
+                    int receivedCount = 0;
+                    int missedCount = 0;
+                    for (int i = 0; i < recipients.size(); i++) {
+                        OnlinePlayer player = recipients.get(i);
+                        int index = players.indexOf(player.getUuid(), player.getUsername());
+                        if (failed != null && failed.contains(player.getUuid())) {
+                            missed[missedCount++] = index;
+                        } else {
+                            received[receivedCount++] = index;
+                        }
+                    }
+                    Arrays.sort(received, 0, receivedCount);
+                    Arrays.sort(missed, 0, missedCount);
+                    appendFire(eventName, time, RecipientBitmap.of(received, receivedCount),
+                            RecipientBitmap.of(missed, missedCount));
+                }
+            } catch (IOException e) {
+                LOGGER.warning("[EventScheduler] Audit write error: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Every fire in [fromMillis, toMillis) of an event (or all events if null)
+     * that targeted the player while online, and whether they received it
+     */
+    public CompletableFuture<List<FireResult>> fireResultsAsync(UUID uuid, String eventName, long fromMillis, long toMillis) {
+        return CompletableFuture.supplyAsync(() -> {
+            List<FireResult> results = new ArrayList<>();
+            try {
+                synchronized (this) {
+                    int index = players.find(uuid);
+                    if (index < 0) return results;
+                    for (FireEntry fire : fires) {
+                        if (!matches(fire, eventName, fromMillis, toMillis)) continue;
+                        RandomAccessFile file = seekBitmaps(fire.offset);
+                        boolean received = RecipientBitmap.read(file).contains(index);
+                        if (received || (fire.hasMissed && RecipientBitmap.read(file).contains(index))) {
+                            results.add(new FireResult(fire.eventName, fire.time, received));
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                LOGGER.warning("[EventScheduler] Audit read error: " + e.getMessage());
+            }
+            return results;
+        }, io);
+    }
+
+    /**
+     * How many fires in [fromMillis, toMillis) that targeted a player they received and missed
+     */
+    public CompletableFuture<Summary> summaryAsync(UUID uuid, String eventName, long fromMillis, long toMillis) {
+        return fireResultsAsync(uuid, eventName, fromMillis, toMillis).thenApply(results -> {
+            int received = 0;
+            for (FireResult result : results) {
+                if (result.received) received++;
+            }
+            return new Summary(results.size(), received);
+        });
+    }
+
+    /**
+     * UUID of a player who ever received an audited fire, by username; completes with null if unknown
+     */
+    public CompletableFuture<UUID> findPlayerAsync(String username) {
+        return CompletableFuture.supplyAsync(() -> {
+            synchronized (this) {
+                return players.findByName(username);
+            }
+        }, io);
+    }
+
+    /**
+     * Delete segments whose newest fire is older than the retention
+     */
+    public void pruneAsync(long now) {
+        io.execute(() -> {
+            try {
+                prune(now);
+            } catch (IOException e) {
+                LOGGER.warning("[EventScheduler] Audit prune error: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Flush outstanding writes and close the files
+     */
+    public void close() {
+        io.shutdown();
+        try {
+            io.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            try {
+                players.close();
+                if (writer != null) {
+                    writer.close();
+                    writer = null;
+                }
+                for (RandomAccessFile file : readers.values()) {
+                    file.close();
+                }
+                readers.clear();
+            } catch (IOException e) {
+                LOGGER.warning("[EventScheduler] Audit close error: " + e.getMessage());
+            }
+        }
+    }
+
+    // ---- storage ----
+
+    private static boolean matches(FireEntry fire, String eventName, long fromMillis, long toMillis) {
+        return fire.time >= fromMillis && fire.time < toMillis
+                && (eventName == null || fire.eventName.equalsIgnoreCase(eventName));
+    }
+
+    private void appendFire(String eventName, long time, RecipientBitmap received, RecipientBitmap missed) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(48 + received.sizeInBytes() + missed.sizeInBytes());
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeLong(time);
+        out.writeUTF(eventName);
+        received.write(out);
+        missed.write(out);
+        byte[] record = bytes.toByteArray();
+
+        if (writer.length() > 8 && writer.length() + record.length > SEGMENT_MAX_BYTES) {
+            writer.close();
+            activeSegment++;
+            writer = new RandomAccessFile(segmentPath(activeSegment).toFile(), "rw");
+            writer.setLength(0);
+            writer.writeLong(SEGMENT_HEADER);
+        }
+        long position = writer.length();
+        writer.seek(position);
+        writer.write(record);
+        addFire(eventName, time, toOffset(activeSegment, position), true);
+    }
+
+    private void addFire(String eventName, long time, long offset, boolean hasMissed) {
+        fires.add(new FireEntry(eventNames.computeIfAbsent(eventName, k -> k), time, offset, hasMissed));
+        segmentNewest.merge(segmentOf(offset), time, Math::max);
+    }
+
+    /**
+     * Position a reader at the bitmaps of a record: received first, then missed
+     */
+    private RandomAccessFile seekBitmaps(long offset) throws IOException {
+        RandomAccessFile file = reader(segmentOf(offset));
+        file.seek(positionOf(offset) + 8); // skip time
+        file.readUTF();
+        return file;
+    }
+
+    private boolean hasHeader(int segment) throws IOException {
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(segmentPath(segment)))) {
+            return in.readLong() == SEGMENT_HEADER;
+        } catch (EOFException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Index the fires of a segment and return the length of its complete records
+     */
+    private long scanSegment(int segment) throws IOException {
+        long position = 0;
+        boolean hasMissed = false;
+        try (InputStream raw = Files.newInputStream(segmentPath(segment));
+             DataInputStream in = new DataInputStream(new BufferedInputStream(raw))) {
+            while (true) {
+                long time;
+                try {
+                    time = in.readLong();
+                } catch (EOFException e) {
+                    break;
+                }
+                if (position == 0 && time == SEGMENT_HEADER) {
+                    hasMissed = true;
+                    position = 8;
+                    continue;
+                }
+                String eventName = in.readUTF();
+                long length = 8 + utfLength(eventName) + skipBitmap(in);
+                if (hasMissed) {
+                    length += skipBitmap(in);
+                }
+                addFire(eventName, time, toOffset(segment, position), hasMissed);
+                position += length;
+            }
+        } catch (EOFException e) {
+            LOGGER.warning("[EventScheduler] Audit segment " + segment + " ends with a partial record, ignoring it.");
+        }
+        return position;
+    }
+
+    /**
+     * Skip one stored bitmap and return its size in bytes
+     */
+    private static int skipBitmap(DataInputStream in) throws IOException {
+        in.readByte();
+        in.readInt();
+        int length = in.readInt();
+        in.skipNBytes(length);
+        return 9 + length;
+    }
+
+    private synchronized void prune(long now) throws IOException {
+        long cutoff = now - retentionMillis;
+        List<Integer> expired = new ArrayList<>();
+        for (Map.Entry<Integer, Long> entry : segmentNewest.entrySet()) {
+            if (entry.getKey() != activeSegment && entry.getValue() < cutoff) {
+                expired.add(entry.getKey());
+            }
+        }
+        if (expired.isEmpty()) return;
+
+        for (int segment : expired) {
+            RandomAccessFile file = readers.remove(segment);
+            if (file != null) {
+                file.close();
+            }
+            segmentNewest.remove(segment);
+            Files.deleteIfExists(segmentPath(segment));
+        }
+        Iterator<FireEntry> it = fires.iterator();
+        while (it.hasNext()) {
+            if (!segmentNewest.containsKey(segmentOf(it.next().offset))) {
+                it.remove();
+            }
+        }
+        LOGGER.info("[EventScheduler] Reward audit pruned " + expired.size() + " segment(s), " + fires.size() + " fire(s) kept.");
+    }
+
+    // ---- files ----
+
+    private RandomAccessFile reader(int segment) throws IOException {
+        if (segment == activeSegment) {
+            return writer;
+        }
+        RandomAccessFile file = readers.get(segment);
+        if (file == null) {
+            file = new RandomAccessFile(segmentPath(segment).toFile(), "r");
+            readers.put(segment, file);
+        }
+        return file;
+    }
+
+    private List<Integer> listSegments() throws IOException {
+        List<Integer> segments = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    segments.add(Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())));
+                } catch (NumberFormatException e) {
+                    // Not one of ours
+                }
+            }
+        }
+        segments.sort(null);
+        return segments;
+    }
+
+    private Path segmentPath(int segment) {
+        return directory.resolve(String.format("%s%06d%s", SEGMENT_PREFIX, segment, SEGMENT_SUFFIX));
+    }
+
+    private static long toOffset(int segment, long position) {
+        return ((long) segment << 40) | position;
+    }
+
+    private static int segmentOf(long offset) {
+        return (int) (offset >>> 40);
+    }
+
+    private static long positionOf(long offset) {
+        return offset & ((1L << 40) - 1);
+    }
+
+    private static int utfLength(String value) {
+        int length = 2;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= 0x0001 && c <= 0x007F) {
+                length += 1;
+            } else if (c > 0x07FF) {
+                length += 3;
+            } else {
+                length += 2;
+            }
+        }
+        return length;
+    }
+}
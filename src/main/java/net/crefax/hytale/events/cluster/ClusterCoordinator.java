@@ -0,0 +1,161 @@
+package net.crefax.hytale.events.cluster;
+
+import net.crefax.hytale.events.time.SchedulerClock;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Cluster Coordinator
+ *
+ * Decides which node of a cluster runs global commands. The node holding
+ * the lease renews it every third of its lifetime; the others keep trying
+ * to take it over and win once it expires. Before a leader runs the global
+ * commands of a fire it commits the fire under its fencing token, so a
+ * node that lost the lease without noticing (paused JVM, slow mount) can
+ * never fire after the new leader, and a fire key is only ever committed
+ * once across the cluster.
+ *
+ * Interval events fire on the cluster's beat: every node counts their
+ * periods from the epoch kept with the lease, so the n-th fire of an event
+ * has the same key on every node, whenever that node was started.
+ *
+ * Node clocks are assumed to be roughly in sync (well within the lease time).
+ *
+ * @author Crefax
+ */
+public class ClusterCoordinator {
+
+    private static final Logger LOGGER = Logger.getLogger("EventScheduler");
+    private static final long NO_EPOCH = Long.MIN_VALUE;
+
+    private final String nodeId;
+    private final LeaseBackend backend;
+    private final SchedulerClock clock;
+    private final long ttlMillis;
+    private volatile long token = -1;
+    private volatile long validUntil;
+    private volatile long epoch = NO_EPOCH;
+    private ScheduledFuture<?> renewTask;
+
+    public ClusterCoordinator(String nodeId, LeaseBackend backend, SchedulerClock clock, long ttlMillis) {
+        this.nodeId = nodeId;
+        this.backend = backend;
+        this.clock = clock;
+        this.ttlMillis = Math.max(3000, ttlMillis);
+    }
+
+    /**
+     * Default node id: host name and process id
+     */
+    public static String defaultNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (IOException e) {
+            host = "node";
+        }
+        return host + "-" + ProcessHandle.current().pid();
+    }
+
+    public void start() {
+        renew();
+        long period = ttlMillis / 3;
+        renewTask = clock.scheduleAtFixedRate(this::renew, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    private void renew() {
+        long now = clock.currentTimeMillis();
+        long previous = token;
+        long current;
+        try {
+            if (epoch == NO_EPOCH) {
+                epoch = backend.epoch(now);
+            }
+            current = backend.acquireOrRenew(nodeId, now, ttlMillis);
+        } catch (IOException e) {
+            // Without the shared storage this node can't prove it is the leader
+            current = -1;
+            LOGGER.warning("[EventScheduler] Cluster lease error: " + e.getMessage());
+        }
+        validUntil = current >= 0 ? now + ttlMillis : 0;
+        token = current;
+        if (current >= 0 && previous < 0) {
+            LOGGER.info("[EventScheduler] Cluster: " + nodeId + " is now the leader (token " + current + ").");
+        } else if (current < 0 && previous >= 0) {
+            LOGGER.info("[EventScheduler] Cluster: " + nodeId + " lost the lease.");
+        }
+    }
+
+    /**
+     * True while this node holds an unexpired lease
+     */
+    public boolean isLeader() {
+        return token >= 0 && clock.currentTimeMillis() < validUntil;
+    }
+
+    /**
+     * Commit a fire for this node. Returns the fencing token it was committed
+     * under, or -1 if this node must not run the fire's global commands.
+     */
+    public long claimFire(String fireKey) {
+        long current = token;
+        if (current < 0 || !isLeader()) {
+            return -1;
+        }
+        try {
+            return backend.commitFire(fireKey, current, clock.currentTimeMillis()) ? current : -1;
+        } catch (IOException e) {
+            LOGGER.warning("[EventScheduler] Cluster commit error: " + fireKey + " - " + e.getMessage());
+            return -1;
+        }
+    }
+
+    /**
+     * The cluster epoch, or the given fallback while the shared storage was
+     * never reached
+     */
+    public long getEpoch(long fallback) {
+        long current = epoch;
+        return current != NO_EPOCH ? current : fallback;
+    }
+
+    /**
+     * Key of a fire. Fires of interval events are keyed by their period
+     * number since the epoch (rounded, so jitter of a node's timer doesn't
+     * matter); other fires by their intended time.
+     */
+    public String fireKey(String eventName, long intendedAt, long periodMillis) {
+        long current = epoch;
+        if (periodMillis <= 0 || current == NO_EPOCH) {
+            return eventName + "@" + intendedAt;
+        }
+        return eventName + "#" + Math.floorDiv(intendedAt - current + periodMillis / 2, periodMillis);
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Stop renewing and hand the lease over
+     */
+    public void stop() {
+        if (renewTask != null) {
+            renewTask.cancel(false);
+            renewTask = null;
+        }
+        if (token >= 0) {
+            try {
+                backend.release(nodeId);
+            } catch (IOException e) {
+                LOGGER.warning("[EventScheduler] Cluster release error: " + e.getMessage());
+            }
+        }
+        token = -1;
+        backend.close();
+    }
+}
@@ -0,0 +1,238 @@
+package net.crefax.hytale.events.cluster;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UTFDataFormatException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * File Lease Backend
+ *
+ * Keeps the lease in a directory shared by all nodes (e.g. a network
+ * mount). Every read-modify-write happens under an exclusive lock on
+ * lease.lock. lease.dat holds the cluster epoch, the current holder,
+ * fencing token, lease expiry and the keys of the most recently committed
+ * fires; it is replaced through a temporary file, so a crash mid-write
+ * leaves the previous state in place.
+ *
+ * A lease.dat that still can't be read is not started over from
+ * scratch, which would move the cluster's epoch and with it every
+ * interval fire key. A node that read the file before starts over with
+ * the highest epoch and token it saw (the token raised above any handed
+ * out since, at least to the current time), so a node holding an old
+ * token can't commit under the new state. A node that never read it
+ * refuses the lease until the file is repaired or removed.
+ *
+ * File layout: magic (int), epoch (long), holder (UTF), token (long),
+ * expiresAt (long), fire count (int), then per fire: key (UTF),
+ * token (long), time (long).
+ *
+ * @author Crefax
+ */
+public class FileLeaseBackend implements LeaseBackend {
+
+    private static final Logger LOGGER = Logger.getLogger("EventScheduler");
+    private static final String LEASE_FILE = "lease.dat";
+    private static final String LOCK_FILE = "lease.lock";
+    private static final int MAGIC = 0x45534C45; // "ESLE"
+    private static final long NO_EPOCH = Long.MIN_VALUE;
+    private static final int MAX_REMEMBERED_FIRES = 512;
+    // File locks are held per JVM; this keeps two threads of one JVM from overlapping
+    private static final Object JVM_LOCK = new Object();
+
+    private static final class State {
+        long epoch = NO_EPOCH;
+        String holder = "";
+        long token;
+        long expiresAt;
+        final LinkedHashMap<String, long[]> fires = new LinkedHashMap<>();
+    }
+
+    private final Path file;
+    private final Path lockFile;
+    // Highest epoch and token this node saw in the file, guarded by JVM_LOCK
+    private long seenEpoch = NO_EPOCH;
+    private long seenToken;
+
+    public FileLeaseBackend(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        this.file = directory.resolve(LEASE_FILE);
+        this.lockFile = directory.resolve(LOCK_FILE);
+    }
+
+    @Override
+    public long acquireOrRenew(String nodeId, long now, long ttlMillis) throws IOException {
+        synchronized (JVM_LOCK) {
+            try (FileChannel channel = openChannel(); FileLock lock = channel.lock()) {
+                State state = read(now);
+                if (!state.holder.equals(nodeId) && state.expiresAt > now) {
+                    return -1; // someone else holds a live lease
+                }
+                if (!state.holder.equals(nodeId)) {
+                    state.holder = nodeId;
+                    state.token++;
+                }
+                state.expiresAt = now + ttlMillis;
+                write(state);
+                return state.token;
+            }
+        }
+    }
+
+    @Override
+    public boolean commitFire(String fireKey, long token, long now) throws IOException {
+        synchronized (JVM_LOCK) {
+            try (FileChannel channel = openChannel(); FileLock lock = channel.lock()) {
+                State state = read(now);
+                if (state.token != token || state.expiresAt <= now || state.fires.containsKey(fireKey)) {
+                    return false;
+                }
+                state.fires.put(fireKey, new long[]{token, now});
+                while (state.fires.size() > MAX_REMEMBERED_FIRES) {
+                    state.fires.remove(state.fires.keySet().iterator().next());
+                }
+                write(state);
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public long epoch(long now) throws IOException {
+        synchronized (JVM_LOCK) {
+            try (FileChannel channel = openChannel(); FileLock lock = channel.lock()) {
+                State state = read(now);
+                if (state.epoch == NO_EPOCH) {
+                    state.epoch = now;
+                    write(state);
+                }
+                return state.epoch;
+            }
+        }
+    }
+
+    @Override
+    public void release(String nodeId) throws IOException {
+        synchronized (JVM_LOCK) {
+            try (FileChannel channel = openChannel(); FileLock lock = channel.lock()) {
+                State state = read(0);
+                if (state.holder.equals(nodeId)) {
+                    // Keep holder and token, only let the lease run out now
+                    state.expiresAt = 0;
+                    write(state);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        // Nothing held open between calls
+    }
+
+    /**
+     * The lock file only guards the lease file, which is replaced on every write
+     */
+    private FileChannel openChannel() throws IOException {
+        return FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    private State read(long now) throws IOException {
+        byte[] data;
+        try {
+            data = Files.readAllBytes(file);
+        } catch (NoSuchFileException e) {
+            return new State();
+        }
+        try {
+            State state = parse(data);
+            if (state != null) {
+                remember(state);
+                return state;
+            }
+        } catch (EOFException | UTFDataFormatException e) {
+            // Cut short or garbled, handled below like any other unreadable file
+        }
+        if (seenEpoch == NO_EPOCH) {
+            LOGGER.severe("[EventScheduler] Cluster lease file is unreadable and this node never read it;"
+                    + " no lease until it is repaired or removed: " + file);
+            throw new IOException("Cluster lease file is unreadable: " + file);
+        }
+        LOGGER.severe("[EventScheduler] Cluster lease file is unreadable, starting over with epoch "
+                + seenEpoch + " kept by this node: " + file);
+        State state = new State();
+        state.epoch = seenEpoch;
+        state.token = Math.max(now, seenToken + 1);
+        write(state);
+        return state;
+    }
+
+    private void remember(State state) {
+        if (state.epoch != NO_EPOCH) {
+            seenEpoch = state.epoch;
+        }
+        seenToken = Math.max(seenToken, state.token);
+    }
+
+    /**
+     * The state in a lease file, null if it isn't one
+     */
+    private static State parse(byte[] data) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        if (data.length < 4 || in.readInt() != MAGIC) {
+            return null;
+        }
+        State state = new State();
+        state.epoch = in.readLong();
+        state.holder = in.readUTF();
+        state.token = in.readLong();
+        state.expiresAt = in.readLong();
+        int fires = in.readInt();
+        for (int i = 0; i < fires; i++) {
+            String key = in.readUTF();
+            state.fires.put(key, new long[]{in.readLong(), in.readLong()});
+        }
+        return state;
+    }
+
+    private void write(State state) throws IOException {
+        remember(state);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + state.fires.size() * 48);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeLong(state.epoch);
+        out.writeUTF(state.holder);
+        out.writeLong(state.token);
+        out.writeLong(state.expiresAt);
+        out.writeInt(state.fires.size());
+        for (Map.Entry<String, long[]> fire : state.fires.entrySet()) {
+            out.writeUTF(fire.getKey());
+            out.writeLong(fire.getValue()[0]);
+            out.writeLong(fire.getValue()[1]);
+        }
+        Path temp = file.resolveSibling(LEASE_FILE + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,41 @@
+package net.crefax.hytale.events.cluster;
+
+import java.io.IOException;
+
+/**
+ * Lease Backend
+ *
+ * Shared storage for the cluster lease. Exactly one node holds the lease
+ * at a time; every change of holder increments the fencing token, and a
+ * fire is only committed under the token that is current in the backend.
+ *
+ * @author Crefax
+ */
+public interface LeaseBackend {
+
+    /**
+     * Acquire the lease if it is free or expired, or renew it if this node holds it.
+     *
+     * @return the fencing token if this node holds the lease afterwards, otherwise -1
+     */
+    long acquireOrRenew(String nodeId, long now, long ttlMillis) throws IOException;
+
+    /**
+     * Commit a fire. Fails if the token is no longer current (another node took
+     * over) or if the same fire key was already committed by any node.
+     */
+    boolean commitFire(String fireKey, long token, long now) throws IOException;
+
+    /**
+     * The cluster epoch: set by the first node that uses the backend and the
+     * same for every node afterwards. Interval fires are counted from it.
+     */
+    long epoch(long now) throws IOException;
+
+    /**
+     * Give the lease up early (e.g. on shutdown) so another node can take over at once
+     */
+    void release(String nodeId) throws IOException;
+
+    void close();
+}
@@ -0,0 +1,136 @@
+package net.crefax.hytale.events.commands;
+
+import net.crefax.hytale.events.config.EventConfig;
+import net.crefax.hytale.events.config.EventConfig.EventDefinition;
+import net.crefax.hytale.events.config.EventConfig.IntervalEvent;
+import net.crefax.hytale.events.config.EventConfig.ScheduledEvent;
+import net.crefax.hytale.events.i18n.I18nManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.StringJoiner;
+
+/**
+ * Event Listing
+ *
+ * The event part of /events rendered once for one language: one text
+ * block per event, in config order, interval events first. It is reused
+ * until the config is reloaded, an event is toggled or the language
+ * files change.
+ *
+ * @author Crefax
+ */
+final class EventListing {
+
+    final String language;
+    final int configVersion;
+    final int i18nGeneration;
+    final String intervalTitle;
+    final String scheduledTitle;
+    private final String[] names;      // lower case, for filtering
+    private final String[] blocks;
+    private final boolean[] interval;
+
+    private EventListing(String language, int configVersion, int i18nGeneration, String intervalTitle,
+                         String scheduledTitle, List<String> names, List<String> blocks, List<Boolean> interval) {
+        this.language = language;
+        this.configVersion = configVersion;
+        this.i18nGeneration = i18nGeneration;
+        this.intervalTitle = intervalTitle;
+        this.scheduledTitle = scheduledTitle;
+        this.names = names.toArray(new String[0]);
+        this.blocks = blocks.toArray(new String[0]);
+        this.interval = new boolean[interval.size()];
+        for (int i = 0; i < this.interval.length; i++) {
+            this.interval[i] = interval.get(i);
+        }
+    }
+
+    static EventListing render(EventConfig config, I18nManager i18n, String language, int configVersion) {
+        int generation = i18n.getGeneration();
+        List<String> names = new ArrayList<>();
+        List<String> blocks = new ArrayList<>();
+        List<Boolean> interval = new ArrayList<>();
+        for (IntervalEvent event : config.getIntervalEvents()) {
+            String header = i18n.getMessageForLocale(language,
+                event.playtime ? "commands.events.playtime_format" : "commands.events.interval_format",
+                status(i18n, language, event), event.name, String.valueOf(event.interval));
+            add(names, blocks, interval, event, render(i18n, language, event, header), true);
+        }
+        for (ScheduledEvent event : config.getScheduledEvents()) {
+            String header = i18n.getMessageForLocale(language, "commands.events.scheduled_format",
+                status(i18n, language, event), event.name, String.join(", ", event.times));
+            if (!event.countdown.isEmpty()) {
+                StringJoiner offsets = new StringJoiner(", ");
+                for (int seconds : event.countdown) {
+                    offsets.add("-" + seconds + "s");
+                }
+                header += '\n' + i18n.getMessageForLocale(language, "commands.events.countdown_format", offsets.toString());
+            }
+            add(names, blocks, interval, event, render(i18n, language, event, header), false);
+        }
+        return new EventListing(language, configVersion, generation,
+            i18n.getMessageForLocale(language, "commands.events.interval_title"),
+            i18n.getMessageForLocale(language, "commands.events.scheduled_title"),
+            names, blocks, interval);
+    }
+
+    private static void add(List<String> names, List<String> blocks, List<Boolean> interval,
+                            EventDefinition event, String block, boolean isInterval) {
+        names.add(event.name.toLowerCase(Locale.ROOT));
+        blocks.add(block);
+        interval.add(isInterval);
+    }
+
+    private static String status(I18nManager i18n, String language, EventDefinition event) {
+        return i18n.getMessageForLocale(language, event.enabled ? "commands.events.status_active" : "commands.events.status_disabled");
+    }
+
+    private static String render(I18nManager i18n, String language, EventDefinition event, String header) {
+        StringBuilder block = new StringBuilder(header);
+        block.append('\n').append(i18n.getMessageForLocale(language, "commands.events.commands_format",
+            String.join(", ", event.commands)));
+        if (!event.stages.isEmpty()) {
+            StringJoiner delays = new StringJoiner(", ");
+            for (EventConfig.Stage stage : event.stages) {
+                delays.add("+" + stage.delay + "s");
+            }
+            block.append('\n').append(i18n.getMessageForLocale(language, "commands.events.stages_format",
+                String.valueOf(event.stages.size() + 1), delays.toString()));
+        }
+        return block.toString();
+    }
+
+    boolean isCurrent(int configVersion, int i18nGeneration) {
+        return this.configVersion == configVersion && this.i18nGeneration == i18nGeneration;
+    }
+
+    /**
+     * Indexes of the events whose name contains the filter (all for null)
+     */
+    int[] matching(String filter) {
+        if (filter == null || filter.isEmpty()) {
+            int[] all = new int[names.length];
+            for (int i = 0; i < all.length; i++) all[i] = i;
+            return all;
+        }
+        String needle = filter.toLowerCase(Locale.ROOT);
+        int[] found = new int[names.length];
+        int count = 0;
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].contains(needle)) found[count++] = i;
+        }
+        int[] result = new int[count];
+        System.arraycopy(found, 0, result, 0, count);
+        return result;
+    }
+
+    String block(int index) {
+        return blocks[index];
+    }
+
+    boolean isInterval(int index) {
+        return interval[index];
+    }
+}
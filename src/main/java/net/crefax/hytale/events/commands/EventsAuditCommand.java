@@ -0,0 +1,122 @@
+package net.crefax.hytale.events.commands;
+
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.command.system.AbstractCommand;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hypixel.hytale.server.core.command.system.arguments.system.OptionalArg;
+import com.hypixel.hytale.server.core.command.system.arguments.types.ArgTypes;
+import com.hypixel.hytale.server.core.entity.entities.Player;
+
+import net.crefax.hytale.events.EventSchedulerMod;
+import net.crefax.hytale.events.audit.RewardAudit;
+import net.crefax.hytale.events.audit.RewardAudit.FireResult;
+import net.crefax.hytale.events.i18n.I18nManager;
+import net.crefax.hytale.events.time.ZoneCalendar;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * /eventsaudit --player <name> [--eventName <name>] [--date <yyyy-MM-dd>] [--days <count>] Command
+ *
+ * Shows which event fires a player received. With --date every fire of
+ * that day is listed, otherwise received and missed fires of the last
+ * days are counted.
+ *
+ * @author Crefax
+ */
+public class EventsAuditCommand extends AbstractCommand {
+
+    private static final int DEFAULT_DAYS = 7;
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm:ss");
+
+    private final EventSchedulerMod plugin;
+    private final OptionalArg<String> playerArg;
+    private final OptionalArg<String> eventNameArg;
+    private final OptionalArg<String> dateArg;
+    private final OptionalArg<Integer> daysArg;
+
+    public EventsAuditCommand(EventSchedulerMod plugin) {
+        super("eventsaudit", "Check which event rewards a player received");
+        this.plugin = plugin;
+        this.playerArg = withOptionalArg("player", "Player name", ArgTypes.STRING);
+        this.eventNameArg = withOptionalArg("eventName", "Event name", ArgTypes.STRING);
+        this.dateArg = withOptionalArg("date", "Day to list (yyyy-MM-dd)", ArgTypes.STRING);
+        this.daysArg = withOptionalArg("days", "Days to count when no date is given", ArgTypes.INTEGER);
+        // Only OP can use
+        setPermissionGroups("OP");
+    }
+
+    @Nullable
+    @Override
+    protected CompletableFuture<Void> execute(@Nonnull CommandContext context) {
+        I18nManager i18n = plugin.getI18n();
+        Player sender = context.isPlayer() ? context.senderAs(Player.class) : null;
+        String prefix = i18n.getPrefix(sender);
+
+        String playerName = context.get(playerArg);
+        if (playerName == null || playerName.isEmpty()) {
+            context.sendMessage(Message.raw(prefix + i18n.getMessage(sender, "commands.usage",
+                i18n.getMessage(sender, "commands.audit.usage"))));
+            return CompletableFuture.completedFuture(null);
+        }
+
+        RewardAudit audit = plugin.getSchedulerManager().getAudit();
+        if (audit == null) {
+            context.sendMessage(Message.raw(prefix + i18n.getMessage(sender, "commands.audit.disabled")));
+            return CompletableFuture.completedFuture(null);
+        }
+
+        String eventName = context.get(eventNameArg);
+        String eventFilter = eventName != null && !eventName.isEmpty() ? eventName : null;
+        String dateText = context.get(dateArg);
+        Integer days = context.get(daysArg);
+        ZoneId zone = ZoneCalendar.of(plugin.getConfig().getSettings().timezone).getZone();
+
+        long from;
+        long to;
+        if (dateText != null && !dateText.isEmpty()) {
+            try {
+                LocalDate date = LocalDate.parse(dateText);
+                from = date.atStartOfDay(zone).toInstant().toEpochMilli();
+                to = date.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+            } catch (DateTimeParseException e) {
+                context.sendMessage(Message.raw(prefix + i18n.getMessage(sender, "commands.audit.invalid_date", dateText)));
+                return CompletableFuture.completedFuture(null);
+            }
+        } else {
+            to = plugin.getSchedulerManager().getClock().currentTimeMillis() + 1;
+            from = to - (days != null && days > 0 ? days : DEFAULT_DAYS) * 24L * 60 * 60 * 1000;
+        }
+        boolean listFires = dateText != null && !dateText.isEmpty();
+
+        // The audit log answers on its own thread; the command completes when it has
+        return audit.findPlayerAsync(playerName).thenCompose(uuid -> {
+            if (uuid == null) {
+                context.sendMessage(Message.raw(prefix + i18n.getMessage(sender, "commands.audit.unknown_player", playerName)));
+                return CompletableFuture.completedFuture(null);
+            }
+            return audit.fireResultsAsync(uuid, eventFilter, from, to).thenAccept(results -> {
+                int received = 0;
+                context.sendMessage(Message.raw(i18n.getMessage(sender, "commands.audit.title", playerName)));
+                for (FireResult result : results) {
+                    if (result.received) received++;
+                    if (listFires) {
+                        String time = TIME_FORMAT.format(Instant.ofEpochMilli(result.time).atZone(zone));
+                        String status = i18n.getMessage(sender, result.received ? "commands.audit.received" : "commands.audit.missed");
+                        context.sendMessage(Message.raw(i18n.getMessage(sender, "commands.audit.fire_format",
+                            time, result.eventName, status)));
+                    }
+                }
+                context.sendMessage(Message.raw(i18n.getMessage(sender, "commands.audit.summary",
+                    String.valueOf(received), String.valueOf(results.size()), String.valueOf(results.size() - received))));
+            });
+        });
+    }
+}
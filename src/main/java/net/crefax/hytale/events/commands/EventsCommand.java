@@ -3,35 +3,50 @@ package net.crefax.hytale.events.commands;
 import com.hypixel.hytale.server.core.Message;
 import com.hypixel.hytale.server.core.command.system.AbstractCommand;
 import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hypixel.hytale.server.core.command.system.arguments.system.OptionalArg;
+import com.hypixel.hytale.server.core.command.system.arguments.types.ArgTypes;
 import com.hypixel.hytale.server.core.entity.entities.Player;
-import com.hypixel.hytale.server.core.universe.PlayerRef;
 
 import net.crefax.hytale.events.EventSchedulerMod;
-import net.crefax.hytale.events.config.EventConfig;
-import net.crefax.hytale.events.config.EventConfig.IntervalEvent;
-import net.crefax.hytale.events.config.EventConfig.ScheduledEvent;
+import net.crefax.hytale.events.manager.DeferralStats;
 import net.crefax.hytale.events.manager.SchedulerManager;
+import net.crefax.hytale.events.manager.WorkflowRun;
 import net.crefax.hytale.events.i18n.I18nManager;
+import net.crefax.hytale.events.time.TickHealthMonitor;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.StringJoiner;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * /events Command
- * 
- * Event scheduler management command.
- * Usage: /events <list|reload|help>
- * 
+ * /events [--page <n>] [--filter <text>] Command
+ *
+ * Event scheduler management command. The event list is rendered once per
+ * language and cached until the config is reloaded or an event is toggled;
+ * each page is sent as a single message.
+ *
  * @author Crefax
  */
 public class EventsCommand extends AbstractCommand {
 
+    private static final int EVENTS_PER_PAGE = 10;
+    private static final int MAX_LISTED_WORKFLOWS = 10;
+
     private final EventSchedulerMod plugin;
+    private final OptionalArg<Integer> pageArg;
+    private final OptionalArg<String> filterArg;
+    private final Map<String, EventListing> listings = new ConcurrentHashMap<>();
 
     public EventsCommand(EventSchedulerMod plugin) {
         super("events", "Event scheduler management command");
         this.plugin = plugin;
+        this.pageArg = withOptionalArg("page", "Page of the event list", ArgTypes.INTEGER);
+        this.filterArg = withOptionalArg("filter", "Only events whose name contains this text", ArgTypes.STRING);
         // Only OP can use
         setPermissionGroups("OP");
     }
@@ -44,44 +59,101 @@ public class EventsCommand extends AbstractCommand {
     }
 
     private void showEventList(CommandContext context) {
-        EventConfig config = plugin.getConfig();
         I18nManager i18n = plugin.getI18n();
-        
+        SchedulerManager manager = plugin.getSchedulerManager();
+
         // Get player for per-player language support
         Player player = context.isPlayer() ? context.senderAs(Player.class) : null;
-        
-        context.sendMessage(Message.raw(i18n.getMessage(player, "commands.events.title")));
-        context.sendMessage(Message.raw(i18n.getMessage(player, "commands.events.empty")));
-        context.sendMessage(Message.raw(i18n.getMessage(player, "commands.events.interval_title")));
-        
-        for (IntervalEvent event : config.getIntervalEvents()) {
-            String status = event.enabled 
-                ? i18n.getMessage(player, "commands.events.status_active") 
-                : i18n.getMessage(player, "commands.events.status_disabled");
-            context.sendMessage(Message.raw(i18n.getMessage(player, "commands.events.interval_format", 
-                status, event.name, String.valueOf(event.interval))));
-            context.sendMessage(Message.raw(i18n.getMessage(player, "commands.events.commands_format", 
-                String.join(", ", event.commands))));
+        String language = i18n.getPlayerLanguage(player);
+        EventListing listing = listing(i18n, manager, language);
+
+        String filter = context.get(filterArg);
+        int[] shown = listing.matching(filter);
+        int pages = Math.max(1, (shown.length + EVENTS_PER_PAGE - 1) / EVENTS_PER_PAGE);
+        Integer requested = context.get(pageArg);
+        int page = Math.min(pages, Math.max(1, requested != null ? requested : 1));
+
+        StringJoiner text = new StringJoiner("\n");
+        text.add(i18n.getMessageForLocale(language, "commands.events.title"));
+        if (shown.length == 0) {
+            text.add(i18n.getMessageForLocale(language, "commands.events.no_match", filter != null ? filter : ""));
+        }
+        Boolean section = null;
+        for (int i = (page - 1) * EVENTS_PER_PAGE; i < Math.min(shown.length, page * EVENTS_PER_PAGE); i++) {
+            int index = shown[i];
+            if (section == null || section != listing.isInterval(index)) {
+                section = listing.isInterval(index);
+                text.add("");
+                text.add(section ? listing.intervalTitle : listing.scheduledTitle);
+            }
+            text.add(listing.block(index));
+        }
+        text.add("");
+        text.add(i18n.getMessageForLocale(language, "commands.events.page_format",
+            String.valueOf(page), String.valueOf(pages), String.valueOf(shown.length)));
+
+        // Live state and help only on the first page
+        if (page == 1) {
+            addStatus(text, i18n, language, manager);
+            text.add("");
+            text.add(i18n.getMessageForLocale(language, "commands.events.commands_title"));
+            text.add(i18n.getMessageForLocale(language, "commands.events.help_trigger"));
+            text.add(i18n.getMessageForLocale(language, "commands.events.help_reload"));
+            text.add(i18n.getMessageForLocale(language, "commands.events.help_list"));
+            text.add(i18n.getMessageForLocale(language, "commands.events.help_history"));
+            text.add(i18n.getMessageForLocale(language, "commands.events.help_audit"));
+        }
+        text.add(i18n.getMessageForLocale(language, "commands.events.footer"));
+        context.sendMessage(Message.raw(text.toString()));
+    }
+
+    private EventListing listing(I18nManager i18n, SchedulerManager manager, String language) {
+        int version = manager.getConfigVersion();
+        EventListing listing = listings.get(language);
+        if (listing == null || !listing.isCurrent(version, i18n.getGeneration())) {
+            listing = EventListing.render(plugin.getConfig(), i18n, language, version);
+            listings.put(language, listing);
+        }
+        return listing;
+    }
+
+    /**
+     * Running workflows, tick health and worker queues: never cached
+     */
+    private void addStatus(StringJoiner text, I18nManager i18n, String language, SchedulerManager manager) {
+        Collection<WorkflowRun> workflows = manager.getRunningWorkflows();
+        if (!workflows.isEmpty()) {
+            long now = manager.getClock().currentTimeMillis();
+            text.add("");
+            text.add(i18n.getMessageForLocale(language, "commands.events.workflows_title",
+                String.valueOf(workflows.size())));
+            int listed = 0;
+            for (WorkflowRun run : workflows) {
+                if (listed++ >= MAX_LISTED_WORKFLOWS) break;
+                text.add(i18n.getMessageForLocale(language, "commands.events.workflow_format",
+                    run.getEventName(), String.valueOf(run.getNextStage()), String.valueOf(run.getTotalStages()),
+                    String.valueOf(Math.max(0, (run.getNextAt() - now + 999) / 1000))));
+            }
+        }
+
+        TickHealthMonitor tickHealth = manager.getTickHealth();
+        if (tickHealth != null) {
+            DeferralStats deferral = manager.getDeferralStats();
+            String state = i18n.getMessageForLocale(language, tickHealth.isOverloaded()
+                ? "commands.events.tick_overloaded" : "commands.events.tick_ok");
+            text.add("");
+            text.add(i18n.getMessageForLocale(language, "commands.events.tick_health_format",
+                state, String.valueOf(Math.round(tickHealth.getAverageTickMillis())),
+                String.valueOf(deferral.getDeferredFires()), String.valueOf(deferral.getWaiting()),
+                String.valueOf(deferral.getTotalDeferralMillis() / 1000), String.valueOf(deferral.getLongestDeferralMillis() / 1000),
+                String.valueOf(deferral.getForcedFires()), String.valueOf(deferral.getSupersededFires())));
         }
-        
-        context.sendMessage(Message.raw(i18n.getMessage(player, "commands.events.empty")));
-        context.sendMessage(Message.raw(i18n.getMessage(player, "commands.events.scheduled_title")));
-        
-        for (ScheduledEvent event : config.getScheduledEvents()) {
-            String status = event.enabled 
-                ? i18n.getMessage(player, "commands.events.status_active") 
-                : i18n.getMessage(player, "commands.events.status_disabled");
-            context.sendMessage(Message.raw(i18n.getMessage(player, "commands.events.scheduled_format", 
-                status, event.name, String.join(", ", event.times))));
-            context.sendMessage(Message.raw(i18n.getMessage(player, "commands.events.commands_format", 
-                String.join(", ", event.commands))));
+
+        int[] depths = manager.getWorkerQueueDepths();
+        if (depths.length > 0) {
+            text.add("");
+            text.add(i18n.getMessageForLocale(language, "commands.events.workers_format",
+                String.valueOf(depths.length), Arrays.toString(depths)));
         }
-        
-        context.sendMessage(Message.raw(i18n.getMessage(player, "commands.events.empty")));
-        context.sendMessage(Message.raw(i18n.getMessage(player, "commands.events.commands_title")));
-        context.sendMessage(Message.raw(i18n.getMessage(player, "commands.events.help_trigger")));
-        context.sendMessage(Message.raw(i18n.getMessage(player, "commands.events.help_reload")));
-        context.sendMessage(Message.raw(i18n.getMessage(player, "commands.events.help_list")));
-        context.sendMessage(Message.raw(i18n.getMessage(player, "commands.events.footer")));
     }
 }
@@ -0,0 +1,97 @@
+package net.crefax.hytale.events.commands;
+
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.command.system.AbstractCommand;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hypixel.hytale.server.core.command.system.arguments.system.OptionalArg;
+import com.hypixel.hytale.server.core.command.system.arguments.types.ArgTypes;
+import com.hypixel.hytale.server.core.entity.entities.Player;
+
+import net.crefax.hytale.events.EventSchedulerMod;
+import net.crefax.hytale.events.history.ExecutionRecord;
+import net.crefax.hytale.events.manager.SchedulerManager;
+import net.crefax.hytale.events.i18n.I18nManager;
+import net.crefax.hytale.events.time.ZoneCalendar;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * /eventshistory [--eventName <name>] [--since <minutes>] [--until <minutes>] [--limit <count>] Command
+ *
+ * Shows the most recent event executions.
+ *
+ * @author Crefax
+ */
+public class EventsHistoryCommand extends AbstractCommand {
+
+    private static final int DEFAULT_LIMIT = 10;
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("MM-dd HH:mm:ss");
+
+    private final EventSchedulerMod plugin;
+    private final OptionalArg<String> eventNameArg;
+    private final OptionalArg<Integer> sinceArg;
+    private final OptionalArg<Integer> untilArg;
+    private final OptionalArg<Integer> limitArg;
+
+    public EventsHistoryCommand(EventSchedulerMod plugin) {
+        super("eventshistory", "Show recent event executions");
+        this.plugin = plugin;
+        this.eventNameArg = withOptionalArg("eventName", "Event name", ArgTypes.STRING);
+        this.sinceArg = withOptionalArg("since", "Only executions from the last N minutes", ArgTypes.INTEGER);
+        this.untilArg = withOptionalArg("until", "Only executions at least N minutes ago", ArgTypes.INTEGER);
+        this.limitArg = withOptionalArg("limit", "Maximum number of entries", ArgTypes.INTEGER);
+        // Only OP can use
+        setPermissionGroups("OP");
+    }
+
+    @Nullable
+    @Override
+    protected CompletableFuture<Void> execute(@Nonnull CommandContext context) {
+        I18nManager i18n = plugin.getI18n();
+        Player player = context.isPlayer() ? context.senderAs(Player.class) : null;
+        SchedulerManager scheduler = plugin.getSchedulerManager();
+
+        String eventName = context.get(eventNameArg);
+        Integer since = context.get(sinceArg);
+        Integer until = context.get(untilArg);
+        Integer limit = context.get(limitArg);
+
+        long now = scheduler.getClock().currentTimeMillis();
+        long from = since != null ? now - since * 60_000L : Long.MIN_VALUE;
+        long to = until != null ? now - until * 60_000L : Long.MAX_VALUE;
+
+        List<ExecutionRecord> records = scheduler.getHistory().query(
+                eventName != null && !eventName.isEmpty() ? eventName : null,
+                from, to, limit != null && limit > 0 ? limit : DEFAULT_LIMIT);
+
+        context.sendMessage(Message.raw(i18n.getMessage(player, "commands.history.title")));
+        if (records.isEmpty()) {
+            context.sendMessage(Message.raw(i18n.getMessage(player, "commands.history.empty")));
+            return CompletableFuture.completedFuture(null);
+        }
+
+        ZoneId zone = ZoneCalendar.of(plugin.getConfig().getSettings().timezone).getZone();
+        for (ExecutionRecord record : records) {
+            String time = TIME_FORMAT.format(Instant.ofEpochMilli(record.executedAt).atZone(zone));
+            String line = i18n.getMessage(player, "commands.history.format",
+                    time,
+                    record.eventName,
+                    String.valueOf(record.playerCount),
+                    String.valueOf(record.failures),
+                    String.valueOf(record.durationNanos / 1_000_000L),
+                    String.valueOf(record.getDelayMillis()));
+            if (record.manual) {
+                line += i18n.getMessage(player, "commands.history.manual");
+            }
+            context.sendMessage(Message.raw(line));
+        }
+
+        return CompletableFuture.completedFuture(null);
+    }
+}
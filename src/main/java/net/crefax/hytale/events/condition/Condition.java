@@ -0,0 +1,17 @@
+package net.crefax.hytale.events.condition;
+
+/**
+ * Condition
+ *
+ * A compiled event or player condition.
+ *
+ * @author Crefax
+ */
+@FunctionalInterface
+public interface Condition {
+
+    Condition ALWAYS = context -> true;
+    Condition NEVER = context -> false;
+
+    boolean test(ConditionContext context);
+}
@@ -0,0 +1,38 @@
+package net.crefax.hytale.events.condition;
+
+import net.crefax.hytale.events.player.OnlinePlayer;
+
+import java.time.ZonedDateTime;
+import java.util.function.Predicate;
+
+/**
+ * Condition Context
+ *
+ * What conditions can see during one fire. It is filled once per fire;
+ * player conditions reuse it and only swap {@link #player}.
+ *
+ * @author Crefax
+ */
+public final class ConditionContext {
+
+    public final int players;
+    public final int hour;
+    public final int minute;
+    public final int dayOfWeek;  // 1 = Monday ... 7 = Sunday
+    public final int day;
+    public final int month;
+    public final long nowMillis;
+    public final Predicate<String> eventActive;
+    public OnlinePlayer player;  // only set for player conditions
+
+    public ConditionContext(int players, ZonedDateTime now, Predicate<String> eventActive) {
+        this.players = players;
+        this.hour = now.getHour();
+        this.minute = now.getMinute();
+        this.dayOfWeek = now.getDayOfWeek().getValue();
+        this.day = now.getDayOfMonth();
+        this.month = now.getMonthValue();
+        this.nowMillis = now.toInstant().toEpochMilli();
+        this.eventActive = eventActive;
+    }
+}
@@ -0,0 +1,15 @@
+package net.crefax.hytale.events.condition;
+
+/**
+ * Condition Exception
+ *
+ * A condition in events.json that can't be parsed or doesn't type-check.
+ *
+ * @author Crefax
+ */
+public class ConditionException extends IllegalArgumentException {
+
+    public ConditionException(String message, int position) {
+        super(message + " (at " + (position + 1) + ")");
+    }
+}
@@ -0,0 +1,98 @@
+package net.crefax.hytale.events.condition;
+
+/**
+ * Condition Interpreter
+ *
+ * Evaluates a syntax tree directly: a switch per node, names looked up
+ * as strings and every value boxed. Used for constant folding at load
+ * time and as the baseline the compiled conditions are measured against.
+ *
+ * @author Crefax
+ */
+final class ConditionInterpreter {
+
+    private ConditionInterpreter() {
+    }
+
+    static Object eval(Node node, ConditionContext context) {
+        switch (node.kind) {
+            case LITERAL:
+                switch (node.type) {
+                    case INT: return node.intValue;
+                    case STRING: return node.stringValue;
+                    default: return node.boolValue;
+                }
+            case VAR:
+                return variable(node.name, context);
+            case CALL: {
+                String argument = (String) eval(node.args[0], context);
+                if (node.name.equals("hasPermission")) {
+                    return context.player.hasPermission(argument);
+                }
+                return context.eventActive.test(argument);
+            }
+            case NOT:
+                return !(Boolean) eval(node.args[0], context);
+            case NEG:
+                return -(Long) eval(node.args[0], context);
+            case AND:
+                return (Boolean) eval(node.args[0], context) && (Boolean) eval(node.args[1], context);
+            case OR:
+                return (Boolean) eval(node.args[0], context) || (Boolean) eval(node.args[1], context);
+            case COMPARE:
+                return compare(node.name, eval(node.args[0], context), eval(node.args[1], context));
+            case ARITH:
+                return arith(node.name, (Long) eval(node.args[0], context), (Long) eval(node.args[1], context));
+            case IN: {
+                long value = (Long) eval(node.args[0], context);
+                return value >= (Long) eval(node.args[1], context) && value <= (Long) eval(node.args[2], context);
+            }
+            default:
+                throw new IllegalStateException(node.kind.name());
+        }
+    }
+
+    static Object variable(String name, ConditionContext context) {
+        switch (name) {
+            case "players": return (long) context.players;
+            case "hour": return (long) context.hour;
+            case "minute": return (long) context.minute;
+            case "dayOfWeek": return (long) context.dayOfWeek;
+            case "day": return (long) context.day;
+            case "month": return (long) context.month;
+            case "onlineMinutes": return (context.nowMillis - context.player.getJoinedAt()) / 60_000L;
+            case "world": return context.player.getCurrentWorld();
+            case "name": return context.player.getUsername();
+            default: throw new IllegalStateException(name);
+        }
+    }
+
+    static boolean compare(String operator, Object left, Object right) {
+        switch (operator) {
+            case "==": return left.equals(right);
+            case "!=": return !left.equals(right);
+            default: break;
+        }
+        long l = (Long) left;
+        long r = (Long) right;
+        switch (operator) {
+            case "<": return l < r;
+            case "<=": return l <= r;
+            case ">": return l > r;
+            default: return l >= r;
+        }
+    }
+
+    /**
+     * Division and remainder by zero give 0 instead of failing a fire
+     */
+    static long arith(String operator, long l, long r) {
+        switch (operator) {
+            case "+": return l + r;
+            case "-": return l - r;
+            case "*": return l * r;
+            case "/": return r == 0 ? 0 : l / r;
+            default: return r == 0 ? 0 : l % r;
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package net.crefax.hytale.events.condition;
+
+import net.crefax.hytale.events.condition.Node.Kind;
+import net.crefax.hytale.events.condition.Node.Type;
+
+import java.util.Objects;
+
+/**
+ * Condition Language
+ *
+ * Turns a condition from events.json into a tree of small lambdas, once
+ * per config load. Constant parts are folded first ("60 * 5" becomes 300,
+ * "true &amp;&amp; x" becomes x), and comparisons against a constant get
+ * their own lambda with the constant captured, so evaluating a typical
+ * condition is a handful of direct calls and no boxing.
+ *
+ * Event conditions see: players, hour, minute, dayOfWeek (1 = Monday),
+ * day, month and eventActive("name"). Player conditions additionally see
+ * onlineMinutes, world, name and hasPermission("node").
+ *
+ * @author Crefax
+ */
+public final class ConditionLanguage {
+
+    @FunctionalInterface
+    private interface IntTerm {
+        long eval(ConditionContext context);
+    }
+
+    @FunctionalInterface
+    private interface TextTerm {
+        String eval(ConditionContext context);
+    }
+
+    private ConditionLanguage() {
+    }
+
+    /**
+     * Parse, fold and compile a condition. Empty source compiles to {@link Condition#ALWAYS}.
+     *
+     * @param perPlayer whether player variables and functions may be used
+     * @throws ConditionException if the condition is invalid
+     */
+    public static Condition compile(String source, boolean perPlayer) {
+        if (source == null || source.isBlank()) {
+            return Condition.ALWAYS;
+        }
+        return condition(fold(ConditionParser.parse(source, perPlayer)));
+    }
+
+    /**
+     * A condition evaluated by walking the unfolded syntax tree on every
+     * test. Only meant as a baseline for benchmarks.
+     */
+    public static Condition interpret(String source, boolean perPlayer) {
+        if (source == null || source.isBlank()) {
+            return Condition.ALWAYS;
+        }
+        Node tree = ConditionParser.parse(source, perPlayer);
+        return context -> (Boolean) ConditionInterpreter.eval(tree, context);
+    }
+
+    /**
+     * Replace every subtree without variables or calls by its value, and
+     * drop the neutral and dominated sides of &amp;&amp; and ||.
+     */
+    static Node fold(Node node) {
+        if (node.kind == Kind.LITERAL || node.kind == Kind.VAR) {
+            return node;
+        }
+        Node[] args = new Node[node.args.length];
+        boolean constant = node.kind != Kind.CALL;
+        for (int i = 0; i < args.length; i++) {
+            args[i] = fold(node.args[i]);
+            constant &= args[i].isLiteral();
+        }
+        Node folded = Node.op(node.kind, node.type, node.name, node.position, args);
+        if (constant) {
+            return literal(ConditionInterpreter.eval(folded, null), node.position);
+        }
+        switch (node.kind) {
+            case AND:
+                if (args[0].isFalse() || args[1].isFalse()) return Node.of(false, node.position);
+                if (args[0].isTrue()) return args[1];
+                if (args[1].isTrue()) return args[0];
+                break;
+            case OR:
+                if (args[0].isTrue() || args[1].isTrue()) return Node.of(true, node.position);
+                if (args[0].isFalse()) return args[1];
+                if (args[1].isFalse()) return args[0];
+                break;
+            case NOT:
+                if (args[0].kind == Kind.NOT) return args[0].args[0];
+                break;
+            default:
+                break;
+        }
+        return folded;
+    }
+
+    private static Node literal(Object value, int position) {
+        if (value instanceof Long) return Node.of((Long) value, position);
+        if (value instanceof String) return Node.of((String) value, position);
+        return Node.of((Boolean) value, position);
+    }
+
+    private static Condition condition(Node node) {
+        switch (node.kind) {
+            case LITERAL:
+                return node.boolValue ? Condition.ALWAYS : Condition.NEVER;
+            case CALL:
+                return call(node);
+            case NOT: {
+                Condition operand = condition(node.args[0]);
+                return context -> !operand.test(context);
+            }
+            case AND: {
+                Condition left = condition(node.args[0]);
+                Condition right = condition(node.args[1]);
+                return context -> left.test(context) && right.test(context);
+            }
+            case OR: {
+                Condition left = condition(node.args[0]);
+                Condition right = condition(node.args[1]);
+                return context -> left.test(context) || right.test(context);
+            }
+            case COMPARE:
+                return node.args[0].type == Type.INT ? compareNumbers(node) : compareText(node);
+            case IN: {
+                IntTerm value = number(node.args[0]);
+                if (node.args[1].isLiteral() && node.args[2].isLiteral()) {
+                    long low = node.args[1].intValue;
+                    long high = node.args[2].intValue;
+                    return context -> {
+                        long v = value.eval(context);
+                        return v >= low && v <= high;
+                    };
+                }
+                IntTerm low = number(node.args[1]);
+                IntTerm high = number(node.args[2]);
+                return context -> {
+                    long v = value.eval(context);
+                    return v >= low.eval(context) && v <= high.eval(context);
+                };
+            }
+            default:
+                throw new IllegalStateException(node.kind.name());
+        }
+    }
+
+    private static Condition call(Node node) {
+        boolean permission = node.name.equals("hasPermission");
+        Node argument = node.args[0];
+        if (argument.isLiteral()) {
+            String value = argument.stringValue;
+            return permission
+                ? context -> context.player.hasPermission(value)
+                : context -> context.eventActive.test(value);
+        }
+        TextTerm value = text(argument);
+        return permission
+            ? context -> context.player.hasPermission(value.eval(context))
+            : context -> context.eventActive.test(value.eval(context));
+    }
+
+    private static Condition compareNumbers(Node node) {
+        IntTerm left = number(node.args[0]);
+        if (node.args[1].isLiteral()) {
+            // The common shape: variable against a constant
+            long k = node.args[1].intValue;
+            switch (node.name) {
+                case "==": return context -> left.eval(context) == k;
+                case "!=": return context -> left.eval(context) != k;
+                case "<": return context -> left.eval(context) < k;
+                case "<=": return context -> left.eval(context) <= k;
+                case ">": return context -> left.eval(context) > k;
+                default: return context -> left.eval(context) >= k;
+            }
+        }
+        IntTerm right = number(node.args[1]);
+        switch (node.name) {
+            case "==": return context -> left.eval(context) == right.eval(context);
+            case "!=": return context -> left.eval(context) != right.eval(context);
+            case "<": return context -> left.eval(context) < right.eval(context);
+            case "<=": return context -> left.eval(context) <= right.eval(context);
+            case ">": return context -> left.eval(context) > right.eval(context);
+            default: return context -> left.eval(context) >= right.eval(context);
+        }
+    }
+
+    private static Condition compareText(Node node) {
+        boolean equal = node.name.equals("==");
+        TextTerm left = text(node.args[0]);
+        if (node.args[1].isLiteral()) {
+            String k = node.args[1].stringValue;
+            return equal ? context -> k.equals(left.eval(context)) : context -> !k.equals(left.eval(context));
+        }
+        TextTerm right = text(node.args[1]);
+        return equal
+            ? context -> Objects.equals(left.eval(context), right.eval(context))
+            : context -> !Objects.equals(left.eval(context), right.eval(context));
+    }
+
+    private static IntTerm number(Node node) {
+        switch (node.kind) {
+            case LITERAL: {
+                long value = node.intValue;
+                return context -> value;
+            }
+            case VAR:
+                switch (node.name) {
+                    case "players": return context -> context.players;
+                    case "hour": return context -> context.hour;
+                    case "minute": return context -> context.minute;
+                    case "dayOfWeek": return context -> context.dayOfWeek;
+                    case "day": return context -> context.day;
+                    case "month": return context -> context.month;
+                    case "onlineMinutes": return context -> (context.nowMillis - context.player.getJoinedAt()) / 60_000L;
+                    default: throw new IllegalStateException(node.name);
+                }
+            case NEG: {
+                IntTerm operand = number(node.args[0]);
+                return context -> -operand.eval(context);
+            }
+            case ARITH: {
+                IntTerm left = number(node.args[0]);
+                IntTerm right = number(node.args[1]);
+                switch (node.name) {
+                    case "+": return context -> left.eval(context) + right.eval(context);
+                    case "-": return context -> left.eval(context) - right.eval(context);
+                    case "*": return context -> left.eval(context) * right.eval(context);
+                    default: {
+                        String operator = node.name;
+                        return context -> ConditionInterpreter.arith(operator, left.eval(context), right.eval(context));
+                    }
+                }
+            }
+            default:
+                throw new IllegalStateException(node.kind.name());
+        }
+    }
+
+    private static TextTerm text(Node node) {
+        switch (node.kind) {
+            case LITERAL: {
+                String value = node.stringValue;
+                return context -> value;
+            }
+            case VAR:
+                return node.name.equals("world")
+                    ? context -> context.player.getCurrentWorld()
+                    : context -> context.player.getUsername();
+            default:
+                throw new IllegalStateException(node.kind.name());
+        }
+    }
+}
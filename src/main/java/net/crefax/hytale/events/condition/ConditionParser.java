@@ -0,0 +1,271 @@
+package net.crefax.hytale.events.condition;
+
+import net.crefax.hytale.events.condition.Node.Kind;
+import net.crefax.hytale.events.condition.Node.Type;
+
+import java.util.Map;
+
+/**
+ * Condition Parser
+ *
+ * Recursive descent parser for the condition language. Types are checked
+ * while parsing, so a condition that loads is known to evaluate without
+ * type errors.
+ *
+ * <pre>
+ * or      := and ('||' and)*
+ * and     := not ('&amp;&amp;' not)*
+ * not     := '!' not | compare
+ * compare := sum (('==' | '!=' | '&lt;' | '&lt;=' | '&gt;' | '&gt;=') sum | 'in' sum '..' sum)?
+ * sum     := product (('+' | '-') product)*
+ * product := unary (('*' | '/' | '%') unary)*
+ * unary   := '-' unary | primary
+ * primary := number | "string" | true | false | name | name '(' or ')' | '(' or ')'
+ * </pre>
+ *
+ * @author Crefax
+ */
+final class ConditionParser {
+
+    static final Map<String, Type> EVENT_VARIABLES = Map.of(
+        "players", Type.INT, "hour", Type.INT, "minute", Type.INT,
+        "dayOfWeek", Type.INT, "day", Type.INT, "month", Type.INT);
+    static final Map<String, Type> PLAYER_VARIABLES = Map.of(
+        "onlineMinutes", Type.INT, "world", Type.STRING, "name", Type.STRING);
+
+    private final String source;
+    private final boolean perPlayer;
+    private int pos;
+
+    private ConditionParser(String source, boolean perPlayer) {
+        this.source = source;
+        this.perPlayer = perPlayer;
+    }
+
+    static Node parse(String source, boolean perPlayer) {
+        ConditionParser parser = new ConditionParser(source, perPlayer);
+        Node node = parser.or();
+        parser.skipSpace();
+        if (parser.pos < source.length()) {
+            throw new ConditionException("Unexpected '" + source.charAt(parser.pos) + "'", parser.pos);
+        }
+        expect(node, Type.BOOL, "A condition must be true or false");
+        return node;
+    }
+
+    private Node or() {
+        Node left = and();
+        while (accept("||")) {
+            int at = pos;
+            Node right = and();
+            expect(left, Type.BOOL, "|| needs true/false on both sides");
+            expect(right, Type.BOOL, "|| needs true/false on both sides");
+            left = Node.op(Kind.OR, Type.BOOL, "||", at, left, right);
+        }
+        return left;
+    }
+
+    private Node and() {
+        Node left = not();
+        while (accept("&&")) {
+            int at = pos;
+            Node right = not();
+            expect(left, Type.BOOL, "&& needs true/false on both sides");
+            expect(right, Type.BOOL, "&& needs true/false on both sides");
+            left = Node.op(Kind.AND, Type.BOOL, "&&", at, left, right);
+        }
+        return left;
+    }
+
+    private Node not() {
+        skipSpace();
+        int at = pos;
+        if (peek("!") && !peek("!=")) {
+            pos++;
+            Node operand = not();
+            expect(operand, Type.BOOL, "! needs true/false");
+            return Node.op(Kind.NOT, Type.BOOL, "!", at, operand);
+        }
+        return compare();
+    }
+
+    private Node compare() {
+        Node left = sum();
+        skipSpace();
+        int at = pos;
+        for (String operator : new String[]{"==", "!=", "<=", ">=", "<", ">"}) {
+            if (accept(operator)) {
+                Node right = sum();
+                boolean equality = operator.equals("==") || operator.equals("!=");
+                if (left.type != right.type || (!equality && left.type != Type.INT)) {
+                    throw new ConditionException("Can't compare " + left.type + " " + operator + " " + right.type, at);
+                }
+                return Node.op(Kind.COMPARE, Type.BOOL, operator, at, left, right);
+            }
+        }
+        if (acceptWord("in")) {
+            Node low = sum();
+            if (!accept("..")) {
+                throw new ConditionException("Expected '..' in range", pos);
+            }
+            Node high = sum();
+            expect(left, Type.INT, "'in' needs a number");
+            expect(low, Type.INT, "Range bounds must be numbers");
+            expect(high, Type.INT, "Range bounds must be numbers");
+            return Node.op(Kind.IN, Type.BOOL, "in", at, left, low, high);
+        }
+        return left;
+    }
+
+    private Node sum() {
+        Node left = product();
+        while (true) {
+            skipSpace();
+            int at = pos;
+            String operator = accept("+") ? "+" : accept("-") ? "-" : null;
+            if (operator == null) return left;
+            Node right = product();
+            expect(left, Type.INT, operator + " needs numbers");
+            expect(right, Type.INT, operator + " needs numbers");
+            left = Node.op(Kind.ARITH, Type.INT, operator, at, left, right);
+        }
+    }
+
+    private Node product() {
+        Node left = unary();
+        while (true) {
+            skipSpace();
+            int at = pos;
+            String operator = accept("*") ? "*" : accept("/") ? "/" : accept("%") ? "%" : null;
+            if (operator == null) return left;
+            Node right = unary();
+            expect(left, Type.INT, operator + " needs numbers");
+            expect(right, Type.INT, operator + " needs numbers");
+            left = Node.op(Kind.ARITH, Type.INT, operator, at, left, right);
+        }
+    }
+
+    private Node unary() {
+        skipSpace();
+        int at = pos;
+        if (accept("-")) {
+            Node operand = unary();
+            expect(operand, Type.INT, "- needs a number");
+            return Node.op(Kind.NEG, Type.INT, "-", at, operand);
+        }
+        return primary();
+    }
+
+    private Node primary() {
+        skipSpace();
+        int at = pos;
+        if (pos >= source.length()) {
+            throw new ConditionException("Unexpected end of condition", pos);
+        }
+        char c = source.charAt(pos);
+        if (c == '(') {
+            pos++;
+            Node inner = or();
+            if (!accept(")")) throw new ConditionException("Expected ')'", pos);
+            return inner;
+        }
+        if (c == '"') {
+            return Node.of(string(), at);
+        }
+        if (Character.isDigit(c)) {
+            while (pos < source.length() && Character.isDigit(source.charAt(pos))) pos++;
+            try {
+                return Node.of(Long.parseLong(source.substring(at, pos)), at);
+            } catch (NumberFormatException e) {
+                throw new ConditionException("Number too large", at);
+            }
+        }
+        if (Character.isLetter(c) || c == '_') {
+            while (pos < source.length() && (Character.isLetterOrDigit(source.charAt(pos)) || source.charAt(pos) == '_')) pos++;
+            String name = source.substring(at, pos);
+            if (name.equals("true")) return Node.of(true, at);
+            if (name.equals("false")) return Node.of(false, at);
+            if (accept("(")) {
+                return call(name, at);
+            }
+            return variable(name, at);
+        }
+        throw new ConditionException("Unexpected '" + c + "'", pos);
+    }
+
+    private Node call(String name, int at) {
+        boolean playerFunction = name.equals("hasPermission");
+        if (!playerFunction && !name.equals("eventActive")) {
+            throw new ConditionException("Unknown function " + name, at);
+        }
+        if (playerFunction && !perPlayer) {
+            throw new ConditionException(name + " is only available in playerCondition", at);
+        }
+        Node argument = or();
+        if (!accept(")")) throw new ConditionException("Expected ')'", pos);
+        expect(argument, Type.STRING, name + " needs a text argument");
+        return Node.op(Kind.CALL, Type.BOOL, name, at, argument);
+    }
+
+    private Node variable(String name, int at) {
+        Type type = EVENT_VARIABLES.get(name);
+        if (type == null) {
+            type = PLAYER_VARIABLES.get(name);
+            if (type != null && !perPlayer) {
+                throw new ConditionException(name + " is only available in playerCondition", at);
+            }
+        }
+        if (type == null) {
+            throw new ConditionException("Unknown name " + name, at);
+        }
+        Node node = new Node(Kind.VAR, type, at);
+        node.name = name;
+        return node;
+    }
+
+    private String string() {
+        int start = pos++;
+        StringBuilder value = new StringBuilder();
+        while (pos < source.length()) {
+            char c = source.charAt(pos++);
+            if (c == '"') return value.toString();
+            if (c == '\\' && pos < source.length()) c = source.charAt(pos++);
+            value.append(c);
+        }
+        throw new ConditionException("Unterminated text", start);
+    }
+
+    private static void expect(Node node, Type type, String message) {
+        if (node.type != type) {
+            throw new ConditionException(message, node.position);
+        }
+    }
+
+    private void skipSpace() {
+        while (pos < source.length() && Character.isWhitespace(source.charAt(pos))) pos++;
+    }
+
+    private boolean peek(String token) {
+        skipSpace();
+        return source.startsWith(token, pos);
+    }
+
+    private boolean accept(String token) {
+        if (peek(token)) {
+            pos += token.length();
+            return true;
+        }
+        return false;
+    }
+
+    private boolean acceptWord(String word) {
+        skipSpace();
+        int end = pos + word.length();
+        if (source.startsWith(word, pos)
+                && (end >= source.length() || !Character.isLetterOrDigit(source.charAt(end)))) {
+            pos = end;
+            return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,76 @@
+package net.crefax.hytale.events.condition;
+
+/**
+ * Condition syntax tree node, already type-checked by the parser.
+ *
+ * @author Crefax
+ */
+final class Node {
+
+    enum Kind {
+        LITERAL,  // intValue, stringValue or boolValue by type
+        VAR,      // name
+        CALL,     // name(args[0])
+        NOT,      // !args[0]
+        NEG,      // -args[0]
+        AND,      // args[0] && args[1]
+        OR,       // args[0] || args[1]
+        COMPARE,  // args[0] op args[1]
+        ARITH,    // args[0] op args[1]
+        IN        // args[0] in args[1]..args[2]
+    }
+
+    enum Type { INT, STRING, BOOL }
+
+    final Kind kind;
+    final Type type;
+    final int position;
+    String name;  // variable, function or operator
+    long intValue;
+    String stringValue;
+    boolean boolValue;
+    Node[] args = new Node[0];
+
+    Node(Kind kind, Type type, int position) {
+        this.kind = kind;
+        this.type = type;
+        this.position = position;
+    }
+
+    static Node of(long value, int position) {
+        Node node = new Node(Kind.LITERAL, Type.INT, position);
+        node.intValue = value;
+        return node;
+    }
+
+    static Node of(String value, int position) {
+        Node node = new Node(Kind.LITERAL, Type.STRING, position);
+        node.stringValue = value;
+        return node;
+    }
+
+    static Node of(boolean value, int position) {
+        Node node = new Node(Kind.LITERAL, Type.BOOL, position);
+        node.boolValue = value;
+        return node;
+    }
+
+    static Node op(Kind kind, Type type, String operator, int position, Node... args) {
+        Node node = new Node(kind, type, position);
+        node.name = operator;
+        node.args = args;
+        return node;
+    }
+
+    boolean isLiteral() {
+        return kind == Kind.LITERAL;
+    }
+
+    boolean isTrue() {
+        return kind == Kind.LITERAL && type == Type.BOOL && boolValue;
+    }
+
+    boolean isFalse() {
+        return kind == Kind.LITERAL && type == Type.BOOL && !boolValue;
+    }
+}
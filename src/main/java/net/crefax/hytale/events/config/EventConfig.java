@@ -11,8 +11,14 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.DateTimeException;
+import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
 import java.util.logging.Logger;
 
 /**
@@ -31,12 +37,24 @@ public class EventConfig {
     private String broadcastPrefix = "[Events] ";
     private List<IntervalEvent> intervalEvents = new ArrayList<>();
     private List<ScheduledEvent> scheduledEvents = new ArrayList<>();
+    private final Map<String, LootTableDefinition> lootTables = new LinkedHashMap<>();
     private Settings settings = new Settings();
+    private final Path configDir;
+
+    public EventConfig() {
+        this(Paths.get(CONFIG_FOLDER));
+    }
+
+    /**
+     * Config stored in a different folder (e.g. for simulations)
+     */
+    public EventConfig(Path configDir) {
+        this.configDir = configDir;
+    }
 
     public void load() {
         try {
             // Create config folder
-            Path configDir = Paths.get(CONFIG_FOLDER);
             if (!Files.exists(configDir)) {
                 Files.createDirectories(configDir);
                 LOGGER.info("[EventScheduler] Config folder created: " + configDir.toAbsolutePath());
@@ -64,16 +82,10 @@ public class EventConfig {
                 for (int i = 0; i < arr.size(); i++) {
                     JsonObject obj = arr.get(i).getAsJsonObject();
                     IntervalEvent event = new IntervalEvent();
-                    event.name = obj.get("name").getAsString();
-                    event.enabled = obj.get("enabled").getAsBoolean();
+                    parseCommonFields(obj, event);
                     event.interval = obj.get("interval").getAsInt();
-                    event.broadcastMessage = obj.has("broadcastMessage") ? obj.get("broadcastMessage").getAsString() : "";
-                    
-                    event.commands = new ArrayList<>();
-                    JsonArray cmds = obj.getAsJsonArray("commands");
-                    for (int j = 0; j < cmds.size(); j++) {
-                        event.commands.add(cmds.get(j).getAsString());
-                    }
+                    if (obj.has("weight")) event.weight = obj.get("weight").getAsDouble();
+                    if (obj.has("playtime")) event.playtime = obj.get("playtime").getAsBoolean();
                     
                     intervalEvents.add(event);
                 }
@@ -85,34 +97,67 @@ public class EventConfig {
                 for (int i = 0; i < arr.size(); i++) {
                     JsonObject obj = arr.get(i).getAsJsonObject();
                     ScheduledEvent event = new ScheduledEvent();
-                    event.name = obj.get("name").getAsString();
-                    event.enabled = obj.get("enabled").getAsBoolean();
-                    event.broadcastMessage = obj.has("broadcastMessage") ? obj.get("broadcastMessage").getAsString() : "";
-                    
-                    event.times = new ArrayList<>();
-                    JsonArray times = obj.getAsJsonArray("times");
-                    for (int j = 0; j < times.size(); j++) {
-                        event.times.add(times.get(j).getAsString());
-                    }
-                    
-                    event.commands = new ArrayList<>();
-                    JsonArray cmds = obj.getAsJsonArray("commands");
-                    for (int j = 0; j < cmds.size(); j++) {
-                        event.commands.add(cmds.get(j).getAsString());
-                    }
+                    parseCommonFields(obj, event);
+                    event.times = readStringList(obj.getAsJsonArray("times"));
+                    if (obj.has("countdown")) event.countdown = readCountdown(obj.getAsJsonArray("countdown"));
+                    if (obj.has("timezone")) event.timezone = obj.get("timezone").getAsString();
                     
                     scheduledEvents.add(event);
                 }
             }
 
+            // Loot Tables
+            if (root.has("lootTables")) {
+                JsonObject tables = root.getAsJsonObject("lootTables");
+                for (String tableName : tables.keySet()) {
+                    JsonObject obj = tables.getAsJsonObject(tableName);
+                    LootTableDefinition table = new LootTableDefinition();
+                    if (obj.has("rolls")) table.rolls = obj.get("rolls").getAsInt();
+                    JsonArray arr = obj.getAsJsonArray("entries");
+                    if (arr != null) {
+                        for (int i = 0; i < arr.size(); i++) {
+                            JsonObject e = arr.get(i).getAsJsonObject();
+                            LootEntry entry = new LootEntry();
+                            if (e.has("item")) entry.item = e.get("item").getAsString();
+                            if (e.has("amount")) entry.amount = e.get("amount").getAsInt();
+                            if (e.has("weight")) entry.weight = e.get("weight").getAsDouble();
+                            table.entries.add(entry);
+                        }
+                    }
+                    lootTables.put(tableName, table);
+                }
+            }
+
             // Settings
             if (root.has("settings")) {
                 JsonObject s = root.getAsJsonObject("settings");
                 if (s.has("timezone")) settings.timezone = s.get("timezone").getAsString();
                 if (s.has("language")) settings.language = s.get("language").getAsString();
                 if (s.has("debugMode")) settings.debugMode = s.get("debugMode").getAsBoolean();
+                if (s.has("debugVerbose")) settings.debugVerbose = s.get("debugVerbose").getAsBoolean();
                 if (s.has("minPlayersRequired")) settings.minPlayersRequired = s.get("minPlayersRequired").getAsInt();
                 if (s.has("cooldownBetweenEvents")) settings.cooldownBetweenEvents = s.get("cooldownBetweenEvents").getAsInt();
+                if (s.has("rewardOverflow")) settings.rewardOverflow = s.get("rewardOverflow").getAsString();
+                if (s.has("mailboxEnabled")) settings.mailboxEnabled = s.get("mailboxEnabled").getAsBoolean();
+                if (s.has("commandsPerTick")) settings.commandsPerTick = s.get("commandsPerTick").getAsInt();
+                if (s.has("commandQueueLimit")) settings.commandQueueLimit = s.get("commandQueueLimit").getAsInt();
+                if (s.has("historySize")) settings.historySize = s.get("historySize").getAsInt();
+                if (s.has("workerThreads")) settings.workerThreads = s.get("workerThreads").getAsInt();
+                if (s.has("phaseStaggering")) settings.phaseStaggering = s.get("phaseStaggering").getAsBoolean();
+                if (s.has("lootSeed")) settings.lootSeed = s.get("lootSeed").getAsLong();
+                if (s.has("adaptiveDeferral")) settings.adaptiveDeferral = s.get("adaptiveDeferral").getAsBoolean();
+                if (s.has("adaptiveTickMillis")) settings.adaptiveTickMillis = s.get("adaptiveTickMillis").getAsInt();
+                if (s.has("maxDeferralSeconds")) settings.maxDeferralSeconds = s.get("maxDeferralSeconds").getAsInt();
+                if (s.has("mailboxRetentionDays")) settings.mailboxRetentionDays = s.get("mailboxRetentionDays").getAsInt();
+                if (s.has("auditEnabled")) settings.auditEnabled = s.get("auditEnabled").getAsBoolean();
+                if (s.has("auditRetentionDays")) settings.auditRetentionDays = s.get("auditRetentionDays").getAsInt();
+                if (s.has("clusterMode")) settings.clusterMode = s.get("clusterMode").getAsBoolean();
+                if (s.has("clusterDirectory")) settings.clusterDirectory = s.get("clusterDirectory").getAsString();
+                if (s.has("clusterNodeId")) settings.clusterNodeId = s.get("clusterNodeId").getAsString();
+                if (s.has("clusterLeaseSeconds")) settings.clusterLeaseSeconds = s.get("clusterLeaseSeconds").getAsInt();
+                if (s.has("broadcastCoalesceMillis")) settings.broadcastCoalesceMillis = s.get("broadcastCoalesceMillis").getAsInt();
+                if (s.has("shutdownDrainSeconds")) settings.shutdownDrainSeconds = s.get("shutdownDrainSeconds").getAsInt();
+                if (s.has("resumeRetentionHours")) settings.resumeRetentionHours = s.get("resumeRetentionHours").getAsInt();
             }
 
             LOGGER.info("[EventScheduler] Config loaded: " + intervalEvents.size() + " interval, " + scheduledEvents.size() + " scheduled events.");
@@ -121,6 +166,103 @@ public class EventConfig {
             LOGGER.severe("[EventScheduler] Error loading config: " + e.getMessage());
             e.printStackTrace();
         }
+        validateZones();
+    }
+    
+    /**
+     * Replace time zones that don't exist, so a typo can't stop the scheduler:
+     * the settings zone falls back to UTC, an event's zone to the settings zone
+     */
+    private void validateZones() {
+        if (!isValidZone(settings.timezone)) {
+            LOGGER.warning("[EventScheduler] Invalid timezone in settings: " + settings.timezone + ", using UTC");
+            settings.timezone = "UTC";
+        }
+        for (ScheduledEvent event : scheduledEvents) {
+            if (!event.timezone.isEmpty() && !isValidZone(event.timezone)) {
+                LOGGER.warning("[EventScheduler] Invalid timezone for " + event.name + ": " + event.timezone
+                        + ", using " + settings.timezone);
+                event.timezone = "";
+            }
+        }
+    }
+    
+    private static boolean isValidZone(String zoneId) {
+        try {
+            ZoneId.of(zoneId);
+            return true;
+        } catch (DateTimeException e) {
+            return false;
+        }
+    }
+    
+    /**
+     * Parse the fields shared by interval and scheduled events
+     */
+    private void parseCommonFields(JsonObject obj, EventDefinition event) {
+        event.name = obj.get("name").getAsString();
+        event.enabled = obj.get("enabled").getAsBoolean();
+        event.broadcastMessage = obj.has("broadcastMessage") ? obj.get("broadcastMessage").getAsString() : "";
+        event.commands = readStringList(obj.getAsJsonArray("commands"));
+        if (obj.has("critical")) event.critical = obj.get("critical").getAsBoolean();
+        if (obj.has("condition")) event.condition = obj.get("condition").getAsString();
+        if (obj.has("playerCondition")) event.playerCondition = obj.get("playerCondition").getAsString();
+        if (obj.has("coalesceBroadcasts")) event.coalesceBroadcasts = obj.get("coalesceBroadcasts").getAsBoolean();
+        
+        if (obj.has("targeting")) {
+            event.targeting = parseTargeting(obj.getAsJsonObject("targeting"));
+        }
+        
+        // Later stages of a workflow, each after a delay from the one before
+        if (obj.has("stages")) {
+            JsonArray arr = obj.getAsJsonArray("stages");
+            for (int i = 0; i < arr.size(); i++) {
+                JsonObject s = arr.get(i).getAsJsonObject();
+                Stage stage = new Stage();
+                stage.name = event.name + "#" + (i + 2);
+                stage.enabled = true;
+                stage.delay = s.has("delay") ? s.get("delay").getAsInt() : 0;
+                stage.broadcastMessage = s.has("broadcastMessage") ? s.get("broadcastMessage").getAsString() : "";
+                stage.commands = readStringList(s.getAsJsonArray("commands"));
+                stage.targeting = s.has("targeting") ? parseTargeting(s.getAsJsonObject("targeting")) : event.targeting;
+                // The event's condition was checked when it fired; its player condition holds for every stage
+                if (s.has("condition")) stage.condition = s.get("condition").getAsString();
+                stage.playerCondition = s.has("playerCondition") ? s.get("playerCondition").getAsString() : event.playerCondition;
+                stage.coalesceBroadcasts = event.coalesceBroadcasts;
+                event.stages.add(stage);
+            }
+        }
+    }
+    
+    private static Targeting parseTargeting(JsonObject t) {
+        Targeting targeting = new Targeting();
+        if (t.has("worlds")) targeting.worlds = readStringList(t.getAsJsonArray("worlds"));
+        if (t.has("permissions")) targeting.permissions = readStringList(t.getAsJsonArray("permissions"));
+        if (t.has("minOnlineMinutes")) targeting.minOnlineMinutes = t.get("minOnlineMinutes").getAsInt();
+        if (t.has("minPlayers")) targeting.minPlayers = t.get("minPlayers").getAsInt();
+        return targeting;
+    }
+    
+    /**
+     * Seconds before the fire, largest first; zero, negative and repeated entries are dropped
+     */
+    private static List<Integer> readCountdown(JsonArray arr) {
+        TreeSet<Integer> offsets = new TreeSet<>(Comparator.reverseOrder());
+        for (int j = 0; j < arr.size(); j++) {
+            int seconds = arr.get(j).getAsInt();
+            if (seconds > 0) offsets.add(seconds);
+        }
+        return new ArrayList<>(offsets);
+    }
+
+    private static List<String> readStringList(JsonArray arr) {
+        List<String> list = new ArrayList<>();
+        if (arr != null) {
+            for (int j = 0; j < arr.size(); j++) {
+                list.add(arr.get(j).getAsString());
+            }
+        }
+        return list;
     }
     
     private void createDefaultConfig(Path configFile) {
@@ -178,41 +320,107 @@ public class EventConfig {
     public void reload() {
         intervalEvents.clear();
         scheduledEvents.clear();
+        lootTables.clear();
         load();
     }
     
     public String getConfigPath() {
-        return Paths.get(CONFIG_FOLDER, CONFIG_FILE).toAbsolutePath().toString();
+        return configDir.resolve(CONFIG_FILE).toAbsolutePath().toString();
+    }
+
+    /**
+     * Folder for the plugin's data files (mailbox, audit, playtime, pending
+     * fires): the config folder, so a simulation's data stays in its own folder
+     */
+    public Path getDataDir() {
+        return configDir;
     }
 
     // Getters
     public String getBroadcastPrefix() { return broadcastPrefix; }
     public List<IntervalEvent> getIntervalEvents() { return intervalEvents; }
     public List<ScheduledEvent> getScheduledEvents() { return scheduledEvents; }
+    public Map<String, LootTableDefinition> getLootTables() { return lootTables; }
     public Settings getSettings() { return settings; }
 
     // Inner classes
-    public static class IntervalEvent {
+    public abstract static class EventDefinition {
         public String name;
         public boolean enabled;
-        public int interval; // in seconds
         public List<String> commands;
         public String broadcastMessage;
+        public Targeting targeting; // null = all online players
+        public boolean critical; // never deferred by adaptiveDeferral
+        public String condition = ""; // checked before each scheduled fire, empty = always
+        public String playerCondition = ""; // checked per targeted player, empty = everyone
+        public boolean coalesceBroadcasts = true; // false = broadcasts always go out right away
+        public List<Stage> stages = new ArrayList<>(); // workflow stages after the commands above
     }
 
-    public static class ScheduledEvent {
-        public String name;
-        public boolean enabled;
+    /**
+     * One later step of a workflow. Its targeting defaults to the event's.
+     */
+    public static class Stage extends EventDefinition {
+        public int delay; // seconds after the previous stage
+    }
+
+    public static class IntervalEvent extends EventDefinition {
+        public int interval; // in seconds
+        public double weight = 0; // cost used by phaseStaggering, 0 = estimate from players x commands
+        public boolean playtime; // interval counts each player's own playtime instead of server time
+    }
+
+    public static class ScheduledEvent extends EventDefinition {
         public List<String> times; // "HH:mm" format
-        public List<String> commands;
-        public String broadcastMessage;
+        public List<Integer> countdown = new ArrayList<>(); // announcements, seconds before each time
+        public String timezone = ""; // zone of the times, empty = settings timezone
+    }
+
+    public static class LootTableDefinition {
+        public int rolls = 1; // outcomes drawn per "loot <table>" line
+        public List<LootEntry> entries = new ArrayList<>();
+    }
+
+    public static class LootEntry {
+        public String item = ""; // empty = this roll gives nothing
+        public int amount = 1;
+        public double weight = 1;
+    }
+
+    public static class Targeting {
+        public List<String> worlds = new ArrayList<>(); // empty = any world
+        public List<String> permissions = new ArrayList<>(); // empty = no permission required, otherwise any of them
+        public int minOnlineMinutes = 0; // minimum time online in the current session
+        public int minPlayers = 0; // fewer targeted players cancel the fire
     }
 
     public static class Settings {
         public String timezone = "Europe/London";
         public String language = "en";
         public boolean debugMode = false;
+        public boolean debugVerbose = false; // debugMode also logs one line per player and command instead of only a summary per event
         public int minPlayersRequired = 0;
         public int cooldownBetweenEvents = 0;
+        public String rewardOverflow = ""; // "mailbox" (kept for the next join), "drop", empty = mailbox if mailboxEnabled
+        public boolean mailboxEnabled = false;
+        public int mailboxRetentionDays = 7; // offline players seen within this many days get mailbox rewards
+        public boolean auditEnabled = false; // record the recipients of every fire for /eventsaudit
+        public int auditRetentionDays = 30;
+        public boolean clusterMode = false; // only the lease holder runs console:/server: commands
+        public String clusterDirectory = ""; // directory shared by all nodes, holds the lease file
+        public String clusterNodeId = ""; // empty = host name and process id
+        public int clusterLeaseSeconds = 30;
+        public int historySize = 256; // executions kept in memory for /eventshistory (applied on restart)
+        public int workerThreads = 2; // threads event fires are sharded over by name (applied on restart)
+        public boolean phaseStaggering = false; // spread interval event start offsets so fires coincide less
+        public boolean adaptiveDeferral = false; // hold back non-critical fires while the server is overloaded
+        public int adaptiveTickMillis = 75; // averaged tick time above which the server counts as overloaded
+        public int maxDeferralSeconds = 300; // a deferred fire runs after this long even if still overloaded
+        public long lootSeed = 0; // 0 = random loot rolls, otherwise rolls are reproducible per event, fire time and player
+        public int commandsPerTick = 0; // 0 = dispatch cmd:/op: commands immediately, otherwise queue and send at most this many per tick
+        public int commandQueueLimit = 10000; // queued commands beyond this are dropped and counted as failures
+        public int broadcastCoalesceMillis = 0; // 0 = send broadcasts right away, otherwise merge what fires within this window
+        public int shutdownDrainSeconds = 5; // running fires may finish for this long on shutdown, the rest is resumed on the next start
+        public int resumeRetentionHours = 24; // interrupted fires older than this are not resumed
     }
 }
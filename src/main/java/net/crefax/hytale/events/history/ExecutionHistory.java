@@ -0,0 +1,112 @@
+package net.crefax.hytale.events.history;
+
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Execution History
+ *
+ * Fixed-size ring of the most recent event executions. All slots are
+ * preallocated as parallel arrays, so recording a fire is a counter
+ * increment and a handful of array stores: no allocation and no lock.
+ * Each slot carries a version (odd while being written) and readers
+ * skip slots that changed underneath them. Fences keep the plain field
+ * accesses between the two version accesses on both sides.
+ *
+ * @author Crefax
+ */
+public class ExecutionHistory {
+
+    private final int capacity;
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLongArray versions;
+    private final String[] eventNames;
+    private final long[] intendedAt;
+    private final long[] executedAt;
+    private final int[] playerCounts;
+    private final int[] failures;
+    private final long[] durationNanos;
+    private final boolean[] manual;
+
+    public ExecutionHistory(int capacity) {
+        this.capacity = Math.max(1, capacity);
+        this.versions = new AtomicLongArray(this.capacity);
+        this.eventNames = new String[this.capacity];
+        this.intendedAt = new long[this.capacity];
+        this.executedAt = new long[this.capacity];
+        this.playerCounts = new int[this.capacity];
+        this.failures = new int[this.capacity];
+        this.durationNanos = new long[this.capacity];
+        this.manual = new boolean[this.capacity];
+    }
+
+    /**
+     * Record one execution, overwriting the oldest entry once the ring is full
+     */
+    public void record(String eventName, long intended, long executed, int players,
+                       int failureCount, long nanos, boolean manualTrigger) {
+        long sequence = written.getAndIncrement();
+        int slot = (int) (sequence % capacity);
+        versions.set(slot, sequence * 2 + 1);
+        // The odd version must be visible before any field changes; a volatile store alone lets later stores move above it
+        VarHandle.releaseFence();
+        eventNames[slot] = eventName;
+        intendedAt[slot] = intended;
+        executedAt[slot] = executed;
+        playerCounts[slot] = players;
+        failures[slot] = failureCount;
+        durationNanos[slot] = nanos;
+        manual[slot] = manualTrigger;
+        versions.set(slot, sequence * 2 + 2);
+    }
+
+    /**
+     * Most recent executions first.
+     *
+     * @param eventName  only this event (case-insensitive), or null for all
+     * @param fromMillis earliest execution time, inclusive
+     * @param toMillis   latest execution time, inclusive
+     * @param limit      maximum number of records returned
+     */
+    public List<ExecutionRecord> query(String eventName, long fromMillis, long toMillis, int limit) {
+        List<ExecutionRecord> result = new ArrayList<>(Math.min(limit, capacity));
+        long newest = written.get() - 1;
+        long oldest = Math.max(0, newest - capacity + 1);
+        for (long sequence = newest; sequence >= oldest && result.size() < limit; sequence--) {
+            ExecutionRecord record = read(sequence);
+            if (record == null) continue;
+            if (eventName != null && !record.eventName.equalsIgnoreCase(eventName)) continue;
+            if (record.executedAt < fromMillis || record.executedAt > toMillis) continue;
+            result.add(record);
+        }
+        return result;
+    }
+
+    /**
+     * Copy one slot, or null if it was overwritten or is still being written
+     */
+    private ExecutionRecord read(long sequence) {
+        int slot = (int) (sequence % capacity);
+        long expected = sequence * 2 + 2;
+        if (versions.get(slot) != expected) return null;
+        ExecutionRecord record = new ExecutionRecord(eventNames[slot], intendedAt[slot], executedAt[slot],
+                playerCounts[slot], failures[slot], durationNanos[slot], manual[slot]);
+        // The field reads must not move below the second version read
+        VarHandle.acquireFence();
+        return versions.get(slot) == expected ? record : null;
+    }
+
+    /**
+     * Number of executions recorded since startup (not capped by the ring size)
+     */
+    public long getTotalRecorded() {
+        return written.get();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+}
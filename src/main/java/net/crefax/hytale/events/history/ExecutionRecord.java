@@ -0,0 +1,38 @@
+package net.crefax.hytale.events.history;
+
+/**
+ * Execution Record
+ *
+ * One entry of the {@link ExecutionHistory}, copied out for a query.
+ *
+ * @author Crefax
+ */
+public final class ExecutionRecord {
+
+    public final String eventName;
+    /** When the schedule wanted the event to run, in epoch millis */
+    public final long intendedAt;
+    /** When it actually ran, in epoch millis */
+    public final long executedAt;
+    public final int playerCount;
+    public final int failures;
+    public final long durationNanos;
+    /** Triggered with /eventstrigger */
+    public final boolean manual;
+
+    public ExecutionRecord(String eventName, long intendedAt, long executedAt, int playerCount,
+                           int failures, long durationNanos, boolean manual) {
+        this.eventName = eventName;
+        this.intendedAt = intendedAt;
+        this.executedAt = executedAt;
+        this.playerCount = playerCount;
+        this.failures = failures;
+        this.durationNanos = durationNanos;
+        this.manual = manual;
+    }
+
+    /** How late the execution started compared to the schedule */
+    public long getDelayMillis() {
+        return executedAt - intendedAt;
+    }
+}
@@ -5,6 +5,8 @@ import com.google.gson.JsonParser;
 import com.hypixel.hytale.server.core.entity.entities.Player;
 import com.hypixel.hytale.server.core.universe.PlayerRef;
 
+import net.crefax.hytale.events.jfr.I18nLookup;
+
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
@@ -43,6 +45,7 @@ public class I18nManager {
     private String currentLanguage = DEFAULT_LANGUAGE;
     private JsonObject currentMessages;
     private JsonObject fallbackMessages;
+    private volatile int generation; // bumped whenever loaded texts or the default language change
 
     public I18nManager() {
         loadLanguage(DEFAULT_LANGUAGE);
@@ -90,6 +93,7 @@ public class I18nManager {
         
         currentLanguage = langCode;
         currentMessages = languages.get(langCode);
+        generation++;
         LOGGER.info("[EventScheduler] Language set to: " + langCode);
     }
 
@@ -105,6 +109,8 @@ public class I18nManager {
      * Placeholders are in format {0}, {1}, {2}, etc.
      */
     public String getMessage(String key, String... args) {
+        I18nLookup jfr = new I18nLookup();
+        jfr.begin();
         String message = getRawMessage(key);
         
         // Replace numbered placeholders {0}, {1}, {2}, etc.
@@ -112,6 +118,7 @@ public class I18nManager {
             message = message.replace("{" + i + "}", args[i] != null ? args[i] : "");
         }
         
+        jfr.end(currentLanguage, key);
         return message;
     }
 
@@ -127,6 +134,8 @@ public class I18nManager {
      * Uses the player's game language setting from PlayerRef.getLanguage()
      */
     public String getMessage(Player player, String key, String... args) {
+        I18nLookup jfr = new I18nLookup();
+        jfr.begin();
         String playerLang = getPlayerLanguage(player);
         String message = getRawMessageForLanguage(playerLang, key);
         
@@ -135,13 +144,33 @@ public class I18nManager {
             message = message.replace("{" + i + "}", args[i] != null ? args[i] : "");
         }
         
+        jfr.end(playerLang, key);
+        return message;
+    }
+
+    /**
+     * Get a message for a locale code (e.g. "tr-tr"), with placeholder replacements.
+     * A null locale means the server default language.
+     */
+    public String getMessageForLocale(String locale, String key, String... args) {
+        I18nLookup jfr = new I18nLookup();
+        jfr.begin();
+        String language = locale != null ? locale : currentLanguage;
+        String message = getRawMessageForLanguage(language, key);
+        
+        // Replace numbered placeholders {0}, {1}, {2}, etc.
+        for (int i = 0; i < args.length; i++) {
+            message = message.replace("{" + i + "}", args[i] != null ? args[i] : "");
+        }
+        
+        jfr.end(language, key);
         return message;
     }
 
     /**
-     * Get the player's language from their game settings
+     * Get the player's language from their game settings (server default for the console)
      */
-    private String getPlayerLanguage(Player player) {
+    public String getPlayerLanguage(Player player) {
         if (player == null) {
             return currentLanguage;
         }
@@ -149,23 +178,9 @@ public class I18nManager {
         try {
             PlayerRef playerRef = player.getPlayerRef();
             if (playerRef != null) {
-                String lang = playerRef.getLanguage();
-                if (lang != null && !lang.isEmpty()) {
-                    // Normalize: replace underscore with hyphen and lowercase
-                    lang = lang.toLowerCase().replace("_", "-");
-                    
-                    // If it's already in locale format (e.g., "tr-tr"), use it
-                    if (lang.contains("-")) {
-                        return lang;
-                    }
-                    
-                    // Map short code to full locale (e.g., "tr" -> "tr-tr")
-                    if (LOCALE_MAPPING.containsKey(lang)) {
-                        return LOCALE_MAPPING.get(lang);
-                    }
-                    
-                    // Try to construct locale (e.g., "fr" -> "fr-fr")
-                    return lang + "-" + lang;
+                String lang = normalizeLanguage(playerRef.getLanguage());
+                if (lang != null) {
+                    return lang;
                 }
             }
         } catch (Exception e) {
@@ -176,6 +191,32 @@ public class I18nManager {
         return currentLanguage;
     }
 
+    /**
+     * Normalize a game language code to a locale file code (e.g. "tr" or "tr_TR" -> "tr-tr").
+     * Returns null if the code is empty.
+     */
+    public static String normalizeLanguage(String lang) {
+        if (lang == null || lang.isEmpty()) {
+            return null;
+        }
+        
+        // Normalize: replace underscore with hyphen and lowercase
+        lang = lang.toLowerCase().replace("_", "-");
+        
+        // If it's already in locale format (e.g., "tr-tr"), use it
+        if (lang.contains("-")) {
+            return lang;
+        }
+        
+        // Map short code to full locale (e.g., "tr" -> "tr-tr")
+        if (LOCALE_MAPPING.containsKey(lang)) {
+            return LOCALE_MAPPING.get(lang);
+        }
+        
+        // Try to construct locale (e.g., "fr" -> "fr-fr")
+        return lang + "-" + lang;
+    }
+
     /**
      * Get raw message for a specific language
      */
@@ -302,5 +343,13 @@ public class I18nManager {
             loadLanguage(currentLanguage);
         }
         currentMessages = languages.getOrDefault(currentLanguage, fallbackMessages);
+        generation++;
+    }
+
+    /**
+     * Changes whenever messages may read differently, for caches of rendered text
+     */
+    public int getGeneration() {
+        return generation;
     }
 }
@@ -0,0 +1,49 @@
+package net.crefax.hytale.events.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One call into the server: a command, a message, a broadcast or an
+ * inventory transaction.
+ *
+ * @author Crefax
+ */
+@Name("EventScheduler.CommandDispatch")
+@Label("Command Dispatch")
+@Category("EventScheduler")
+@Description("A command, message, broadcast or item grant handed to the server")
+@StackTrace(false)
+public final class CommandDispatch extends Event {
+
+    @Label("Kind")
+    @Description("console, player, message, broadcast or items")
+    public String kind;
+
+    @Label("Command")
+    @Description("Command line or message text, empty for items")
+    public String command;
+
+    @Label("Players")
+    @Description("Players reached, 0 for console commands")
+    public int players;
+
+    @Label("Items")
+    @Description("Item stacks handed over, for items")
+    public int items;
+
+    public void end(String kind, String command, int players, int items) {
+        end();
+        if (shouldCommit()) {
+            this.kind = kind;
+            this.command = command;
+            this.players = players;
+            this.items = items;
+            commit();
+        }
+    }
+}
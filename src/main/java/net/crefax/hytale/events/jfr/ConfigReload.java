@@ -0,0 +1,32 @@
+package net.crefax.hytale.events.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Reading events.json again and restarting every event.
+ *
+ * @author Crefax
+ */
+@Name("EventScheduler.ConfigReload")
+@Label("Config Reload")
+@Category("EventScheduler")
+public final class ConfigReload extends Event {
+
+    @Label("Interval Events")
+    public int intervalEvents;
+
+    @Label("Scheduled Events")
+    public int scheduledEvents;
+
+    public void end(int intervalEvents, int scheduledEvents) {
+        end();
+        if (shouldCommit()) {
+            this.intervalEvents = intervalEvents;
+            this.scheduledEvents = scheduledEvents;
+            commit();
+        }
+    }
+}
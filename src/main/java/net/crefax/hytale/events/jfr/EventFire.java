@@ -0,0 +1,56 @@
+package net.crefax.hytale.events.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One fire of an event, from player selection to the last command.
+ *
+ * @author Crefax
+ */
+@Name("EventScheduler.EventFire")
+@Label("Event Fire")
+@Category("EventScheduler")
+@Description("One fire of a scheduled, interval, manual, stage or playtime event")
+@StackTrace(false)
+public final class EventFire extends Event {
+
+    @Label("Event")
+    public String eventName;
+
+    @Label("Trigger")
+    @Description("scheduled (interval and timed events), manual, stage or playtime")
+    public String trigger;
+
+    @Label("Players")
+    public int players;
+
+    @Label("Commands")
+    public int commands;
+
+    @Label("Reward Grants")
+    public int rewardGrants;
+
+    @Label("Failures")
+    public int failures;
+
+    /**
+     * End the fire and commit it if this event type is being recorded
+     */
+    public void end(String eventName, String trigger, int players, int commands, int rewardGrants, int failures) {
+        end();
+        if (shouldCommit()) {
+            this.eventName = eventName;
+            this.trigger = trigger;
+            this.players = players;
+            this.commands = commands;
+            this.rewardGrants = rewardGrants;
+            this.failures = failures;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package net.crefax.hytale.events.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One translated message. Off by default, like {@link PlayerDispatch}.
+ *
+ * @author Crefax
+ */
+@Name("EventScheduler.I18nLookup")
+@Label("I18n Lookup")
+@Category("EventScheduler")
+@Description("Looking up and formatting one language key")
+@Enabled(false)
+@StackTrace(false)
+public final class I18nLookup extends Event {
+
+    @Label("Language")
+    public String language;
+
+    @Label("Key")
+    public String key;
+
+    public void end(String language, String key) {
+        end();
+        if (shouldCommit()) {
+            this.language = language;
+            this.key = key;
+            commit();
+        }
+    }
+}
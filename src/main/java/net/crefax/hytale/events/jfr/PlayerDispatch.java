@@ -0,0 +1,48 @@
+package net.crefax.hytale.events.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * One step of a fire applied to one player. Off by default: a fire
+ * produces one per targeted player and step.
+ *
+ * @author Crefax
+ */
+@Name("EventScheduler.PlayerDispatch")
+@Label("Player Dispatch")
+@Category("EventScheduler")
+@Description("One command step or reward bundle of a fire applied to one player")
+@Enabled(false)
+@StackTrace(false)
+public final class PlayerDispatch extends Event {
+
+    @Label("Event")
+    public String eventName;
+
+    @Label("Player")
+    public String player;
+
+    @Label("Step")
+    @Description("REWARDS, MESSAGE, PLAYER, OP or BUILTIN")
+    public String step;
+
+    @Label("Success")
+    public boolean success;
+
+    public void end(String eventName, String player, String step, boolean success) {
+        end();
+        if (shouldCommit()) {
+            this.eventName = eventName;
+            this.player = player;
+            this.step = step;
+            this.success = success;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package net.crefax.hytale.events.log;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * Async Log Handler
+ *
+ * Moves the plugin's log output off the scheduler threads. Records are put
+ * into a preallocated ring buffer and a single daemon thread hands them to
+ * the parent logger, so formatting and console IO never happen on the fire
+ * path. When the buffer is full the record is dropped and counted instead
+ * of blocking the caller; the drop count is logged once the buffer drains.
+ * An idle worker parks until the next record wakes it, so a quiet server
+ * costs no wake-ups.
+ *
+ * The caller's class and method are captured when the record is published.
+ * Log parameters are only formatted later, on the worker, so callers pass
+ * values (e.g. {@code stats.toString()}), not objects that keep changing.
+ *
+ * @author Crefax
+ */
+public final class AsyncLogHandler extends Handler {
+
+    private final Logger target;
+    private final AtomicReferenceArray<LogRecord> slots;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread worker;
+    private long tail;
+    private volatile boolean waiting; // the worker is parked or about to park
+    private volatile boolean closed;
+
+    /**
+     * @param target   logger the records are forwarded to
+     * @param capacity ring size, rounded up to a power of two
+     */
+    public AsyncLogHandler(Logger target, int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.target = target;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        this.worker = new Thread(this::run, "EventScheduler-Log");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * Route a logger through a new async handler instead of its parent handlers
+     */
+    public static AsyncLogHandler install(Logger logger, int capacity) {
+        Logger parent = logger.getParent() != null ? logger.getParent() : Logger.getLogger("");
+        AsyncLogHandler handler = new AsyncLogHandler(parent, capacity);
+        logger.addHandler(handler);
+        logger.setUseParentHandlers(false);
+        return handler;
+    }
+
+    /**
+     * Flush what is buffered and give the logger its parent handlers back
+     */
+    public void uninstall(Logger logger) {
+        logger.removeHandler(this);
+        logger.setUseParentHandlers(true);
+        close();
+    }
+
+    @Override
+    public void publish(LogRecord record) {
+        if (closed || !isLoggable(record)) {
+            if (closed) target.log(record);
+            return;
+        }
+        // The caller is inferred lazily from the stack; do it here, not on the worker
+        record.getSourceClassName();
+        // Multi-producer claim: a slot is free when its sequence equals the position
+        long position = head.get();
+        while (true) {
+            int index = (int) position & mask;
+            long sequence = sequences.get(index);
+            if (sequence == position) {
+                if (head.compareAndSet(position, position + 1)) {
+                    slots.set(index, record);
+                    sequences.set(index, position + 1);
+                    // Pairs with the worker setting waiting before its last look at the ring
+                    if (waiting) LockSupport.unpark(worker);
+                    return;
+                }
+                position = head.get();
+            } else if (sequence < position) {
+                dropped.incrementAndGet();
+                return;
+            } else {
+                position = head.get();
+            }
+        }
+    }
+
+    private void run() {
+        while (!closed) {
+            if (drain() == 0) {
+                waiting = true;
+                if (!hasPending() && !closed) {
+                    LockSupport.park(this);
+                }
+                waiting = false;
+            }
+        }
+        drain();
+    }
+
+    private boolean hasPending() {
+        return sequences.get((int) tail & mask) == tail + 1;
+    }
+
+    /**
+     * Forward everything that is buffered. Only the worker (or close after the worker stopped) calls this.
+     */
+    private synchronized int drain() {
+        int forwarded = 0;
+        while (true) {
+            int index = (int) tail & mask;
+            if (sequences.get(index) != tail + 1) break;
+            LogRecord record = slots.get(index);
+            slots.set(index, null);
+            sequences.set(index, tail + mask + 1);
+            tail++;
+            forwarded++;
+            try {
+                target.log(record);
+            } catch (RuntimeException e) {
+                // A broken downstream handler must not stop the worker
+            }
+        }
+        long lost = dropped.getAndSet(0);
+        if (lost > 0) {
+            target.log(Level.WARNING, "[EventScheduler] Log buffer full, " + lost + " record(s) dropped");
+        }
+        return forwarded;
+    }
+
+    @Override
+    public void flush() {
+        LockSupport.unpark(worker);
+    }
+
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        LockSupport.unpark(worker);
+        try {
+            worker.join(2000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        drain();
+    }
+}
@@ -0,0 +1,601 @@
+package net.crefax.hytale.events.mailbox;
+
+import net.crefax.hytale.events.reward.RewardBundle;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.RandomAccessFile;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Offline Reward Mailbox
+ *
+ * Keeps item rewards for players who were not online when an event fired.
+ * Records are appended to segment files under mods/EventScheduler/mailbox/,
+ * an in-memory index maps each player to the offsets of their pending
+ * records, and compaction rewrites the live records once enough of the
+ * log is dead. All file access happens on a single background thread, so
+ * neither the fire path nor the join path waits for the disk.
+ *
+ * Compaction writes the live records to a temporary file and renames it
+ * to the compaction file once it is synced; only then are the old
+ * segments deleted and the compaction file renamed to the new segment.
+ * Opening after a crash discards an unfinished temporary file, and a
+ * finished compaction file replaces whatever old segments are left, so a
+ * reward is never restored twice.
+ *
+ * Record layout: type (byte), uuid (2 longs), then per type:
+ * ITEM = time (long), event (UTF), item (UTF), quantity (int);
+ * CLEAR = nothing (all earlier ITEM records of the player are delivered,
+ * written by older versions);
+ * SEEN = time (long) (the player was online at that time);
+ * DELIVERED = count (int) (the player's oldest count pending ITEM records
+ * reached their inventory).
+ *
+ * Taking a player's rewards does not remove them: they stay pending until
+ * the caller confirms the grant, so a crash or a failed grant in between
+ * keeps them for the next login.
+ *
+ * @author Crefax
+ */
+public class RewardMailbox {
+
+    private static final Logger LOGGER = Logger.getLogger("EventScheduler");
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".dat";
+    static final String COMPACT_TEMP = "compact.tmp";
+    static final String COMPACT_DONE = "compact.dat";
+    private static final long SEGMENT_MAX_BYTES = 4L * 1024 * 1024;
+    private static final int COMPACT_MIN_DEAD_RECORDS = 1024;
+
+    private static final byte ITEM = 1;
+    private static final byte CLEAR = 2;
+    private static final byte SEEN = 3;
+    private static final byte DELIVERED = 4;
+
+    /**
+     * A pending item reward
+     */
+    public static final class PendingReward {
+        public final String eventName;
+        public final String itemId;
+        public final int quantity;
+        public final long createdAt;
+
+        PendingReward(String eventName, String itemId, int quantity, long createdAt) {
+            this.eventName = eventName;
+            this.itemId = itemId;
+            this.quantity = quantity;
+            this.createdAt = createdAt;
+        }
+    }
+
+    private final Path directory;
+    private final long retentionMillis;
+    private final ExecutorService io;
+
+    // Index: pending record offsets per player, and last time each player was seen
+    private final Map<UUID, List<Long>> pending = new HashMap<>();
+    private final Map<UUID, Long> lastSeen = new HashMap<>();
+    private final Set<UUID> delivering = new HashSet<>();
+    private final TreeMap<Integer, RandomAccessFile> readers = new TreeMap<>();
+    private int activeSegment;
+    private RandomAccessFile writer;
+    private long liveRecords;
+    private long deadRecords;
+
+    public RewardMailbox(Path directory, int retentionDays) {
+        this.directory = directory;
+        this.retentionMillis = Math.max(1, retentionDays) * 24L * 60 * 60 * 1000;
+        this.io = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "EventScheduler-Mailbox");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Open the mailbox and rebuild the index from the segment files
+     */
+    public void open() throws IOException {
+        Files.createDirectories(directory);
+        synchronized (this) {
+            recoverCompaction();
+            List<Integer> segments = listSegments();
+            long valid = 0;
+            for (int segment : segments) {
+                valid = scanSegment(segment);
+            }
+            activeSegment = segments.isEmpty() ? 1 : segments.get(segments.size() - 1);
+            openWriter();
+            // New records go after the last complete one
+            writer.setLength(valid);
+        }
+        LOGGER.info("[EventScheduler] Mailbox opened: " + pendingPlayerCount() + " player(s) with pending rewards.");
+    }
+
+    /**
+     * Record that a player is online (keeps them eligible for offline rewards)
+     */
+    public void markSeenAsync(UUID uuid, long now) {
+        io.execute(() -> {
+            try {
+                synchronized (this) {
+                    lastSeen.put(uuid, now);
+                    ByteArrayOutputStream bytes = new ByteArrayOutputStream(32);
+                    DataOutputStream out = new DataOutputStream(bytes);
+                    writeHeader(out, SEEN, uuid);
+                    out.writeLong(now);
+                    append(bytes.toByteArray());
+                }
+            } catch (IOException e) {
+                LOGGER.warning("[EventScheduler] Mailbox write error: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Store a reward bundle for every recently seen player that is not online
+     */
+    public void storeForOfflineAsync(String eventName, RewardBundle rewards, Set<UUID> online, long now) {
+        if (rewards.isEmpty()) return;
+        io.execute(() -> {
+            try {
+                int stored = 0;
+                synchronized (this) {
+                    for (Map.Entry<UUID, Long> entry : lastSeen.entrySet()) {
+                        UUID uuid = entry.getKey();
+                        if (online.contains(uuid) || now - entry.getValue() > retentionMillis) {
+                            continue;
+                        }
+                        appendRewards(uuid, eventName, rewards, now);
+                        stored++;
+                    }
+                }
+                if (stored > 0) {
+                    LOGGER.fine("[EventScheduler] Mailbox: " + eventName + " stored for " + stored + " offline player(s)");
+                }
+            } catch (IOException e) {
+                LOGGER.warning("[EventScheduler] Mailbox write error: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Store items for a single player (e.g. overflow of a full inventory)
+     */
+    public void storeAsync(UUID uuid, String eventName, RewardBundle rewards, long now) {
+        if (rewards.isEmpty()) return;
+        io.execute(() -> {
+            try {
+                synchronized (this) {
+                    appendRewards(uuid, eventName, rewards, now);
+                }
+            } catch (IOException e) {
+                LOGGER.warning("[EventScheduler] Mailbox write error: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Read all pending rewards of a player for delivery. They stay pending
+     * until {@link #confirmAsync} records the grant or {@link #releaseAsync}
+     * gives them back; until then another take for the player returns nothing.
+     */
+    public CompletableFuture<List<PendingReward>> takeAsync(UUID uuid) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                synchronized (this) {
+                    List<Long> offsets = pending.get(uuid);
+                    if (offsets == null || offsets.isEmpty() || delivering.contains(uuid)) {
+                        return List.<PendingReward>of();
+                    }
+                    List<PendingReward> rewards = new ArrayList<>(offsets.size());
+                    for (long offset : offsets) {
+                        rewards.add(readItem(offset));
+                    }
+                    delivering.add(uuid);
+                    return rewards;
+                }
+            } catch (IOException e) {
+                LOGGER.warning("[EventScheduler] Mailbox read error: " + e.getMessage());
+                return List.<PendingReward>of();
+            }
+        }, io);
+    }
+
+    /**
+     * The taken rewards reached the player: keep what did not fit, then
+     * record the delivery. The overflow is written first, so a crash in
+     * between can repeat it but never loses it.
+     */
+    public void confirmAsync(UUID uuid, int count, RewardBundle overflow, long now) {
+        io.execute(() -> {
+            try {
+                synchronized (this) {
+                    delivering.remove(uuid);
+                    appendRewards(uuid, "mailbox", overflow, now);
+                    ByteArrayOutputStream bytes = new ByteArrayOutputStream(21);
+                    DataOutputStream out = new DataOutputStream(bytes);
+                    writeHeader(out, DELIVERED, uuid);
+                    out.writeInt(count);
+                    append(bytes.toByteArray());
+                    removeDelivered(uuid, count);
+                }
+            } catch (IOException e) {
+                LOGGER.warning("[EventScheduler] Mailbox write error: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * The taken rewards could not be granted; they stay pending
+     */
+    public void releaseAsync(UUID uuid) {
+        io.execute(() -> {
+            synchronized (this) {
+                delivering.remove(uuid);
+            }
+        });
+    }
+
+    /**
+     * Rewrite the live records into a fresh segment if enough of the log is dead
+     */
+    public void compactAsync(long now) {
+        io.execute(() -> {
+            try {
+                compactIfNeeded(now);
+            } catch (IOException e) {
+                LOGGER.warning("[EventScheduler] Mailbox compaction error: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Completes once every write queued before it is done
+     */
+    public CompletableFuture<Void> flushAsync() {
+        return CompletableFuture.runAsync(() -> { }, io);
+    }
+
+    public synchronized int pendingPlayerCount() {
+        return pending.size();
+    }
+
+    /**
+     * Flush outstanding writes and close the files
+     */
+    public void close() {
+        io.shutdown();
+        try {
+            if (!io.awaitTermination(5, TimeUnit.SECONDS)) {
+                int dropped = io.shutdownNow().size();
+                LOGGER.warning("[EventScheduler] Mailbox closed with " + dropped + " write(s) still queued, they are lost.");
+            }
+        } catch (InterruptedException e) {
+            io.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        // Waits for a write that is still running
+        synchronized (this) {
+            closeFiles();
+        }
+    }
+
+    // ---- storage ----
+
+    private void appendRewards(UUID uuid, String eventName, RewardBundle rewards, long now) throws IOException {
+        for (int i = 0; i < rewards.size(); i++) {
+            appendItem(uuid, eventName, rewards.getItemId(i), rewards.getQuantity(i), now);
+        }
+    }
+
+    private void appendItem(UUID uuid, String eventName, String itemId, int quantity, long now) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        writeHeader(out, ITEM, uuid);
+        out.writeLong(now);
+        out.writeUTF(eventName);
+        out.writeUTF(itemId);
+        out.writeInt(quantity);
+        long offset = append(bytes.toByteArray());
+        pending.computeIfAbsent(uuid, k -> new ArrayList<>()).add(offset);
+        liveRecords++;
+    }
+
+    /**
+     * Drop the oldest count pending records of a player from the index
+     */
+    private void removeDelivered(UUID uuid, int count) {
+        List<Long> offsets = pending.get(uuid);
+        int removed = offsets != null ? Math.min(count, offsets.size()) : 0;
+        if (removed > 0) {
+            offsets.subList(0, removed).clear();
+            if (offsets.isEmpty()) {
+                pending.remove(uuid);
+            }
+        }
+        liveRecords -= removed;
+        deadRecords += removed + 1;
+    }
+
+    private static void writeHeader(DataOutputStream out, byte type, UUID uuid) throws IOException {
+        out.writeByte(type);
+        out.writeLong(uuid.getMostSignificantBits());
+        out.writeLong(uuid.getLeastSignificantBits());
+    }
+
+    /**
+     * Append a record to the active segment and return its global offset
+     */
+    private long append(byte[] record) throws IOException {
+        if (writer == null) {
+            throw new IOException("Mailbox is closed");
+        }
+        if (writer.length() + record.length > SEGMENT_MAX_BYTES) {
+            writer.close();
+            activeSegment++;
+            openWriter();
+        }
+        long position = writer.length();
+        writer.seek(position);
+        writer.write(record);
+        return toOffset(activeSegment, position);
+    }
+
+    private PendingReward readItem(long offset) throws IOException {
+        RandomAccessFile file = reader(segmentOf(offset));
+        file.seek(positionOf(offset) + 17); // skip type + uuid
+        long createdAt = file.readLong();
+        String eventName = file.readUTF();
+        String itemId = file.readUTF();
+        int quantity = file.readInt();
+        return new PendingReward(eventName, itemId, quantity, createdAt);
+    }
+
+    /**
+     * Index the records of a segment and return the length of its complete records
+     */
+    private long scanSegment(int segment) throws IOException {
+        Path file = segmentPath(segment);
+        long position = 0;
+        try (InputStream raw = Files.newInputStream(file);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(raw))) {
+            while (true) {
+                byte type;
+                try {
+                    type = in.readByte();
+                } catch (EOFException e) {
+                    break;
+                }
+                long start = position;
+                if (type != ITEM && type != CLEAR && type != SEEN && type != DELIVERED) {
+                    LOGGER.warning("[EventScheduler] Mailbox segment " + segment + " is corrupt at " + start + ", dropping the rest.");
+                    break;
+                }
+                // Read completely before the index changes, a torn record leaves no trace
+                UUID uuid = new UUID(in.readLong(), in.readLong());
+                if (type == ITEM) {
+                    in.readLong();
+                    String eventName = in.readUTF();
+                    String itemId = in.readUTF();
+                    in.readInt();
+                    position = start + 17 + 8 + utfLength(eventName) + utfLength(itemId) + 4;
+                    pending.computeIfAbsent(uuid, k -> new ArrayList<>()).add(toOffset(segment, start));
+                    liveRecords++;
+                } else if (type == CLEAR) {
+                    position = start + 17;
+                    List<Long> cleared = pending.remove(uuid);
+                    int count = cleared != null ? cleared.size() : 0;
+                    liveRecords -= count;
+                    deadRecords += count + 1;
+                } else if (type == DELIVERED) {
+                    int count = in.readInt();
+                    position = start + 17 + 4;
+                    removeDelivered(uuid, count);
+                } else {
+                    long time = in.readLong();
+                    position = start + 17 + 8;
+                    Long previous = lastSeen.put(uuid, time);
+                    if (previous != null) {
+                        deadRecords++;
+                    }
+                }
+            }
+        } catch (EOFException e) {
+            LOGGER.warning("[EventScheduler] Mailbox segment " + segment + " ends with a partial record, dropping it.");
+        }
+        return position;
+    }
+
+    private synchronized void compactIfNeeded(long now) throws IOException {
+        if (deadRecords < COMPACT_MIN_DEAD_RECORDS || deadRecords < liveRecords) {
+            return;
+        }
+        List<Integer> oldSegments = listSegments();
+
+        // Read everything that is still live before touching the files
+        Map<UUID, List<PendingReward>> live = new HashMap<>();
+        for (Map.Entry<UUID, List<Long>> entry : pending.entrySet()) {
+            List<PendingReward> rewards = new ArrayList<>(entry.getValue().size());
+            for (long offset : entry.getValue()) {
+                rewards.add(readItem(offset));
+            }
+            live.put(entry.getKey(), rewards);
+        }
+        Map<UUID, Long> seen = new HashMap<>(lastSeen);
+        seen.values().removeIf(time -> now - time > retentionMillis);
+        int compacted = oldSegments.isEmpty() ? 1 : oldSegments.get(oldSegments.size() - 1) + 1;
+
+        // Write the new segment aside; the old segments stay authoritative until it is complete
+        Map<UUID, List<Long>> compactedPending = new HashMap<>();
+        Path temp = directory.resolve(COMPACT_TEMP);
+        long kept = 0;
+        try (FileOutputStream file = new FileOutputStream(temp.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file))) {
+            for (Map.Entry<UUID, List<PendingReward>> entry : live.entrySet()) {
+                for (PendingReward reward : entry.getValue()) {
+                    long position = out.size();
+                    writeHeader(out, ITEM, entry.getKey());
+                    out.writeLong(reward.createdAt);
+                    out.writeUTF(reward.eventName);
+                    out.writeUTF(reward.itemId);
+                    out.writeInt(reward.quantity);
+                    compactedPending.computeIfAbsent(entry.getKey(), k -> new ArrayList<>()).add(toOffset(compacted, position));
+                    kept++;
+                }
+            }
+            for (Map.Entry<UUID, Long> entry : seen.entrySet()) {
+                writeHeader(out, SEEN, entry.getKey());
+                out.writeLong(entry.getValue());
+            }
+            out.flush();
+            file.getFD().sync();
+        }
+        Files.move(temp, directory.resolve(COMPACT_DONE), StandardCopyOption.ATOMIC_MOVE);
+
+        // From here on a restart finishes the switch (see recoverCompaction)
+        closeFiles();
+        retireCompacted(oldSegments, compacted);
+        activeSegment = compacted;
+        openWriter();
+        pending.clear();
+        pending.putAll(compactedPending);
+        lastSeen.clear();
+        lastSeen.putAll(seen);
+        liveRecords = kept;
+        deadRecords = 0;
+        LOGGER.info("[EventScheduler] Mailbox compacted: " + liveRecords + " pending reward(s) kept.");
+    }
+
+    /**
+     * Finish or discard a compaction that a crash interrupted
+     */
+    private void recoverCompaction() throws IOException {
+        if (Files.deleteIfExists(directory.resolve(COMPACT_TEMP))) {
+            LOGGER.warning("[EventScheduler] Mailbox: discarded an unfinished compaction.");
+        }
+        if (Files.exists(directory.resolve(COMPACT_DONE))) {
+            List<Integer> oldSegments = listSegments();
+            retireCompacted(oldSegments, oldSegments.isEmpty() ? 1 : oldSegments.get(oldSegments.size() - 1) + 1);
+            LOGGER.warning("[EventScheduler] Mailbox: finished an interrupted compaction.");
+        }
+    }
+
+    /**
+     * Delete the segments a complete compaction file replaces, then make it the segment
+     */
+    private void retireCompacted(List<Integer> oldSegments, int compacted) throws IOException {
+        for (int segment : oldSegments) {
+            Files.deleteIfExists(segmentPath(segment));
+        }
+        Files.move(directory.resolve(COMPACT_DONE), segmentPath(compacted), StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // ---- files ----
+
+    private void openWriter() throws IOException {
+        writer = new RandomAccessFile(segmentPath(activeSegment).toFile(), "rw");
+    }
+
+    private RandomAccessFile reader(int segment) throws IOException {
+        if (writer == null) {
+            throw new IOException("Mailbox is closed");
+        }
+        if (segment == activeSegment) {
+            return writer;
+        }
+        RandomAccessFile file = readers.get(segment);
+        if (file == null) {
+            file = new RandomAccessFile(segmentPath(segment).toFile(), "r");
+            readers.put(segment, file);
+        }
+        return file;
+    }
+
+    private void closeFiles() {
+        try {
+            if (writer != null) {
+                writer.close();
+            }
+            for (RandomAccessFile file : readers.values()) {
+                file.close();
+            }
+        } catch (IOException e) {
+            LOGGER.warning("[EventScheduler] Mailbox close error: " + e.getMessage());
+        }
+        writer = null;
+        readers.clear();
+    }
+
+    private List<Integer> listSegments() throws IOException {
+        List<Integer> segments = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    segments.add(Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())));
+                } catch (NumberFormatException e) {
+                    // Not one of ours
+                }
+            }
+        }
+        segments.sort(null);
+        return segments;
+    }
+
+    private Path segmentPath(int segment) {
+        return directory.resolve(String.format("%s%06d%s", SEGMENT_PREFIX, segment, SEGMENT_SUFFIX));
+    }
+
+    private static long toOffset(int segment, long position) {
+        return ((long) segment << 40) | position;
+    }
+
+    private static int segmentOf(long offset) {
+        return (int) (offset >>> 40);
+    }
+
+    private static long positionOf(long offset) {
+        return offset & ((1L << 40) - 1);
+    }
+
+    private static int utfLength(String value) {
+        int length = 2;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= 0x0001 && c <= 0x007F) {
+                length += 1;
+            } else if (c > 0x07FF) {
+                length += 3;
+            } else {
+                length += 2;
+            }
+        }
+        return length;
+    }
+}
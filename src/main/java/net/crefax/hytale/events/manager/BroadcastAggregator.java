@@ -0,0 +1,123 @@
+package net.crefax.hytale.events.manager;
+
+import net.crefax.hytale.events.player.OnlinePlayer;
+import net.crefax.hytale.events.player.PlayerSelection;
+import net.crefax.hytale.events.time.SchedulerClock;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Broadcast Aggregator
+ *
+ * Collects the broadcasts of events firing close together for a short
+ * window and then sends each player everything meant for them as one
+ * multi-line message. The same text sent twice within a window is sent
+ * once. Players who got the same messages share one broadcast call.
+ *
+ * With a window of zero every broadcast goes out right away.
+ *
+ * @author Crefax
+ */
+final class BroadcastAggregator {
+
+    private static final class Recipient {
+        OnlinePlayer player;
+        final BitSet lines = new BitSet();
+
+        Recipient(OnlinePlayer player) {
+            this.player = player;
+        }
+    }
+
+    private final SchedulerClock clock;
+    private final ServerBridge bridge;
+    private final List<String> messages = new ArrayList<>();
+    private final Map<String, Integer> messageIndex = new HashMap<>();
+    private final Map<UUID, Recipient> recipients = new LinkedHashMap<>(); // first addressed first
+    private volatile long windowMillis;
+    private ScheduledFuture<?> flushTask;
+
+    BroadcastAggregator(SchedulerClock clock, ServerBridge bridge) {
+        this.clock = clock;
+        this.bridge = bridge;
+    }
+
+    /**
+     * Change the window; a window of zero also sends what is waiting
+     */
+    void setWindow(long millis) {
+        windowMillis = Math.max(0, millis);
+        if (windowMillis == 0) {
+            flush();
+        }
+    }
+
+    void broadcast(PlayerSelection players, String message) {
+        if (windowMillis == 0) {
+            bridge.broadcast(players, message);
+            return;
+        }
+        if (players.isEmpty()) return;
+        synchronized (this) {
+            Integer line = messageIndex.get(message);
+            if (line == null) {
+                line = messages.size();
+                messages.add(message);
+                messageIndex.put(message, line);
+            }
+            for (int i = 0; i < players.size(); i++) {
+                OnlinePlayer player = players.get(i);
+                Recipient recipient = recipients.get(player.getUuid());
+                if (recipient == null) {
+                    recipient = new Recipient(player);
+                    recipients.put(player.getUuid(), recipient);
+                } else {
+                    recipient.player = player; // latest entry, in case they joined again
+                }
+                recipient.lines.set(line);
+            }
+            if (flushTask == null) {
+                flushTask = clock.schedule(this::flush, windowMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    /**
+     * Send everything collected so far
+     */
+    void flush() {
+        Map<BitSet, List<OnlinePlayer>> groups = new LinkedHashMap<>();
+        List<String> lines;
+        synchronized (this) {
+            if (flushTask != null) {
+                flushTask.cancel(false);
+                flushTask = null;
+            }
+            if (recipients.isEmpty()) return;
+            for (Recipient recipient : recipients.values()) {
+                groups.computeIfAbsent(recipient.lines, key -> new ArrayList<>()).add(recipient.player);
+            }
+            lines = new ArrayList<>(messages);
+            recipients.clear();
+            messages.clear();
+            messageIndex.clear();
+        }
+        for (Map.Entry<BitSet, List<OnlinePlayer>> group : groups.entrySet()) {
+            BitSet set = group.getKey();
+            StringBuilder text = new StringBuilder();
+            for (int line = set.nextSetBit(0); line >= 0; line = set.nextSetBit(line + 1)) {
+                if (text.length() > 0) text.append('\n');
+                text.append(lines.get(line));
+            }
+            bridge.broadcast(PlayerSelection.of(group.getValue()), text.toString());
+        }
+    }
+}
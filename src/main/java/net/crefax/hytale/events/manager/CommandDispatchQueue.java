@@ -0,0 +1,111 @@
+package net.crefax.hytale.events.manager;
+
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Command Dispatch Queue
+ *
+ * Spreads per-player server commands over time. Instead of handing
+ * hundreds of commands to the server in one burst, a fire enqueues them
+ * and a drain task dispatches at most a fixed number per tick.
+ *
+ * The queue holds at most a configured number of lines. When it is full
+ * a line is dropped and counted as a failure of its fire instead of
+ * blocking the fire; the drop count is logged by the drain. The outcome
+ * of every sent line is reported to its fire's {@link FireStats}. Reward
+ * grants of a fire queue here too once an earlier line of it is waiting,
+ * so a player's side effects keep their configured order.
+ *
+ * @author Crefax
+ */
+final class CommandDispatchQueue {
+
+    /**
+     * Sends one queued line to the server
+     */
+    interface Line {
+        /** @return whether the server accepted it */
+        boolean dispatch();
+    }
+
+    private static final class Dispatch {
+        final Line line;
+        final FireStats stats;
+        final UUID player; // the line's player, who did not get the fire if it fails
+        final boolean reward; // a reward grant rather than a command
+
+        Dispatch(Line line, FireStats stats, UUID player, boolean reward) {
+            this.line = line;
+            this.stats = stats;
+            this.player = player;
+            this.reward = reward;
+        }
+    }
+
+    private final ConcurrentLinkedQueue<Dispatch> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * Queue a line of a fire for a player. Returns false, and queues
+     * nothing, if limit lines are already waiting.
+     */
+    boolean enqueue(Line line, FireStats stats, UUID player, int limit) {
+        return enqueue(line, stats, player, false, limit);
+    }
+
+    /**
+     * Queue a line or a reward grant of a fire for a player (same rules)
+     */
+    boolean enqueue(Line line, FireStats stats, UUID player, boolean reward, int limit) {
+        if (size.incrementAndGet() > limit) {
+            size.decrementAndGet();
+            dropped.incrementAndGet();
+            return false;
+        }
+        stats.queued();
+        queue.add(new Dispatch(line, stats, player, reward));
+        return true;
+    }
+
+    /**
+     * Dispatch up to maxCommands queued lines. Returns how many were sent.
+     */
+    int drain(int maxCommands) {
+        int sent = 0;
+        while (sent < maxCommands) {
+            Dispatch next = queue.poll();
+            if (next == null) break;
+            size.decrementAndGet();
+            boolean success = false;
+            try {
+                success = next.line.dispatch();
+            } finally {
+                next.stats.dispatched(next.player, next.reward, success);
+            }
+            sent++;
+        }
+        return sent;
+    }
+
+    /**
+     * Dispatch everything that is still queued
+     */
+    int drainAll() {
+        return drain(Integer.MAX_VALUE);
+    }
+
+    int size() {
+        return size.get();
+    }
+
+    /**
+     * Lines dropped because the queue was full since the last call
+     */
+    long takeDropped() {
+        return dropped.getAndSet(0);
+    }
+}
@@ -0,0 +1,127 @@
+package net.crefax.hytale.events.manager;
+
+import net.crefax.hytale.events.placeholder.PlaceholderContext;
+import net.crefax.hytale.events.placeholder.PlaceholderRegistry;
+import net.crefax.hytale.events.placeholder.PlaceholderRegistry.Slot;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Command Template
+ *
+ * A per-player command parsed once at load time: the prefix (cmd:, op:,
+ * message, ...) is resolved up front and the command body is split into
+ * literal text and placeholder slots. Rendering for a player is then a
+ * single pass of appends, with no prefix checks and no String.replace
+ * scans per player. Only the resolvers of the placeholders a command
+ * contains are ever asked for a value.
+ *
+ * @author Crefax
+ */
+final class CommandTemplate {
+
+    enum Kind {
+        PLAYER,   // cmd:, command: - executed as the player
+        OP,       // op:, admin: - executed by the console on behalf of the player
+        MESSAGE,  // message, msg - private message to the player
+        BUILTIN,  // anything else (e.g. give with placeholders) - interpreted after rendering
+        TEXT      // a global line or broadcast message, rendered as a whole once per fire
+    }
+
+    final Kind kind;
+    final String source;
+    private final String[] literals;  // literals[i] precedes slots[i]; one more literal than slots
+    private final Slot[] slots;
+    private final int literalLength;
+
+    private CommandTemplate(Kind kind, String source, String[] literals, Slot[] slots) {
+        this.kind = kind;
+        this.source = source;
+        this.literals = literals;
+        this.slots = slots;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+    }
+
+    /**
+     * Parse a per-player command line. Every {name} becomes a slot of the
+     * registry, whether or not it is registered yet.
+     */
+    static CommandTemplate parse(String command, PlaceholderRegistry placeholders) {
+        String trimmed = command.trim();
+        Kind kind;
+        String body;
+        if (trimmed.startsWith("cmd:") || trimmed.startsWith("command:")) {
+            kind = Kind.PLAYER;
+            body = trimmed.substring(trimmed.indexOf(':') + 1).trim();
+        } else if (trimmed.startsWith("op:") || trimmed.startsWith("admin:")) {
+            kind = Kind.OP;
+            body = trimmed.substring(trimmed.indexOf(':') + 1).trim();
+        } else {
+            String first = trimmed.split("\\s+", 2)[0].toLowerCase();
+            if (first.equals("message") || first.equals("msg")) {
+                kind = Kind.MESSAGE;
+                body = trimmed.substring(first.length()).trim();
+            } else {
+                kind = Kind.BUILTIN;
+                body = trimmed;
+            }
+        }
+        return split(kind, command, body, placeholders);
+    }
+
+    /**
+     * Parse a line that is rendered as written, e.g. a console: command or
+     * a broadcast message. Only fire placeholders have a value there.
+     */
+    static CommandTemplate text(String text, PlaceholderRegistry placeholders) {
+        return split(Kind.TEXT, text, text, placeholders);
+    }
+
+    private static CommandTemplate split(Kind kind, String command, String body, PlaceholderRegistry placeholders) {
+        List<String> literals = new ArrayList<>();
+        List<Slot> slots = new ArrayList<>();
+        int start = 0;
+        int i = 0;
+        while (i < body.length()) {
+            int end = body.charAt(i) == '{' ? body.indexOf('}', i + 1) : -1;
+            String name = end > 0 ? body.substring(i + 1, end) : null;
+            if (name != null && PlaceholderRegistry.isValidName(name)) {
+                literals.add(body.substring(start, i));
+                slots.add(placeholders.slot(name));
+                i = end + 1;
+                start = i;
+            } else {
+                i++;
+            }
+        }
+        literals.add(body.substring(start));
+
+        return new CommandTemplate(kind, command, literals.toArray(new String[0]), slots.toArray(new Slot[0]));
+    }
+
+    boolean hasPlaceholders() {
+        return slots.length > 0;
+    }
+
+    /**
+     * Render the command body for the context's current player, or with
+     * fire values only while the context has no player
+     */
+    String render(PlaceholderContext context) {
+        if (slots.length == 0) {
+            return literals[0];
+        }
+        StringBuilder sb = new StringBuilder(literalLength + slots.length * 16);
+        for (int i = 0; i < slots.length; i++) {
+            sb.append(literals[i]);
+            context.append(sb, slots[i]);
+        }
+        sb.append(literals[slots.length]);
+        return sb.toString();
+    }
+}
@@ -0,0 +1,230 @@
+package net.crefax.hytale.events.manager;
+
+import net.crefax.hytale.events.condition.Condition;
+import net.crefax.hytale.events.condition.ConditionException;
+import net.crefax.hytale.events.condition.ConditionLanguage;
+import net.crefax.hytale.events.config.EventConfig.EventDefinition;
+import net.crefax.hytale.events.config.EventConfig.Stage;
+import net.crefax.hytale.events.placeholder.PlaceholderRegistry;
+import net.crefax.hytale.events.player.TargetSelector;
+import net.crefax.hytale.events.reward.LootTable;
+import net.crefax.hytale.events.reward.RewardBundle;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+import java.util.random.RandomGenerator;
+
+/**
+ * Compiled Event
+ *
+ * Load-time form of an event definition. Everything that does not depend
+ * on the players of a particular fire is worked out once here, when the
+ * config is (re)loaded, instead of on every fire.
+ *
+ * @author Crefax
+ */
+final class CompiledEvent {
+
+    private static final Logger LOGGER = Logger.getLogger("EventScheduler");
+
+    enum StepKind {
+        GLOBAL,  // console:, server:, broadcast - run once
+        PLAYER,  // cmd:, op:, message, ... - run for each targeted player
+        BUNDLE   // all give and loot lines, merged into one inventory transaction per player
+    }
+
+    static final class Step {
+        final StepKind kind;
+        final String command;
+        final CommandTemplate template; // PLAYER and GLOBAL steps
+        final boolean console;          // GLOBAL console:/server: steps, run by the cluster leader only
+
+        Step(StepKind kind, String command, PlaceholderRegistry placeholders) {
+            this.kind = kind;
+            this.command = command;
+            this.template = kind == StepKind.PLAYER ? CommandTemplate.parse(command, placeholders)
+                : kind == StepKind.GLOBAL ? CommandTemplate.text(command, placeholders) : null;
+            this.console = kind == StepKind.GLOBAL && isConsoleCommand(command);
+        }
+    }
+
+    final EventDefinition definition;
+    final TargetSelector targets;
+    final RewardBundle rewards;
+    final LootTable[] loot;  // rolled per player on top of the fixed rewards
+    final int[] lootTimes;
+    final List<Step> steps;
+    final CommandTemplate broadcast;  // broadcastMessage, null if the event has none
+    final boolean hasConsoleSteps;
+    final boolean critical;           // never deferred, set in config or implied by stopping the server
+    final Condition condition;        // whole fire
+    final Condition playerCondition;  // each targeted player
+    final List<CompiledEvent> stages; // later workflow stages, empty for a plain event
+    final int delaySeconds;           // for a stage: delay after the previous stage
+
+    CompiledEvent(EventDefinition definition, Map<String, LootTable> lootTables, PlaceholderRegistry placeholders) {
+        this.definition = definition;
+        this.targets = TargetSelector.compile(definition.targeting);
+
+        // Give and loot lines are merged into one bundle, applied where the first one appeared
+        RewardBundle.Builder bundle = new RewardBundle.Builder();
+        List<LootTable> lootList = new ArrayList<>();
+        List<Integer> lootTimesList = new ArrayList<>();
+        List<Step> compiledSteps = new ArrayList<>();
+        boolean bundleStepAdded = false;
+        for (String command : definition.commands) {
+            if (SchedulerManager.isGlobalCommand(command)) {
+                compiledSteps.add(new Step(StepKind.GLOBAL, command, placeholders));
+            } else if (addGive(bundle, command) || addLoot(lootList, lootTimesList, lootTables, command)) {
+                if (!bundleStepAdded) {
+                    compiledSteps.add(new Step(StepKind.BUNDLE, null, placeholders));
+                    bundleStepAdded = true;
+                }
+            } else {
+                compiledSteps.add(new Step(StepKind.PLAYER, command, placeholders));
+            }
+        }
+        this.rewards = bundle.build();
+        this.loot = lootList.toArray(new LootTable[0]);
+        this.lootTimes = lootTimesList.stream().mapToInt(Integer::intValue).toArray();
+        this.steps = List.copyOf(compiledSteps);
+        this.broadcast = definition.broadcastMessage != null && !definition.broadcastMessage.isEmpty()
+            ? CommandTemplate.text(definition.broadcastMessage, placeholders) : null;
+        this.hasConsoleSteps = compiledSteps.stream().anyMatch(step -> step.console);
+        this.critical = definition.critical || definition.commands.stream().anyMatch(CompiledEvent::stopsServer);
+        this.condition = compileCondition(definition.condition, false);
+        this.playerCondition = compileCondition(definition.playerCondition, true);
+        this.delaySeconds = definition instanceof Stage ? Math.max(0, ((Stage) definition).delay) : 0;
+        List<CompiledEvent> compiledStages = new ArrayList<>();
+        for (Stage stage : definition.stages) {
+            compiledStages.add(new CompiledEvent(stage, lootTables, placeholders));
+        }
+        this.stages = List.copyOf(compiledStages);
+    }
+
+    String name() {
+        return definition.name;
+    }
+
+    /**
+     * Identifies the command list across restarts, step indices only carry over while it is unchanged
+     */
+    int signature() {
+        return definition.commands.hashCode();
+    }
+
+    /**
+     * Items for one player: the fixed rewards plus fresh loot rolls
+     */
+    RewardBundle rewardsFor(RandomGenerator random) {
+        if (loot.length == 0) {
+            return rewards;
+        }
+        if (loot.length == 1 && rewards.isEmpty() && lootTimes[0] * loot[0].getRolls() == 1) {
+            return loot[0].rollOnce(random);
+        }
+        RewardBundle.Builder bundle = new RewardBundle.Builder().addAll(rewards);
+        for (int i = 0; i < loot.length; i++) {
+            loot[i].roll(random, lootTimes[i], bundle);
+        }
+        return bundle.build();
+    }
+
+    /**
+     * Rough cost of one fire: global steps run once, the rest and the broadcast once per player
+     */
+    double estimatedCost(int players) {
+        double cost = 0;
+        for (Step step : steps) {
+            cost += step.kind == StepKind.GLOBAL ? 1 : players;
+        }
+        if (definition.broadcastMessage != null && !definition.broadcastMessage.isEmpty()) {
+            cost += players;
+        }
+        return Math.max(1, cost);
+    }
+
+    private static boolean isConsoleCommand(String command) {
+        String cmd = command.trim().toLowerCase();
+        return cmd.startsWith("console:") || cmd.startsWith("server:");
+    }
+
+    /**
+     * An invalid condition is logged and never passes, so a typo can't make an event fire for everyone
+     */
+    private Condition compileCondition(String source, boolean perPlayer) {
+        try {
+            return ConditionLanguage.compile(source, perPlayer);
+        } catch (ConditionException e) {
+            LOGGER.severe("[EventScheduler] Invalid " + (perPlayer ? "playerCondition" : "condition")
+                + " in " + definition.name + ": " + e.getMessage());
+            return Condition.NEVER;
+        }
+    }
+
+    /**
+     * console:stop, server:restart and the like must run on time
+     */
+    private static boolean stopsServer(String command) {
+        if (!isConsoleCommand(command)) {
+            return false;
+        }
+        String cmd = command.trim().toLowerCase();
+        String name = cmd.substring(cmd.indexOf(':') + 1).trim().split("\\s+", 2)[0];
+        return name.equals("stop") || name.equals("restart") || name.equals("shutdown");
+    }
+
+    /**
+     * Add a plain "give <itemId> [quantity]" line to the bundle.
+     * Lines with placeholders stay per-player commands.
+     */
+    private static boolean addGive(RewardBundle.Builder bundle, String command) {
+        if (command.indexOf('{') >= 0) {
+            return false;
+        }
+        String[] parts = command.trim().split("\\s+", 3);
+        if (parts.length < 2 || !parts[0].equalsIgnoreCase("give")) {
+            return false;
+        }
+        int quantity = 1;
+        if (parts.length >= 3) {
+            try {
+                quantity = Integer.parseInt(parts[2]);
+            } catch (NumberFormatException e) {
+                quantity = 1;
+            }
+        }
+        bundle.add(parts[1], quantity);
+        return true;
+    }
+
+    /**
+     * Add a "loot <table> [times]" line. Lines naming an unknown table are
+     * dropped with a warning (they still count as handled).
+     */
+    private boolean addLoot(List<LootTable> lootList, List<Integer> lootTimesList,
+                            Map<String, LootTable> lootTables, String command) {
+        String[] parts = command.trim().split("\\s+", 3);
+        if (parts.length < 2 || !parts[0].equalsIgnoreCase("loot")) {
+            return false;
+        }
+        LootTable table = lootTables.get(parts[1]);
+        if (table == null) {
+            LOGGER.warning("[EventScheduler] Unknown loot table in " + definition.name + ": " + parts[1]);
+            return true;
+        }
+        int times = 1;
+        if (parts.length >= 3) {
+            try {
+                times = Math.max(1, Integer.parseInt(parts[2]));
+            } catch (NumberFormatException e) {
+                times = 1;
+            }
+        }
+        lootList.add(table);
+        lootTimesList.add(times);
+        return true;
+    }
+}
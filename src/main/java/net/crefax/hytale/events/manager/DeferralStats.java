@@ -0,0 +1,73 @@
+package net.crefax.hytale.events.manager;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Deferral Stats
+ *
+ * How much adaptive mode held fires back while the server was overloaded.
+ *
+ * @author Crefax
+ */
+public final class DeferralStats {
+
+    private final AtomicLong deferredFires = new AtomicLong();
+    private final AtomicLong forcedFires = new AtomicLong();
+    private final AtomicLong supersededFires = new AtomicLong();
+    private final AtomicLong totalDeferralMillis = new AtomicLong();
+    private final AtomicLong longestDeferralMillis = new AtomicLong();
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    void deferred() {
+        deferredFires.incrementAndGet();
+        waiting.incrementAndGet();
+    }
+
+    /**
+     * A deferred fire runs now
+     *
+     * @param forced the deferral limit was reached while still overloaded
+     */
+    void released(long deferralMillis, boolean forced) {
+        waiting.decrementAndGet();
+        if (forced) forcedFires.incrementAndGet();
+        totalDeferralMillis.addAndGet(deferralMillis);
+        longestDeferralMillis.accumulateAndGet(deferralMillis, Math::max);
+    }
+
+    /**
+     * A fire was dropped because an earlier fire of the same event is still deferred
+     */
+    void superseded() {
+        supersededFires.incrementAndGet();
+    }
+
+    /** Fires that were held back at least once */
+    public long getDeferredFires() {
+        return deferredFires.get();
+    }
+
+    /** Deferred fires that ran because they hit maxDeferralSeconds */
+    public long getForcedFires() {
+        return forcedFires.get();
+    }
+
+    /** Fires dropped while an earlier fire of the same event was still held back */
+    public long getSupersededFires() {
+        return supersededFires.get();
+    }
+
+    public long getTotalDeferralMillis() {
+        return totalDeferralMillis.get();
+    }
+
+    public long getLongestDeferralMillis() {
+        return longestDeferralMillis.get();
+    }
+
+    /** Fires held back right now */
+    public int getWaiting() {
+        return waiting.get();
+    }
+}
@@ -0,0 +1,124 @@
+package net.crefax.hytale.events.manager;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Event Workers
+ *
+ * Execution threads for event fires, separate from the timing thread.
+ * Work is sharded by event name over single-threaded workers: one event
+ * always lands on the same worker, so it never runs concurrently with
+ * itself, while different events can run in parallel.
+ *
+ * With zero workers everything runs inline on the caller's thread, which
+ * is what virtual-time simulations use.
+ *
+ * Once shutdown has begun, new tasks are dropped: timers that were already
+ * due and players joining during shutdown must not fail on a stopped
+ * executor.
+ *
+ * @author Crefax
+ */
+final class EventWorkers {
+
+    private static final Logger LOGGER = Logger.getLogger("EventScheduler");
+
+    private final ThreadPoolExecutor[] shards;
+    private volatile boolean closed;
+
+    EventWorkers(int threads) {
+        this.shards = new ThreadPoolExecutor[Math.max(0, threads)];
+        for (int i = 0; i < shards.length; i++) {
+            String name = "EventScheduler-Worker-" + (i + 1);
+            shards[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), r -> {
+                Thread thread = new Thread(r, name);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * Run a task on the worker that owns the key
+     */
+    void execute(String key, Runnable task) {
+        if (closed) {
+            LOGGER.fine("[EventScheduler] Worker task dropped, shutting down: " + key);
+            return;
+        }
+        if (shards.length == 0) {
+            task.run();
+            return;
+        }
+        try {
+            shards[shardOf(key)].execute(() -> {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    LOGGER.severe("[EventScheduler] Worker task error: " + key + " - " + e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Shutdown began after the check above
+            LOGGER.fine("[EventScheduler] Worker task dropped, shutting down: " + key);
+        }
+    }
+
+    int shardOf(String key) {
+        return Math.floorMod(key.hashCode(), shards.length);
+    }
+
+    /**
+     * Tasks waiting per worker (not counting the one running)
+     */
+    int[] queueDepths() {
+        int[] depths = new int[shards.length];
+        for (int i = 0; i < shards.length; i++) {
+            depths[i] = shards[i].getQueue().size();
+        }
+        return depths;
+    }
+
+    int size() {
+        return shards.length;
+    }
+
+    /**
+     * Stop taking tasks and wait up to the timeout for the queued ones to
+     * finish. Returns whether they all did; unlike {@link #shutdown} this
+     * never interrupts a running task.
+     */
+    boolean drain(long timeout, TimeUnit unit) {
+        closed = true;
+        for (ThreadPoolExecutor shard : shards) {
+            shard.shutdown();
+        }
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        try {
+            for (ThreadPoolExecutor shard : shards) {
+                if (!shard.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                    return false;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Let queued fires finish, up to the timeout; then interrupt what is
+     * still running and discard what is still queued
+     */
+    void shutdown(long timeout, TimeUnit unit) {
+        if (drain(timeout, unit)) return;
+        for (ThreadPoolExecutor shard : shards) {
+            shard.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package net.crefax.hytale.events.manager;
+
+/**
+ * Fire Listener
+ *
+ * Called after an event has been executed.
+ *
+ * @author Crefax
+ */
+public interface FireListener {
+
+    /**
+     * @param eventName     the event that fired
+     * @param timeMillis    scheduler time of the fire
+     * @param playerCount   number of targeted players
+     * @param manual        true if triggered with /eventstrigger
+     * @param durationNanos wall time spent executing the event
+     */
+    void onFire(String eventName, long timeMillis, int playerCount, boolean manual, long durationNanos);
+}
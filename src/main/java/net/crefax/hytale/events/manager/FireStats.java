@@ -0,0 +1,115 @@
+package net.crefax.hytale.events.manager;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fire Stats
+ *
+ * Counters for a single event fire. Debug mode logs them as one summary
+ * line per event instead of one line per player and command.
+ *
+ * Lines handed to the command queue are counted when the queue sends
+ * them, possibly on another thread and after the fire itself returned.
+ * Their outcome is kept apart and added to the counters once the last one
+ * is sent, then the fire's completion (audit, history) runs.
+ *
+ * @author Crefax
+ */
+final class FireStats {
+
+    int rewardGrants;
+    int commands;
+    int messages;
+    int failures;
+    /** Players whose rewards or commands failed, only allocated once one does */
+    Set<UUID> failedPlayers;
+
+    // One for the fire itself, plus one per line still in the command queue
+    private final AtomicInteger outstanding = new AtomicInteger(1);
+    private final AtomicInteger queuedCommands = new AtomicInteger();
+    private final AtomicInteger queuedGrants = new AtomicInteger();
+    private final AtomicInteger queuedFailures = new AtomicInteger();
+    private volatile Runnable completion;
+    private Set<UUID> queuedFailedPlayers; // guarded by this
+
+    /**
+     * A reward or per-player command failed; the player did not get the fire
+     */
+    void playerFailed(UUID player) {
+        failures++;
+        if (failedPlayers == null) {
+            failedPlayers = new HashSet<>();
+        }
+        failedPlayers.add(player);
+    }
+
+    /**
+     * Whether lines of this fire are waiting in the command queue; later
+     * lines of the fire queue behind them to keep their order
+     */
+    boolean hasQueued() {
+        return outstanding.get() > 1;
+    }
+
+    /**
+     * A line of this fire went into the command queue
+     */
+    void queued() {
+        outstanding.incrementAndGet();
+    }
+
+    /**
+     * The command queue sent (or failed to send) a line or reward grant of this fire for a player
+     */
+    void dispatched(UUID player, boolean reward, boolean success) {
+        if (success) {
+            (reward ? queuedGrants : queuedCommands).incrementAndGet();
+        } else {
+            queuedFailures.incrementAndGet();
+            synchronized (this) {
+                if (queuedFailedPlayers == null) {
+                    queuedFailedPlayers = new HashSet<>();
+                }
+                queuedFailedPlayers.add(player);
+            }
+        }
+        release();
+    }
+
+    /**
+     * The fire is done; run the completion once its queued lines are sent too
+     */
+    void complete(Runnable completion) {
+        this.completion = completion;
+        release();
+    }
+
+    private void release() {
+        if (outstanding.decrementAndGet() != 0) return;
+        // Every writer is done, the decrement to zero orders their updates before this
+        commands += queuedCommands.get();
+        rewardGrants += queuedGrants.get();
+        failures += queuedFailures.get();
+        synchronized (this) {
+            if (queuedFailedPlayers != null) {
+                if (failedPlayers == null) {
+                    failedPlayers = new HashSet<>();
+                }
+                failedPlayers.addAll(queuedFailedPlayers);
+            }
+        }
+        Runnable done = completion;
+        if (done != null) done.run();
+    }
+
+    @Override
+    public String toString() {
+        int queued = outstanding.get() - 1;
+        return rewardGrants + " reward grant(s), " + commands + " command(s), "
+                + messages + " message(s), " + failures + " failure(s)"
+                + (queued > 0 ? ", " + queued + " queued" : "");
+    }
+}
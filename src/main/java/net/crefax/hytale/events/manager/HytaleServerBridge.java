@@ -0,0 +1,74 @@
+package net.crefax.hytale.events.manager;
+
+import com.hypixel.hytale.server.core.HytaleServer;
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.command.system.CommandManager;
+import com.hypixel.hytale.server.core.console.ConsoleSender;
+import com.hypixel.hytale.server.core.inventory.ItemStack;
+import com.hypixel.hytale.server.core.inventory.container.ItemContainer;
+import com.hypixel.hytale.server.core.inventory.transaction.ItemStackTransaction;
+import com.hypixel.hytale.server.core.inventory.transaction.ListTransaction;
+
+import net.crefax.hytale.events.player.OnlinePlayer;
+import net.crefax.hytale.events.player.PlayerSelection;
+import net.crefax.hytale.events.reward.RewardBundle;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hytale Server Bridge
+ *
+ * {@link ServerBridge} backed by the running Hytale server.
+ *
+ * @author Crefax
+ */
+public class HytaleServerBridge implements ServerBridge {
+
+    @Override
+    public void sendMessage(OnlinePlayer player, String text) {
+        player.getPlayer().sendMessage(Message.raw(text));
+    }
+
+    @Override
+    public void broadcast(PlayerSelection players, String text) {
+        Message msg = Message.raw(text);
+        for (int i = 0; i < players.size(); i++) {
+            players.get(i).getPlayer().sendMessage(msg);
+        }
+    }
+
+    @Override
+    public RewardBundle giveItems(OnlinePlayer player, RewardBundle items) {
+        if (items.isEmpty()) return RewardBundle.EMPTY;
+
+        List<ItemStack> stacks = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            stacks.add(new ItemStack(items.getItemId(i), items.getQuantity(i)));
+        }
+
+        ItemContainer storage = player.getPlayer().getInventory().getStorage();
+        ListTransaction<ItemStackTransaction> transaction = storage.addItemStacks(stacks);
+
+        RewardBundle.Builder overflow = new RewardBundle.Builder();
+        if (transaction != null && transaction.getList() != null) {
+            for (ItemStackTransaction result : transaction.getList()) {
+                ItemStack remainder = result.getRemainder();
+                if (remainder != null && remainder.getQuantity() > 0) {
+                    overflow.add(remainder.getItemId(), remainder.getQuantity());
+                }
+            }
+        }
+        return overflow.build();
+    }
+
+    @Override
+    public void dispatchCommand(OnlinePlayer sender, String command) {
+        CommandManager commandManager = HytaleServer.get().getCommandManager();
+        if (sender != null) {
+            commandManager.handleCommand(sender.getRef(), command);
+        } else {
+            commandManager.handleCommand(ConsoleSender.INSTANCE, command);
+        }
+    }
+}
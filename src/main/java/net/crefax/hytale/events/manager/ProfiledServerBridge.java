@@ -0,0 +1,57 @@
+package net.crefax.hytale.events.manager;
+
+import net.crefax.hytale.events.jfr.CommandDispatch;
+import net.crefax.hytale.events.player.OnlinePlayer;
+import net.crefax.hytale.events.player.PlayerSelection;
+import net.crefax.hytale.events.reward.RewardBundle;
+
+/**
+ * Profiled Server Bridge
+ *
+ * Wraps the real bridge and records every call as a {@link CommandDispatch}
+ * flight recorder event. While that event type isn't recorded the wrapper
+ * only costs the extra call.
+ *
+ * @author Crefax
+ */
+final class ProfiledServerBridge implements ServerBridge {
+
+    private final ServerBridge delegate;
+
+    ProfiledServerBridge(ServerBridge delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void sendMessage(OnlinePlayer player, String text) {
+        CommandDispatch jfr = new CommandDispatch();
+        jfr.begin();
+        delegate.sendMessage(player, text);
+        jfr.end("message", text, 1, 0);
+    }
+
+    @Override
+    public void broadcast(PlayerSelection players, String text) {
+        CommandDispatch jfr = new CommandDispatch();
+        jfr.begin();
+        delegate.broadcast(players, text);
+        jfr.end("broadcast", text, players.size(), 0);
+    }
+
+    @Override
+    public RewardBundle giveItems(OnlinePlayer player, RewardBundle items) {
+        CommandDispatch jfr = new CommandDispatch();
+        jfr.begin();
+        RewardBundle overflow = delegate.giveItems(player, items);
+        jfr.end("items", "", 1, items.size());
+        return overflow;
+    }
+
+    @Override
+    public void dispatchCommand(OnlinePlayer sender, String command) {
+        CommandDispatch jfr = new CommandDispatch();
+        jfr.begin();
+        delegate.dispatchCommand(sender, command);
+        jfr.end(sender != null ? "player" : "console", command, sender != null ? 1 : 0, 0);
+    }
+}
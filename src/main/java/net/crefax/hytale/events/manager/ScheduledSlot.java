@@ -0,0 +1,80 @@
+package net.crefax.hytale.events.manager;
+
+import net.crefax.hytale.events.config.EventConfig.ScheduledEvent;
+import net.crefax.hytale.events.time.ZoneCalendar;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.function.LongFunction;
+
+/**
+ * Scheduled Slot
+ *
+ * One time of a scheduled event on the scheduler's timeline. The next
+ * fire and its countdown announcements are delayed tasks on the clock;
+ * when the fire runs, the slot is armed again for the following day.
+ * Local times are read in the event's zone, through the calendar all
+ * slots of that zone share.
+ *
+ * @author Crefax
+ */
+final class ScheduledSlot {
+
+    final ScheduledEvent event;
+    final String time;
+    final LocalTime localTime;
+    final ZoneCalendar calendar;
+    long fireAt;  // epoch millis of the armed fire, guarded by this
+    private final List<ScheduledFuture<?>> tasks = new ArrayList<>();
+    private boolean cancelled;
+
+    ScheduledSlot(ScheduledEvent event, String time, ZoneCalendar calendar) {
+        this.event = event;
+        this.time = time;
+        this.localTime = LocalTime.parse(time);
+        this.calendar = calendar;
+    }
+
+    /**
+     * First occurrence at or after the given time. A time skipped by a DST
+     * gap has no occurrence that day, one repeated by a DST overlap only
+     * its first.
+     */
+    long nextOccurrence(long fromMillis) {
+        LocalDate date = calendar.dateOf(fromMillis);
+        for (int day = 0; ; day++) {
+            long millis = calendar.epochMillis(date.plusDays(day), localTime);
+            if (millis != ZoneCalendar.NO_TIME && millis >= fromMillis) return millis;
+        }
+    }
+
+    /**
+     * Replace the tasks of the previous occurrence with the ones scheduled
+     * for fireAt. Scheduling happens under the slot's lock, so a task that
+     * is due right away still finds the slot armed for it.
+     */
+    synchronized void arm(long fireAt, LongFunction<List<ScheduledFuture<?>>> schedule) {
+        if (cancelled) return;
+        this.fireAt = fireAt;
+        tasks.clear();
+        tasks.addAll(schedule.apply(fireAt));
+    }
+
+    /**
+     * Whether the fire for this occurrence should still happen
+     */
+    synchronized boolean isArmedFor(long fireAt) {
+        return !cancelled && this.fireAt == fireAt;
+    }
+
+    synchronized void cancel() {
+        cancelled = true;
+        for (ScheduledFuture<?> task : tasks) {
+            task.cancel(false);
+        }
+        tasks.clear();
+    }
+}
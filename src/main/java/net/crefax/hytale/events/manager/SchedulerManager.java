@@ -1,233 +1,1449 @@
 package net.crefax.hytale.events.manager;
 
-import com.hypixel.hytale.server.core.Message;
-import com.hypixel.hytale.server.core.HytaleServer;
-import com.hypixel.hytale.server.core.command.system.CommandManager;
-import com.hypixel.hytale.server.core.console.ConsoleSender;
 import com.hypixel.hytale.server.core.entity.entities.Player;
-import com.hypixel.hytale.server.core.inventory.Inventory;
-import com.hypixel.hytale.server.core.inventory.ItemStack;
-import com.hypixel.hytale.server.core.inventory.container.ItemContainer;
 import com.hypixel.hytale.server.core.universe.PlayerRef;
 
 import net.crefax.hytale.events.EventSchedulerMod;
+import net.crefax.hytale.events.audit.RewardAudit;
+import net.crefax.hytale.events.cluster.ClusterCoordinator;
+import net.crefax.hytale.events.cluster.FileLeaseBackend;
+import net.crefax.hytale.events.condition.Condition;
+import net.crefax.hytale.events.condition.ConditionContext;
 import net.crefax.hytale.events.config.EventConfig;
+import net.crefax.hytale.events.config.EventConfig.EventDefinition;
 import net.crefax.hytale.events.config.EventConfig.IntervalEvent;
+import net.crefax.hytale.events.config.EventConfig.LootEntry;
+import net.crefax.hytale.events.config.EventConfig.LootTableDefinition;
 import net.crefax.hytale.events.config.EventConfig.ScheduledEvent;
+import net.crefax.hytale.events.history.ExecutionHistory;
+import net.crefax.hytale.events.i18n.I18nManager;
+import net.crefax.hytale.events.jfr.ConfigReload;
+import net.crefax.hytale.events.jfr.EventFire;
+import net.crefax.hytale.events.jfr.PlayerDispatch;
+import net.crefax.hytale.events.mailbox.RewardMailbox;
+import net.crefax.hytale.events.mailbox.RewardMailbox.PendingReward;
+import net.crefax.hytale.events.placeholder.PlaceholderContext;
+import net.crefax.hytale.events.placeholder.PlaceholderRegistry;
+import net.crefax.hytale.events.placeholder.PlaceholderResolver.Scope;
+import net.crefax.hytale.events.player.OnlinePlayer;
+import net.crefax.hytale.events.player.PlayerRegistry;
+import net.crefax.hytale.events.player.PlayerSelection;
+import net.crefax.hytale.events.player.PlayerSnapshot;
+import net.crefax.hytale.events.playtime.PlaytimeTracker;
+import net.crefax.hytale.events.resume.DistributionJournal;
+import net.crefax.hytale.events.resume.DistributionJournal.PendingFire;
+import net.crefax.hytale.events.reward.LootTable;
+import net.crefax.hytale.events.reward.RewardBundle;
+import net.crefax.hytale.events.reward.RewardOverflowHandler;
+import net.crefax.hytale.events.time.PhasePlanner;
+import net.crefax.hytale.events.time.SchedulerClock;
+import net.crefax.hytale.events.time.SystemSchedulerClock;
+import net.crefax.hytale.events.time.TickHealthMonitor;
+import net.crefax.hytale.events.time.ZoneCalendar;
 
-import java.time.LocalTime;
-import java.time.ZoneId;
-import java.time.format.DateTimeFormatter;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
-import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.random.RandomGenerator;
 
 /**
  * Scheduler Manager
  * 
  * Manages interval and time-based events.
  * 
+ * All time access goes through a {@link SchedulerClock} and all server
+ * access through a {@link ServerBridge}, so the same scheduler can also
+ * run in virtual time against simulated players.
+ * 
  * @author Crefax
  */
 public class SchedulerManager {
 
     private static final Logger LOGGER = Logger.getLogger("EventScheduler");
+    private static final long DEFER_RETRY_MILLIS = 1000;
+    // Data files, inside the config's data folder
+    private static final String MAILBOX_FOLDER = "mailbox";
+    private static final String AUDIT_FOLDER = "audit";
+    private static final String PLAYTIME_FILE = "playtime.dat";
+    private static final String PENDING_FIRES_FILE = "pending-fires.dat";
     
     private final EventSchedulerMod plugin;
     private final EventConfig config;
-    private final ScheduledExecutorService scheduler;
+    private final SchedulerClock clock;
+    private final ServerBridge bridge;
     private final Map<String, ScheduledFuture<?>> runningIntervalTasks = new HashMap<>();
-    private final Map<String, Long> lastExecutionTime = new HashMap<>();
-    private final Map<UUID, Player> onlinePlayers = new ConcurrentHashMap<>();
-    private ScheduledFuture<?> timeCheckerTask;
-    private boolean running = true;
+    private final Map<String, List<ScheduledSlot>> scheduledSlots = new ConcurrentHashMap<>();
+    private final PlayerRegistry playerRegistry;
+    private final Map<String, CompiledEvent> compiledEvents = new ConcurrentHashMap<>();
+    private volatile Map<String, LootTable> lootTables = Map.of();
+    private volatile RewardOverflowHandler overflowHandler = RewardOverflowHandler.DROP;
+    private RewardOverflowHandler configuredOverflowHandler = RewardOverflowHandler.DROP; // from rewardOverflow
+    private RewardOverflowHandler customOverflowHandler; // set by another plugin, survives reloads
+    private RewardMailbox mailbox;
+    private RewardAudit audit;
+    private volatile ClusterCoordinator cluster;
+    private ScheduledFuture<?> auditPruneTask;
+    private final BroadcastAggregator broadcasts;
+    private final CommandDispatchQueue commandQueue = new CommandDispatchQueue();
+    private ScheduledFuture<?> mailboxCompactionTask;
+    private ScheduledFuture<?> commandDrainTask;
+    private volatile boolean running = true;
+    private volatile boolean stopDistributing; // set once the shutdown drain deadline passed
+    private final DistributionJournal journal;
+    private final List<PendingFire> pendingFires = new CopyOnWriteArrayList<>();
+    private final List<FireListener> fireListeners = new CopyOnWriteArrayList<>();
+    private final ExecutionHistory history;
+    private final EventWorkers workers;
+    private final Set<WorkflowRun> workflows = ConcurrentHashMap.newKeySet();
+    private final PlaceholderRegistry placeholders = new PlaceholderRegistry();
+    private final Map<String, AtomicLong> fireCounts = new ConcurrentHashMap<>(); // for {fire_count}, since start
+    private final Map<String, Integer> activeEvents = new ConcurrentHashMap<>(); // executing or mid-workflow, for eventActive()
+    private volatile TickHealthMonitor tickHealth;
+    private volatile PlaytimeTracker playtime;
+    private volatile Map<String, IntervalEvent> playtimeEvents = Collections.emptyMap();
+    private ScheduledFuture<?> playtimeTickTask;
+    private ScheduledFuture<?> playtimeSaveTask;
+    private final DeferralStats deferral = new DeferralStats();
+    private final Map<String, Long> deferredFires = new ConcurrentHashMap<>(); // event name -> intended time of its deferred fire
+    private final AtomicInteger configVersion = new AtomicInteger();
+    private volatile PhasePlanner.Plan phasePlan;
+    private long phaseBaseMillis;
 
     public SchedulerManager(EventSchedulerMod plugin, EventConfig config) {
+        // One timing thread; fires run on the event workers
+        this(plugin, config, new SystemSchedulerClock(1), new HytaleServerBridge(), config.getSettings().workerThreads);
+    }
+
+    /**
+     * Runs every fire inline on the clock's thread (used by simulations).
+     *
+     * @param plugin owning plugin, may be null outside the server (no localized player messages then)
+     */
+    public SchedulerManager(EventSchedulerMod plugin, EventConfig config, SchedulerClock clock, ServerBridge bridge) {
+        this(plugin, config, clock, bridge, 0);
+    }
+
+    /**
+     * @param workerThreads event workers fires are sharded over, 0 to run them on the clock's thread
+     */
+    public SchedulerManager(EventSchedulerMod plugin, EventConfig config, SchedulerClock clock, ServerBridge bridge,
+                            int workerThreads) {
         this.plugin = plugin;
         this.config = config;
-        this.scheduler = Executors.newScheduledThreadPool(2);
+        this.clock = clock;
+        // Every server call shows up as a flight recorder event when recorded
+        this.bridge = new ProfiledServerBridge(bridge);
+        this.playerRegistry = new PlayerRegistry(clock::currentTimeMillis);
+        this.journal = new DistributionJournal(config.getDataDir().resolve(PENDING_FIRES_FILE));
+        this.history = new ExecutionHistory(config.getSettings().historySize);
+        this.workers = new EventWorkers(workerThreads);
+        this.broadcasts = new BroadcastAggregator(clock, this.bridge);
+        broadcasts.setWindow(config.getSettings().broadcastCoalesceMillis);
         
+        registerPlaceholders();
+        compileEvents();
+        configureMailbox();
+        configureAudit();
+        configureCluster();
+        configureTickHealth();
+        resumeDistributions();
         startIntervalEvents();
-        startTimeChecker();
+        startScheduledEvents();
         
         LOGGER.info("[EventScheduler] Scheduler started.");
     }
     
     /**
-     * Register a player
+     * Register a player
+     */
+    public void registerPlayer(Player player) {
+        onPlayerRegistered(playerRegistry.register(player));
+    }
+    
+    /**
+     * Register a prepared player entry (e.g. a simulated player)
+     */
+    public void registerPlayer(OnlinePlayer player) {
+        onPlayerRegistered(playerRegistry.register(player));
+    }
+    
+    private void onPlayerRegistered(OnlinePlayer entry) {
+        LOGGER.log(Level.FINE, "[EventScheduler] Player registered: {0}", entry.getDisplayName());
+        if (!running) {
+            // Shutting down: mailbox and resumed deliveries wait for the next start
+            return;
+        }
+        
+        if (mailbox != null) {
+            if (config.getSettings().mailboxEnabled) {
+                // Only offline rewards need to know who was around recently
+                mailbox.markSeenAsync(entry.getUuid(), clock.currentTimeMillis());
+            }
+            deliverMailbox(entry);
+        }
+        
+        PlaytimeTracker tracker = playtime;
+        if (tracker != null) {
+            tracker.join(entry.getUuid(), entry.getJoinedAt());
+        }
+        
+        if (!pendingFires.isEmpty()) {
+            resumeFor(entry);
+        }
+    }
+    
+    /**
+     * Unregister a player
+     */
+    public void unregisterPlayer(PlayerRef ref) {
+        onPlayerUnregistered(playerRegistry.unregister(ref));
+    }
+    
+    /**
+     * Unregister a player by UUID
+     */
+    public void unregisterPlayer(UUID uuid) {
+        onPlayerUnregistered(playerRegistry.unregister(uuid));
+    }
+    
+    private void onPlayerUnregistered(OnlinePlayer entry) {
+        PlaytimeTracker tracker = playtime;
+        if (entry != null && tracker != null) {
+            tracker.leave(entry.getUuid(), clock.currentTimeMillis());
+        }
+    }
+
+    /**
+     * The built-in placeholders; other plugins add theirs through {@link #getPlaceholders()}
+     */
+    private void registerPlaceholders() {
+        placeholders.register("player", Scope.PLAYER, context -> context.getPlayer().getUsername());
+        placeholders.register("name", Scope.PLAYER, context -> context.getPlayer().getUsername());
+        placeholders.register("uuid", Scope.PLAYER, context -> context.getPlayer().getUuidString());
+        placeholders.register("display_name", Scope.PLAYER, context -> context.getPlayer().getDisplayName());
+        placeholders.register("world", Scope.PLAYER, context -> context.getPlayer().getCurrentWorld());
+        placeholders.register("playtime", Scope.PLAYER, context -> {
+            // Whole minutes, across sessions once playtime is tracked
+            OnlinePlayer player = context.getPlayer();
+            long now = clock.currentTimeMillis();
+            PlaytimeTracker tracker = playtime;
+            long millis = tracker != null ? tracker.getPlaytimeMillis(player.getUuid(), now) : now - player.getJoinedAt();
+            return String.valueOf(Math.max(0, millis) / 60_000L);
+        });
+        placeholders.register("event", Scope.FIRE, PlaceholderContext::getEventName);
+        placeholders.register("fire_count", Scope.FIRE, context -> String.valueOf(context.getFireCount()));
+    }
+
+    /**
+     * Compile all configured events (targeting etc.) once per config load
+     */
+    private void compileEvents() {
+        lootTables = compileLootTables();
+        compiledEvents.clear();
+        for (IntervalEvent event : config.getIntervalEvents()) {
+            compiledEvents.put(event.name, new CompiledEvent(event, lootTables, placeholders));
+        }
+        for (ScheduledEvent event : config.getScheduledEvents()) {
+            compiledEvents.put(event.name, new CompiledEvent(event, lootTables, placeholders));
+        }
+    }
+    
+    /**
+     * Build the alias tables for all configured loot tables
+     */
+    private Map<String, LootTable> compileLootTables() {
+        Map<String, LootTable> tables = new HashMap<>();
+        for (Map.Entry<String, LootTableDefinition> entry : config.getLootTables().entrySet()) {
+            List<LootEntry> entries = entry.getValue().entries;
+            String[] items = new String[entries.size()];
+            int[] amounts = new int[entries.size()];
+            double[] weights = new double[entries.size()];
+            for (int i = 0; i < entries.size(); i++) {
+                items[i] = entries.get(i).item;
+                amounts[i] = entries.get(i).amount;
+                weights[i] = entries.get(i).weight;
+            }
+            try {
+                tables.put(entry.getKey(), new LootTable(entry.getKey(), items, amounts, weights, entry.getValue().rolls));
+            } catch (IllegalArgumentException e) {
+                LOGGER.warning("[EventScheduler] Loot table skipped: " + e.getMessage());
+            }
+        }
+        return tables;
+    }
+    
+    private CompiledEvent compiled(EventDefinition event) {
+        CompiledEvent compiled = compiledEvents.get(event.name);
+        if (compiled == null || compiled.definition != event) {
+            compiled = new CompiledEvent(event, lootTables, placeholders);
+            compiledEvents.put(event.name, compiled);
+        }
+        return compiled;
+    }
+
+    /**
+     * Open or close the reward mailbox according to the settings. It is open
+     * for offline rewards (mailboxEnabled) and for inventory overflow
+     * (rewardOverflow "mailbox"); joining players collect it in both cases.
+     * Without a rewardOverflow, overflow goes to the mailbox only if it is
+     * enabled anyway, so a default install creates no mailbox files.
+     */
+    private void configureMailbox() {
+        EventConfig.Settings settings = config.getSettings();
+        boolean overflowToMailbox = settings.rewardOverflow.isEmpty()
+                ? settings.mailboxEnabled : !"drop".equalsIgnoreCase(settings.rewardOverflow);
+        boolean wanted = settings.mailboxEnabled || overflowToMailbox;
+        
+        if (wanted && mailbox == null) {
+            RewardMailbox opened = new RewardMailbox(config.getDataDir().resolve(MAILBOX_FOLDER), settings.mailboxRetentionDays);
+            try {
+                opened.open();
+                mailbox = opened;
+                mailboxCompactionTask = clock.scheduleAtFixedRate(() -> opened.compactAsync(clock.currentTimeMillis()), 10, 10, TimeUnit.MINUTES);
+            } catch (Exception e) {
+                LOGGER.severe("[EventScheduler] Mailbox could not be opened: " + e.getMessage());
+                opened.close();
+            }
+        } else if (!wanted && mailbox != null) {
+            closeMailbox();
+        }
+        
+        if (overflowToMailbox && mailbox != null) {
+            RewardMailbox target = mailbox;
+            applyOverflowPolicy((player, eventName, overflow) ->
+                target.storeAsync(player.getUuid(), eventName, overflow, clock.currentTimeMillis()));
+        } else {
+            applyOverflowPolicy(RewardOverflowHandler.DROP);
+        }
+    }
+    
+    private synchronized void applyOverflowPolicy(RewardOverflowHandler configured) {
+        configuredOverflowHandler = configured;
+        overflowHandler = customOverflowHandler != null ? customOverflowHandler : configured;
+    }
+    
+    /**
+     * Open or close the reward audit log according to the settings
+     */
+    private void configureAudit() {
+        EventConfig.Settings settings = config.getSettings();
+        
+        if (settings.auditEnabled && audit == null) {
+            RewardAudit opened = new RewardAudit(config.getDataDir().resolve(AUDIT_FOLDER), settings.auditRetentionDays);
+            try {
+                opened.open();
+                audit = opened;
+                auditPruneTask = clock.scheduleAtFixedRate(() -> opened.pruneAsync(clock.currentTimeMillis()), 1, 60, TimeUnit.MINUTES);
+            } catch (Exception e) {
+                LOGGER.severe("[EventScheduler] Reward audit could not be opened: " + e.getMessage());
+                opened.close();
+            }
+        } else if (!settings.auditEnabled && audit != null) {
+            closeAudit();
+        }
+    }
+    
+    /**
+     * Join or leave the cluster according to the settings. A changed directory,
+     * node id or lease time takes effect after leaving and joining again.
+     */
+    private void configureCluster() {
+        EventConfig.Settings settings = config.getSettings();
+        
+        if (settings.clusterMode && cluster == null) {
+            if (settings.clusterDirectory == null || settings.clusterDirectory.isEmpty()) {
+                LOGGER.severe("[EventScheduler] clusterMode needs a clusterDirectory, console commands run on this node.");
+                return;
+            }
+            try {
+                String nodeId = settings.clusterNodeId != null && !settings.clusterNodeId.isEmpty()
+                    ? settings.clusterNodeId : ClusterCoordinator.defaultNodeId();
+                ClusterCoordinator coordinator = new ClusterCoordinator(nodeId,
+                    new FileLeaseBackend(Paths.get(settings.clusterDirectory)), clock, settings.clusterLeaseSeconds * 1000L);
+                coordinator.start();
+                cluster = coordinator;
+            } catch (Exception e) {
+                LOGGER.severe("[EventScheduler] Cluster lease could not be set up: " + e.getMessage());
+            }
+        } else if (!settings.clusterMode && cluster != null) {
+            closeCluster();
+        }
+    }
+    
+    private void configureTickHealth() {
+        boolean enabled = config.getSettings().adaptiveDeferral;
+        if (tickHealth != null) {
+            tickHealth.stop();
+            tickHealth = null;
+        }
+        if (enabled) {
+            // The command drain (and with workerThreads 0 every fire) runs on the timing thread, so the probe gets its own
+            boolean ownThread = clock instanceof SystemSchedulerClock;
+            SchedulerClock probeClock = ownThread ? new SystemSchedulerClock(1) : clock;
+            TickHealthMonitor monitor = new TickHealthMonitor(probeClock, ownThread, config.getSettings().adaptiveTickMillis);
+            monitor.start();
+            tickHealth = monitor;
+        }
+    }
+    
+    private void closeCluster() {
+        if (cluster != null) {
+            cluster.stop();
+            cluster = null;
+        }
+    }
+    
+    private void closeAudit() {
+        if (auditPruneTask != null) {
+            auditPruneTask.cancel(false);
+            auditPruneTask = null;
+        }
+        if (audit != null) {
+            audit.close();
+            audit = null;
+        }
+    }
+    
+    private void closeMailbox() {
+        if (mailboxCompactionTask != null) {
+            mailboxCompactionTask.cancel(false);
+            mailboxCompactionTask = null;
+        }
+        if (mailbox != null) {
+            mailbox.close();
+            mailbox = null;
+        }
+    }
+    
+    /**
+     * Deliver pending mailbox rewards to a player who just joined. Reading
+     * the mailbox happens on its own thread, so the join path never waits;
+     * the grant runs on the player's worker and is confirmed to the mailbox
+     * only once it succeeded.
+     */
+    private void deliverMailbox(OnlinePlayer player) {
+        RewardMailbox target = mailbox;
+        target.takeAsync(player.getUuid()).thenAccept(rewards -> {
+            if (rewards.isEmpty()) return;
+            workers.execute(player.getUuidString(), () -> grantMailbox(target, player, rewards));
+        });
+    }
+
+    private void grantMailbox(RewardMailbox target, OnlinePlayer player, List<PendingReward> rewards) {
+        RewardBundle.Builder items = new RewardBundle.Builder();
+        for (PendingReward reward : rewards) {
+            items.add(reward.itemId, reward.quantity);
+        }
+        RewardBundle bundle = items.build();
+        RewardBundle overflow;
+        try {
+            overflow = bridge.giveItems(player, bundle);
+        } catch (Exception e) {
+            LOGGER.warning("[EventScheduler] Mailbox delivery error: " + player.getUsername() + " - " + e.getMessage());
+            // Nothing was confirmed, the rewards stay for the next login
+            target.releaseAsync(player.getUuid());
+            return;
+        }
+        // What did not fit is kept for the next login
+        target.confirmAsync(player.getUuid(), rewards.size(), overflow, clock.currentTimeMillis());
+
+        I18nManager i18n = i18n();
+        if (i18n != null) {
+            String text = i18n.getMessageForLocale(player.getLocale(), "mailbox.delivered",
+                String.valueOf(bundle.size() - overflow.size()));
+            bridge.sendMessage(player, i18n.getMessageForLocale(player.getLocale(), "prefix") + text);
+        }
+    }
+    
+    private I18nManager i18n() {
+        return plugin != null ? plugin.getI18n() : null;
+    }
+
+    /**
+     * Start interval-based events
+     */
+    private void startIntervalEvents() {
+        planPhases();
+        for (IntervalEvent event : config.getIntervalEvents()) {
+            if (event.enabled && !event.playtime) {
+                scheduleIntervalEvent(event);
+            }
+        }
+        configurePlaytime();
+    }
+
+    /**
+     * Hand the enabled playtime events to the tracker. The tracker and its
+     * once-a-second tick only exist once a playtime event was configured.
+     */
+    private void configurePlaytime() {
+        Map<String, Integer> intervals = new LinkedHashMap<>();
+        Map<String, IntervalEvent> events = new HashMap<>();
+        for (IntervalEvent event : config.getIntervalEvents()) {
+            if (event.enabled && event.playtime) {
+                intervals.put(event.name, event.interval);
+                events.put(event.name, event);
+            }
+        }
+        playtimeEvents = events;
+        long now = clock.currentTimeMillis();
+        PlaytimeTracker tracker = playtime;
+        if (tracker != null) {
+            tracker.setEvents(intervals, now);
+            return;
+        }
+        if (intervals.isEmpty()) return;
+        
+        tracker = new PlaytimeTracker(config.getDataDir().resolve(PLAYTIME_FILE), now);
+        try {
+            tracker.load();
+        } catch (Exception e) {
+            // Starting empty would overwrite everyone's playtime on the next save
+            LOGGER.severe("[EventScheduler] Playtime could not be read, playtime events are off: " + e.getMessage());
+            return;
+        }
+        tracker.setEvents(intervals, now);
+        playtime = tracker;
+        PlayerSnapshot online = playerRegistry.snapshot();
+        for (int i = 0; i < online.size(); i++) {
+            tracker.join(online.get(i).getUuid(), online.get(i).getJoinedAt());
+        }
+        PlaytimeTracker started = tracker;
+        playtimeTickTask = clock.scheduleAtFixedRate(this::tickPlaytime, 1, 1, TimeUnit.SECONDS);
+        playtimeSaveTask = clock.scheduleAtFixedRate(() -> savePlaytime(started), 5, 5, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Forget players gone for longer than mailboxRetentionDays, then save
+     */
+    private void savePlaytime(PlaytimeTracker tracker) {
+        long now = clock.currentTimeMillis();
+        long horizon = Math.max(1, config.getSettings().mailboxRetentionDays) * 24L * 60 * 60 * 1000;
+        int evicted = tracker.evict(horizon, now);
+        if (evicted > 0 && config.getSettings().debugMode) {
+            LOGGER.info("[EventScheduler] Playtime of " + evicted + " player(s) not seen for "
+                    + config.getSettings().mailboxRetentionDays + " day(s) dropped.");
+        }
+        tracker.saveAsync(now);
+    }
+
+    /**
+     * Once a second: fire each playtime event for the players it became due for
+     */
+    private void tickPlaytime() {
+        PlaytimeTracker tracker = playtime;
+        if (!running || tracker == null) return;
+        try {
+            long now = clock.currentTimeMillis();
+            Map<String, IntervalEvent> events = playtimeEvents;
+            tracker.advance(now).forEach((eventName, uuids) -> {
+                IntervalEvent event = events.get(eventName);
+                if (event != null) {
+                    workers.execute(eventName, () -> executePlaytimeEvent(event, new HashSet<>(uuids), now));
+                }
+            });
+        } catch (Exception e) {
+            LOGGER.severe("[EventScheduler] Playtime tick error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * One fire of a playtime event for the players who reached it in the same
+     * second. Not recorded in history or audit, which are per server fire.
+     * Only players it reached without a failure count it against their
+     * playtime, once the fire's queued lines are sent; the others stay due.
+     */
+    private void executePlaytimeEvent(IntervalEvent event, Set<UUID> due, long intendedAt) {
+        EventFire jfr = new EventFire();
+        jfr.begin();
+        long startNanos = System.nanoTime();
+        long executedAt = clock.currentTimeMillis();
+        CompiledEvent compiled = compiled(event);
+        PlayerSnapshot snapshot = playerRegistry.snapshot();
+        PlayerSelection players = compiled.targets.select(snapshot, executedAt).filter(player -> due.contains(player.getUuid()));
+        
+        ConditionContext conditions = conditionContext(event, snapshot, executedAt);
+        if (players.isEmpty() || !compiled.condition.test(conditions)) return;
+        players = filterPlayers(compiled, players, conditions);
+        
+        FireStats stats = new FireStats();
+        PlaceholderContext context = fireContext(compiled, intendedAt, players);
+        if (compiled.broadcast != null) {
+            broadcastTo(compiled, players, broadcastMessage(compiled, context));
+            stats.messages += players.size();
+        }
+        runSteps(compiled, snapshot, players, stats, true, intendedAt, context);
+        List<UUID> reached = new ArrayList<>(players.size());
+        for (int i = 0; i < players.size(); i++) {
+            reached.add(players.get(i).getUuid());
+        }
+        stats.complete(() -> {
+            if (stats.failedPlayers != null) reached.removeAll(stats.failedPlayers);
+            PlaytimeTracker tracker = playtime;
+            if (tracker != null) tracker.rewarded(event.name, reached, clock.currentTimeMillis());
+        });
+        notifyFired(event.name, players.size(), false, startNanos);
+        jfr.end(event.name, "playtime", players.size(), stats.commands, stats.rewardGrants, stats.failures);
+        
+        if (config.getSettings().debugMode) {
+            LOGGER.log(Level.INFO, "[EventScheduler] Playtime event executed: {0} ({1} player(s), {2})",
+                    new Object[]{event.name, players.size(), stats.toString()});
+        }
+    }
+
+    /**
+     * Pick start offsets for the interval events when phaseStaggering is on
+     */
+    private void planPhases() {
+        ClusterCoordinator coordinator = cluster;
+        long now = clock.currentTimeMillis();
+        // In a cluster every node keeps the same beat, so the n-th fire has the same key everywhere
+        phaseBaseMillis = coordinator != null ? coordinator.getEpoch(now) : now;
+        if (!config.getSettings().phaseStaggering) {
+            phasePlan = null;
+            return;
+        }
+        int players = Math.max(1, playerRegistry.size());
+        List<PhasePlanner.Entry> entries = new ArrayList<>();
+        for (IntervalEvent event : config.getIntervalEvents()) {
+            if (event.playtime) continue;
+            double weight = event.weight > 0 ? event.weight : compiledEvents.get(event.name).estimatedCost(players);
+            entries.add(new PhasePlanner.Entry(event.name, event.interval, weight));
+        }
+        PhasePlanner.Plan plan = PhasePlanner.plan(entries);
+        phasePlan = plan;
+        LOGGER.info(String.format("[EventScheduler] Phase plan: peak %d coincident fire(s) (cost %.0f) before, %d (cost %.0f) after.",
+            plan.peakFiresBefore, plan.peakCostBefore, plan.peakFiresAfter, plan.peakCostAfter));
+        if (config.getSettings().debugMode) {
+            plan.getOffsets().forEach((name, offset) ->
+                LOGGER.info("[EventScheduler] Phase offset: " + name + " +" + offset + "s"));
+        }
+    }
+
+    private void scheduleIntervalEvent(IntervalEvent event) {
+        long periodMillis = event.interval * 1000L;
+        long delayMillis = periodMillis;
+        PhasePlanner.Plan plan = phasePlan;
+        long offset = plan != null ? plan.offsetSeconds(event.name) : -1;
+        if (offset < 0 && cluster != null) {
+            offset = 0;
+        }
+        if (offset >= 0) {
+            // Keep the planned phase even when the event is (re)enabled later
+            long remaining = Math.floorMod(phaseBaseMillis + offset * 1000L - clock.currentTimeMillis(), periodMillis);
+            delayMillis = remaining == 0 ? periodMillis : remaining;
+        }
+        // Fixed-rate runs never overlap, so the next intended time needs no synchronization
+        long[] nextIntendedAt = {clock.currentTimeMillis() + delayMillis};
+        ScheduledFuture<?> task = clock.scheduleAtFixedRate(() -> {
+            if (!running) return;
+            long intendedAt = nextIntendedAt[0];
+            nextIntendedAt[0] += periodMillis;
+            workers.execute(event.name, () -> {
+                try {
+                    fireOrDefer(event, intendedAt, false);
+                } catch (Exception e) {
+                    LOGGER.severe("[EventScheduler] Event execution error: " + e.getMessage());
+                }
+            });
+        }, delayMillis, periodMillis, TimeUnit.MILLISECONDS);
+        
+        runningIntervalTasks.put(event.name, task);
+        LOGGER.info("[EventScheduler] Interval event started: " + event.name + " (every " + event.interval + " seconds)");
+    }
+
+    /**
+     * Queue a per-player line and make sure a drain is scheduled. Returns
+     * false if the queue is full and the line was dropped.
+     */
+    private boolean enqueueCommand(CommandDispatchQueue.Line line, FireStats stats, UUID player) {
+        return enqueue(line, stats, player, false);
+    }
+    
+    private boolean enqueue(CommandDispatchQueue.Line line, FireStats stats, UUID player, boolean reward) {
+        if (!commandQueue.enqueue(line, stats, player, reward, config.getSettings().commandQueueLimit)) {
+            return false;
+        }
+        scheduleCommandDrain();
+        return true;
+    }
+    
+    private synchronized void scheduleCommandDrain() {
+        if (commandDrainTask == null || commandDrainTask.isDone()) {
+            commandDrainTask = clock.schedule(this::drainCommands, 50, TimeUnit.MILLISECONDS);
+        }
+    }
+    
+    /**
+     * Drain queued per-player commands in bounded batches, one batch per server tick (50 ms).
+     * Only scheduled while something is queued.
+     */
+    private void drainCommands() {
+        int perTick = config.getSettings().commandsPerTick;
+        if (perTick <= 0) {
+            // Queueing was switched off (e.g. by a reload), flush the rest
+            perTick = Integer.MAX_VALUE;
+        }
+        try {
+            commandQueue.drain(perTick);
+        } catch (Exception e) {
+            LOGGER.severe("[EventScheduler] Command drain error: " + e.getMessage());
+        }
+        long dropped = commandQueue.takeDropped();
+        if (dropped > 0) {
+            LOGGER.warning("[EventScheduler] Command queue full, " + dropped + " command(s) dropped");
+        }
+        synchronized (this) {
+            commandDrainTask = null;
+            if (commandQueue.size() > 0 && running) {
+                scheduleCommandDrain();
+            }
+        }
+    }
+    
+    /**
+     * Put every enabled scheduled event on the timeline
+     */
+    private void startScheduledEvents() {
+        for (ScheduledEvent event : config.getScheduledEvents()) {
+            if (event.enabled) {
+                startTimeline(event);
+            }
+        }
+    }
+
+    /**
+     * Arm one slot per configured time. Fires and countdowns are delayed
+     * tasks for their exact moment, nothing polls the clock.
+     */
+    private void startTimeline(ScheduledEvent event) {
+        ZoneCalendar calendar = calendarFor(event);
+        List<ScheduledSlot> slots = new ArrayList<>();
+        for (String time : event.times) {
+            try {
+                slots.add(new ScheduledSlot(event, time, calendar));
+            } catch (DateTimeParseException e) {
+                LOGGER.warning("[EventScheduler] Invalid time skipped: " + event.name + " " + time);
+            }
+        }
+        scheduledSlots.put(event.name, slots);
+        long now = clock.currentTimeMillis();
+        for (ScheduledSlot slot : slots) {
+            armSlot(slot, now);
+        }
+    }
+
+    private void cancelTimeline(String eventName) {
+        List<ScheduledSlot> slots = scheduledSlots.remove(eventName);
+        if (slots != null) {
+            slots.forEach(ScheduledSlot::cancel);
+        }
+    }
+
+    /**
+     * Schedule the slot's next occurrence at or after fromMillis, with the
+     * countdowns that are still ahead of us
+     */
+    private void armSlot(ScheduledSlot slot, long fromMillis) {
+        long fireAt = slot.nextOccurrence(fromMillis);
+        slot.arm(fireAt, at -> {
+            long now = clock.currentTimeMillis();
+            String eventName = slot.event.name;
+            List<ScheduledFuture<?>> tasks = new ArrayList<>();
+            for (int seconds : slot.event.countdown) {
+                long announceAt = at - seconds * 1000L;
+                if (announceAt < now) continue;
+                tasks.add(clock.schedule(() -> workers.execute(eventName, () -> announceCountdown(slot.event, seconds)),
+                        announceAt - now, TimeUnit.MILLISECONDS));
+            }
+            tasks.add(clock.schedule(() -> onSlotDue(slot, at), at - now, TimeUnit.MILLISECONDS));
+            return tasks;
+        });
+    }
+
+    /**
+     * Runs on the timing thread at the fire time, then arms the next day
+     */
+    private void onSlotDue(ScheduledSlot slot, long fireAt) {
+        if (!running || !slot.isArmedFor(fireAt)) return;
+        if (clock.currentTimeMillis() < fireAt - 1000) {
+            // The system clock was set back while we waited
+            armSlot(slot, fireAt);
+            return;
+        }
+        ScheduledEvent event = slot.event;
+        workers.execute(event.name, () -> fireOrDefer(event, fireAt, false));
+        armSlot(slot, fireAt + 1);
+    }
+
+    /**
+     * Tell the event's targeted players how soon it starts, in their own language
+     */
+    private void announceCountdown(ScheduledEvent event, int seconds) {
+        I18nManager i18n = i18n();
+        if (!running || i18n == null) return;
+        PlayerSelection players = compiled(event).targets.select(playerRegistry.snapshot(), clock.currentTimeMillis());
+        boolean minutes = seconds >= 60 && seconds % 60 == 0;
+        String key = minutes ? "events.countdown_minutes" : "events.countdown_seconds";
+        String amount = String.valueOf(minutes ? seconds / 60 : seconds);
+        Map<String, String> texts = new HashMap<>();
+        for (int i = 0; i < players.size(); i++) {
+            OnlinePlayer player = players.get(i);
+            String text = texts.computeIfAbsent(player.getLocale(),
+                    locale -> config.getBroadcastPrefix() + i18n.getMessageForLocale(locale, key, event.name, amount));
+            bridge.sendMessage(player, text);
+        }
+    }
+
+    /**
+     * With adaptiveDeferral, hold a non-critical fire back while the server is
+     * overloaded, checking again every second until it recovers or the fire
+     * has waited maxDeferralSeconds. An event has at most one deferred fire:
+     * later fires that come due while it waits are dropped as superseded, so
+     * a deferral longer than the interval doesn't pile up copies.
+     */
+    private void fireOrDefer(EventDefinition event, long intendedAt, boolean deferred) {
+        if (!running) return;
+        TickHealthMonitor monitor = tickHealth;
+        if (monitor != null && !compiled(event).critical) {
+            long waited = Math.max(0, clock.currentTimeMillis() - intendedAt);
+            boolean withinLimit = waited < config.getSettings().maxDeferralSeconds * 1000L;
+            if (monitor.isOverloaded() && withinLimit) {
+                if (!deferred) {
+                    if (deferredFires.putIfAbsent(event.name, intendedAt) != null) {
+                        deferral.superseded();
+                        if (config.getSettings().debugMode) {
+                            LOGGER.log(Level.INFO, "[EventScheduler] {0} dropped: an earlier fire is still deferred", event.name);
+                        }
+                        return;
+                    }
+                    deferral.deferred();
+                    if (config.getSettings().debugMode) {
+                        LOGGER.log(Level.INFO, "[EventScheduler] {0} deferred: server overloaded ({1} ms ticks)",
+                                new Object[]{event.name, Math.round(monitor.getAverageTickMillis())});
+                    }
+                }
+                clock.schedule(() -> workers.execute(event.name, () -> fireOrDefer(event, intendedAt, true)),
+                        DEFER_RETRY_MILLIS, TimeUnit.MILLISECONDS);
+                return;
+            }
+            if (deferred) {
+                deferredFires.remove(event.name, intendedAt);
+                deferral.released(waited, !withinLimit);
+            }
+        } else if (deferred) {
+            // Adaptive mode was switched off while the fire waited
+            deferredFires.remove(event.name, intendedAt);
+            deferral.released(Math.max(0, clock.currentTimeMillis() - intendedAt), false);
+        }
+        executeEvent(event, intendedAt);
+    }
+
+    /**
+     * Execute event - apply commands to all targeted players
+     */
+    private void executeEvent(EventDefinition event, long intendedAt) {
+        EventFire jfr = new EventFire();
+        jfr.begin();
+        long startNanos = System.nanoTime();
+        long executedAt = clock.currentTimeMillis();
+        CompiledEvent compiled = compiled(event);
+        PlayerSnapshot snapshot = playerRegistry.snapshot();
+        
+        // Minimum player check, on the whole server
+        int minPlayers = config.getSettings().minPlayersRequired;
+        if (snapshot.size() < minPlayers) {
+            if (config.getSettings().debugMode) {
+                LOGGER.log(Level.INFO, "[EventScheduler] {0} cancelled: Not enough players ({1}/{2})",
+                        new Object[]{event.name, snapshot.size(), minPlayers});
+            }
+            return;
+        }
+        
+        PlayerSelection players = compiled.targets.select(snapshot, executedAt);
+        int minTargeted = event.targeting != null ? event.targeting.minPlayers : 0;
+        if (players.size() < minTargeted) {
+            if (config.getSettings().debugMode) {
+                LOGGER.log(Level.INFO, "[EventScheduler] {0} cancelled: Not enough targeted players ({1}/{2})",
+                        new Object[]{event.name, players.size(), minTargeted});
+            }
+            return;
+        }
+        
+        ConditionContext conditions = conditionContext(event, snapshot, executedAt);
+        if (!compiled.condition.test(conditions)) {
+            if (config.getSettings().debugMode) {
+                LOGGER.log(Level.INFO, "[EventScheduler] {0} skipped: condition not met ({1})",
+                        new Object[]{event.name, event.condition});
+            }
+            return;
+        }
+        players = filterPlayers(compiled, players, conditions);
+        
+        activate(event.name);
+        try {
+            FireStats stats = fire(event, compiled, snapshot, players, intendedAt, executedAt, startNanos);
+            jfr.end(event.name, "scheduled", players.size(), stats.commands, stats.rewardGrants, stats.failures);
+        } finally {
+            deactivate(event.name);
+        }
+    }
+    
+    private FireStats fire(EventDefinition event, CompiledEvent compiled, PlayerSnapshot snapshot, PlayerSelection players,
+                           long intendedAt, long executedAt, long startNanos) {
+        FireStats stats = new FireStats();
+        PlaceholderContext context = fireContext(compiled, intendedAt, players);
+        
+        // Send broadcast message
+        if (compiled.broadcast != null) {
+            String fullMessage = broadcastMessage(compiled, context);
+            broadcastTo(compiled, players, fullMessage);
+            stats.messages += players.size();
+        }
+        
+        runSteps(compiled, snapshot, players, stats, claimConsoleCommands(compiled, intendedAt, periodMillis(event)), intendedAt,
+                context);
+        long durationNanos = System.nanoTime() - startNanos;
+        // Queued commands count once they are sent
+        stats.complete(() -> {
+            recordAudit(event.name, executedAt, players, stats);
+            history.record(event.name, intendedAt, executedAt, players.size(), stats.failures, durationNanos, false);
+        });
+        notifyFired(event.name, players.size(), false, startNanos);
+        startWorkflow(compiled, intendedAt, false);
+        
+        if (config.getSettings().debugMode) {
+            // One summary line per fire; per-player lines only with debugVerbose
+            LOGGER.log(Level.INFO, "[EventScheduler] Event executed: {0} ({1}/{2} players, {3}, {4} ms)",
+                    new Object[]{event.name, players.size(), snapshot.size(), stats.toString(), (System.nanoTime() - startNanos) / 1_000_000L});
+        }
+        return stats;
+    }
+
+    /**
+     * Execute event manually - bypasses minimum player check and the event
+     * condition, the player condition still applies
+     */
+    private void executeEventManual(EventDefinition event) {
+        EventFire jfr = new EventFire();
+        jfr.begin();
+        long startNanos = System.nanoTime();
+        long executedAt = clock.currentTimeMillis();
+        CompiledEvent compiled = compiled(event);
+        PlayerSnapshot snapshot = playerRegistry.snapshot();
+        PlayerSelection players = compiled.targets.select(snapshot, executedAt);
+        if (compiled.playerCondition != Condition.ALWAYS) {
+            players = filterPlayers(compiled, players, conditionContext(event, snapshot, executedAt));
+        }
+        activate(event.name);
+        try {
+            FireStats stats = fireManual(event, compiled, snapshot, players, executedAt, startNanos);
+            jfr.end(event.name, "manual", players.size(), stats.commands, stats.rewardGrants, stats.failures);
+        } finally {
+            deactivate(event.name);
+        }
+    }
+    
+    private FireStats fireManual(EventDefinition event, CompiledEvent compiled, PlayerSnapshot snapshot, PlayerSelection players,
+                                 long executedAt, long startNanos) {
+        FireStats stats = new FireStats();
+        PlaceholderContext context = fireContext(compiled, executedAt, players);
+        
+        // Send broadcast message first (even if no players)
+        if (compiled.broadcast != null) {
+            String fullMessage = broadcastMessage(compiled, context);
+            broadcastTo(compiled, players, fullMessage);
+            stats.messages += players.size();
+            LOGGER.log(Level.INFO, "[EventScheduler] Broadcast: {0}", fullMessage);
+        }
+        
+        // A manual trigger runs everything on the node it was typed on
+        runSteps(compiled, snapshot, players, stats, true, executedAt, context);
+        long durationNanos = System.nanoTime() - startNanos;
+        stats.complete(() -> {
+            recordAudit(event.name, executedAt, players, stats);
+            history.record(event.name, executedAt, executedAt, players.size(), stats.failures, durationNanos, true);
+        });
+        notifyFired(event.name, players.size(), true, startNanos);
+        startWorkflow(compiled, executedAt, true);
+        
+        LOGGER.log(Level.INFO, "[EventScheduler] Event manually triggered: {0} ({1} players, {2})",
+                new Object[]{event.name, players.size(), stats.toString()});
+        return stats;
+    }
+    
+    /**
+     * Continue an event with stages. Each stage is a delayed task on the
+     * clock that hands off to the event's worker, so a waiting workflow
+     * holds no thread, only its run state.
+     */
+    private void startWorkflow(CompiledEvent compiled, long fireTime, boolean manual) {
+        if (compiled.stages.isEmpty()) return;
+        WorkflowRun run = new WorkflowRun(compiled, fireTime, manual);
+        workflows.add(run);
+        activate(run.getEventName());
+        scheduleStage(run);
+    }
+    
+    private void scheduleStage(WorkflowRun run) {
+        CompiledEvent stage = run.event.stages.get(run.nextStage);
+        run.nextAt = clock.currentTimeMillis() + stage.delaySeconds * 1000L;
+        run.task = clock.schedule(() -> workers.execute(run.getEventName(), () -> runStage(run)),
+                stage.delaySeconds, TimeUnit.SECONDS);
+    }
+    
+    private void runStage(WorkflowRun run) {
+        if (!running) return;
+        CompiledEvent stage = run.event.stages.get(run.nextStage);
+        try {
+            fireStage(run, stage);
+        } catch (Exception e) {
+            LOGGER.severe("[EventScheduler] Stage execution error: " + stage.name() + " - " + e.getMessage());
+        }
+        
+        run.nextStage++;
+        if (run.nextStage < run.event.stages.size() && running) {
+            scheduleStage(run);
+        } else {
+            workflows.remove(run);
+            deactivate(run.getEventName());
+        }
+    }
+    
+    /**
+     * One stage of a workflow. The stage's condition is checked like an
+     * event's; its player condition defaults to the event's.
+     */
+    private void fireStage(WorkflowRun run, CompiledEvent stage) {
+        EventFire jfr = new EventFire();
+        jfr.begin();
+        long startNanos = System.nanoTime();
+        long executedAt = clock.currentTimeMillis();
+        PlayerSnapshot snapshot = playerRegistry.snapshot();
+        ConditionContext conditions = conditionContext(run.event.definition, snapshot, executedAt);
+        // Like a manual fire, a manually started workflow skips the condition but not the player condition
+        if (!run.manual && !stage.condition.test(conditions)) {
+            if (config.getSettings().debugMode) {
+                LOGGER.log(Level.INFO, "[EventScheduler] {0} skipped: condition not met ({1})",
+                        new Object[]{stage.name(), stage.definition.condition});
+            }
+            return;
+        }
+        PlayerSelection players = filterPlayers(stage, stage.targets.select(snapshot, executedAt), conditions);
+        FireStats stats = new FireStats();
+        PlaceholderContext context = fireContext(stage, run.fireTime, players);
+        
+        if (stage.broadcast != null) {
+            broadcastTo(stage, players, broadcastMessage(stage, context));
+            stats.messages += players.size();
+        }
+        
+        // Stage console commands are committed under the workflow's fire, once per stage
+        boolean runConsoleCommands = run.manual
+            || claimConsoleCommands(stage, run.fireTime, periodMillis(run.event.definition));
+        runSteps(stage, snapshot, players, stats, runConsoleCommands, run.fireTime, context);
+        long durationNanos = System.nanoTime() - startNanos;
+        long intendedAt = run.nextAt; // the next stage moves it before the queue may be done
+        stats.complete(() -> {
+            recordAudit(stage.name(), executedAt, players, stats);
+            history.record(stage.name(), intendedAt, executedAt, players.size(), stats.failures,
+                    durationNanos, run.manual);
+        });
+        jfr.end(stage.name(), "stage", players.size(), stats.commands, stats.rewardGrants, stats.failures);
+        
+        if (config.getSettings().debugMode) {
+            LOGGER.log(Level.INFO, "[EventScheduler] Stage executed: {0} ({1}/{2} players, {3})",
+                    new Object[]{stage.name(), players.size(), snapshot.size(), stats.toString()});
+        }
+    }
+    
+    /**
+     * Conditions see the whole server, not just the targeted players
+     */
+    private ConditionContext conditionContext(EventDefinition event, PlayerSnapshot snapshot, long nowMillis) {
+        return new ConditionContext(snapshot.size(),
+                Instant.ofEpochMilli(nowMillis).atZone(calendarFor(event).getZone()), this::isEventActive);
+    }
+    
+    /**
+     * The zone an event's times and conditions are read in: its own
+     * timezone if it has one, the settings timezone otherwise (the config
+     * replaced invalid zones when it loaded)
+     */
+    private ZoneCalendar calendarFor(EventDefinition event) {
+        if (event instanceof ScheduledEvent && !((ScheduledEvent) event).timezone.isEmpty()) {
+            return ZoneCalendar.of(((ScheduledEvent) event).timezone);
+        }
+        return ZoneCalendar.of(config.getSettings().timezone);
+    }
+    
+    private static PlayerSelection filterPlayers(CompiledEvent compiled, PlayerSelection players, ConditionContext context) {
+        Condition condition = compiled.playerCondition;
+        if (condition == Condition.ALWAYS) {
+            return players;
+        }
+        return players.filter(player -> {
+            context.player = player;
+            return condition.test(context);
+        });
+    }
+    
+    private void activate(String eventName) {
+        activeEvents.merge(eventName, 1, Integer::sum);
+    }
+    
+    private void deactivate(String eventName) {
+        activeEvents.computeIfPresent(eventName, (name, count) -> count > 1 ? count - 1 : null);
+    }
+    
+    /**
+     * Whether an event is firing right now or has a workflow waiting for its next stage
+     */
+    public boolean isEventActive(String eventName) {
+        return activeEvents.containsKey(eventName);
+    }
+    
+    /**
+     * In cluster mode only the lease holder runs console:/server: commands,
+     * and only after committing the fire under its fencing token
+     *
+     * @param periodMillis the interval of the event (or the workflow's event), 0 for scheduled events
+     */
+    private boolean claimConsoleCommands(CompiledEvent compiled, long intendedAt, long periodMillis) {
+        ClusterCoordinator coordinator = cluster;
+        if (coordinator == null || !compiled.hasConsoleSteps) {
+            return true;
+        }
+        String fireKey = coordinator.fireKey(compiled.name(), intendedAt, periodMillis);
+        long token = coordinator.claimFire(fireKey);
+        if (config.getSettings().debugMode) {
+            if (token >= 0) {
+                LOGGER.log(Level.INFO, "[EventScheduler] Cluster: {0} committed with token {1}", new Object[]{fireKey, token});
+            } else {
+                LOGGER.log(Level.INFO, "[EventScheduler] Cluster: console commands of {0} left to the leader", fireKey);
+            }
+        }
+        return token >= 0;
+    }
+    
+    private static boolean isPlaytime(EventDefinition event) {
+        return event instanceof IntervalEvent && ((IntervalEvent) event).playtime;
+    }
+    
+    private static long periodMillis(EventDefinition event) {
+        return event instanceof IntervalEvent ? ((IntervalEvent) event).interval * 1000L : 0;
+    }
+    
+    private void recordAudit(String eventName, long executedAt, PlayerSelection players, FireStats stats) {
+        RewardAudit target = audit;
+        if (target != null) {
+            // The selection is an immutable snapshot view, the audit thread reads it later
+            target.recordAsync(eventName, executedAt, players, stats.failedPlayers);
+        }
+    }
+    
+    private void notifyFired(String eventName, int playerCount, boolean manual, long startNanos) {
+        if (fireListeners.isEmpty()) return;
+        long durationNanos = System.nanoTime() - startNanos;
+        long now = clock.currentTimeMillis();
+        for (FireListener listener : fireListeners) {
+            listener.onFire(eventName, now, playerCount, manual, durationNanos);
+        }
+    }
+    
+    /**
+     * The prefixed broadcast message of a fire with its fire placeholders
+     * filled in; as written if a resolver fails
      */
-    public void registerPlayer(Player player) {
-        UUID uuid = player.getPlayerRef().getUuid();
-        onlinePlayers.put(uuid, player);
-        LOGGER.fine("[EventScheduler] Player registered: " + player.getDisplayName());
+    private String broadcastMessage(CompiledEvent compiled, PlaceholderContext context) {
+        String text;
+        try {
+            text = compiled.broadcast.render(context);
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "[EventScheduler] Broadcast placeholder error: {0} - {1}",
+                    new Object[]{compiled.name(), e.getMessage()});
+            text = compiled.broadcast.source;
+        }
+        return config.getBroadcastPrefix() + text;
     }
     
     /**
-     * Unregister a player
+     * Count the fire and start its placeholder context, shared by the
+     * broadcast message and every command line of the fire
      */
-    public void unregisterPlayer(PlayerRef ref) {
-        if (ref != null) {
-            onlinePlayers.remove(ref.getUuid());
-        }
+    private PlaceholderContext fireContext(CompiledEvent compiled, long fireTime, PlayerSelection players) {
+        long fireCount = fireCounts.computeIfAbsent(compiled.name(), name -> new AtomicLong()).incrementAndGet();
+        return new PlaceholderContext(placeholders, compiled.name(), fireTime, fireCount, players.size());
     }
-
+    
     /**
-     * Start interval-based events
+     * Run the compiled command steps of an event in order. The step and
+     * player index are the fire's cursor: once shutdown stops distributing,
+     * the fire is checkpointed at the cursor and resumed on the next start.
      */
-    private void startIntervalEvents() {
-        for (IntervalEvent event : config.getIntervalEvents()) {
-            if (event.enabled) {
-                scheduleIntervalEvent(event);
+    private void runSteps(CompiledEvent compiled, PlayerSnapshot snapshot, PlayerSelection players, FireStats stats,
+                          boolean runConsoleCommands, long fireTime, PlaceholderContext context) {
+        for (int s = 0; s < compiled.steps.size(); s++) {
+            CompiledEvent.Step step = compiled.steps.get(s);
+            if (stopDistributing) {
+                checkpoint(compiled, players, s, 0, runConsoleCommands, fireTime);
+                return;
+            }
+            switch (step.kind) {
+                case GLOBAL:
+                    // Global commands run only once (console:, server:, broadcast)
+                    if (step.console && !runConsoleCommands) break;
+                    context.setPlayer(null, -1);
+                    count(stats, executeGlobalCommand(compiled, snapshot, context, step.template));
+                    break;
+                case BUNDLE:
+                    // Untargeted events also reach recently seen players who are offline (fixed items only, no loot rolls);
+                    // a playtime fire is earned by the players it reached, not by the offline ones
+                    if (mailbox != null && config.getSettings().mailboxEnabled && compiled.targets.isAll()
+                            && !isPlaytime(compiled.definition)) {
+                        mailbox.storeForOfflineAsync(compiled.name(), compiled.rewards, onlineUuids(snapshot), clock.currentTimeMillis());
+                    }
+                    // All give lines and loot rolls in one inventory transaction per player
+                    long lootSeed = config.getSettings().lootSeed;
+                    for (int i = 0; i < players.size(); i++) {
+                        if (stopDistributing) {
+                            checkpoint(compiled, players, s, i, runConsoleCommands, fireTime);
+                            return;
+                        }
+                        PlayerDispatch jfr = new PlayerDispatch();
+                        jfr.begin();
+                        OnlinePlayer player = players.get(i);
+                        RandomGenerator random = LootTable.randomFor(lootSeed, compiled.name(), fireTime, player.getUuid());
+                        boolean granted = grantInOrder(player, compiled.rewardsFor(random), compiled.name(), stats);
+                        jfr.end(compiled.name(), player.getUsername(), "REWARDS", granted);
+                    }
+                    break;
+                case PLAYER:
+                    // Per-player commands run for each targeted player (message, cmd:, op:)
+                    for (int i = 0; i < players.size(); i++) {
+                        if (stopDistributing) {
+                            checkpoint(compiled, players, s, i, runConsoleCommands, fireTime);
+                            return;
+                        }
+                        PlayerDispatch jfr = new PlayerDispatch();
+                        jfr.begin();
+                        OnlinePlayer player = players.get(i);
+                        context.setPlayer(player, i);
+                        boolean success = executeCommandForPlayer(context, step.template, stats);
+                        jfr.end(compiled.name(), player.getUsername(), step.template.kind.name(), success);
+                    }
+                    break;
             }
         }
     }
-
-    private void scheduleIntervalEvent(IntervalEvent event) {
-        ScheduledFuture<?> task = scheduler.scheduleAtFixedRate(() -> {
-            if (!running) return;
-            try {
-                executeEvent(event.name, event.commands, event.broadcastMessage);
-            } catch (Exception e) {
-                LOGGER.severe("[EventScheduler] Event execution error: " + e.getMessage());
+    
+    /**
+     * Remember what a fire cut short by shutdown still owes. Players before
+     * the cursor already got the step at it, the others did not.
+     */
+    private void checkpoint(CompiledEvent compiled, PlayerSelection players, int step, int index,
+                            boolean runConsoleCommands, long fireTime) {
+        int globalStep = PendingFire.NONE;
+        for (int s = compiled.steps.size() - 1; s >= step; s--) {
+            if (compiled.steps.get(s).kind == CompiledEvent.StepKind.GLOBAL) globalStep = s;
+        }
+        PendingFire fire = new PendingFire(compiled.name(), compiled.signature(), fireTime, clock.currentTimeMillis(),
+                globalStep, runConsoleCommands);
+        boolean owesStep = compiled.steps.get(step).kind != CompiledEvent.StepKind.GLOBAL;
+        boolean owesLater = hasPlayerSteps(compiled, step + 1);
+        for (int i = 0; i < players.size(); i++) {
+            if (i >= index && owesStep) {
+                fire.recipients.put(players.get(i).getUuid(), step);
+            } else if (owesLater) {
+                fire.recipients.put(players.get(i).getUuid(), step + 1);
             }
-        }, event.interval, event.interval, TimeUnit.SECONDS);
-        
-        runningIntervalTasks.put(event.name, task);
-        LOGGER.info("[EventScheduler] Interval event started: " + event.name + " (every " + event.interval + " seconds)");
+        }
+        if (fire.isDone()) return;
+        pendingFires.add(fire);
+        LOGGER.info("[EventScheduler] " + compiled.name() + " stopped by shutdown, " + fire.recipients.size()
+                + " player(s) left to resume.");
     }
-
+    
+    private static boolean hasPlayerSteps(CompiledEvent compiled, int fromStep) {
+        for (int s = fromStep; s < compiled.steps.size(); s++) {
+            if (compiled.steps.get(s).kind != CompiledEvent.StepKind.GLOBAL) return true;
+        }
+        return false;
+    }
+    
     /**
-     * Check for time-based events
+     * Pick up the fires the last shutdown cut short: their remaining global
+     * steps run now, each player gets their remaining steps when online
      */
-    private void startTimeChecker() {
-        timeCheckerTask = scheduler.scheduleAtFixedRate(() -> {
-            if (!running) return;
-            try {
-                checkScheduledEvents();
-            } catch (Exception e) {
-                LOGGER.severe("[EventScheduler] Time check error: " + e.getMessage());
+    private void resumeDistributions() {
+        List<PendingFire> fires;
+        try {
+            fires = journal.load();
+        } catch (IOException e) {
+            LOGGER.severe("[EventScheduler] Pending fires could not be read: " + e.getMessage());
+            return;
+        }
+        long now = clock.currentTimeMillis();
+        long retentionMillis = config.getSettings().resumeRetentionHours * 3_600_000L;
+        for (PendingFire fire : fires) {
+            CompiledEvent compiled = resumable(fire);
+            if (compiled == null) {
+                LOGGER.warning("[EventScheduler] " + fire.eventName + " was changed or removed, interrupted fire dropped.");
+                continue;
+            }
+            if (now - fire.interruptedAt > retentionMillis) {
+                LOGGER.info("[EventScheduler] Interrupted fire of " + fire.eventName + " is too old to resume.");
+                continue;
             }
-        }, 0, 30, TimeUnit.SECONDS); // Check every 30 seconds
+            pendingFires.add(fire);
+            LOGGER.info("[EventScheduler] Resuming " + fire.eventName + " for " + fire.recipients.size() + " player(s).");
+            if (fire.globalStep != PendingFire.NONE) {
+                workers.execute(fire.eventName, () -> resumeGlobalSteps(compiled, fire));
+            }
+        }
+        // Compacted to what is still owed; what is handed out from here on is logged as it happens
+        journal.save(pendingFires);
+        if (pendingFires.isEmpty()) return;
+        PlayerSnapshot online = playerRegistry.snapshot();
+        for (int i = 0; i < online.size(); i++) {
+            resumeFor(online.get(i));
+        }
     }
-
-    private void checkScheduledEvents() {
-        ZoneId zone = ZoneId.of(config.getSettings().timezone);
-        LocalTime now = LocalTime.now(zone);
-        String currentTime = now.format(DateTimeFormatter.ofPattern("HH:mm"));
-        
-        for (ScheduledEvent event : config.getScheduledEvents()) {
-            if (!event.enabled) continue;
-            
-            for (String time : event.times) {
-                if (shouldExecuteScheduledEvent(event.name, time, currentTime)) {
-                    executeEvent(event.name, event.commands, event.broadcastMessage);
-                    markExecuted(event.name + "_" + time);
+    
+    /**
+     * The compiled event or stage of a pending fire, null if its commands changed since
+     */
+    private CompiledEvent resumable(PendingFire fire) {
+        for (CompiledEvent compiled : compiledEvents.values()) {
+            if (compiled.name().equals(fire.eventName)) {
+                return compiled.signature() == fire.signature ? compiled : null;
+            }
+            for (CompiledEvent stage : compiled.stages) {
+                if (stage.name().equals(fire.eventName)) {
+                    return stage.signature() == fire.signature ? stage : null;
                 }
             }
         }
+        return null;
     }
-
-    private boolean shouldExecuteScheduledEvent(String eventName, String scheduledTime, String currentTime) {
-        if (!scheduledTime.equals(currentTime)) {
-            return false;
-        }
-        
-        String key = eventName + "_" + scheduledTime;
-        long lastExec = lastExecutionTime.getOrDefault(key, 0L);
-        long now = System.currentTimeMillis();
+    
+    /**
+     * Journaled as done before they run: after a crash they are not run twice
+     */
+    private void resumeGlobalSteps(CompiledEvent compiled, PendingFire fire) {
+        if (!running) return;
+        int from = fire.globalStep;
+        fire.globalStep = PendingFire.NONE;
+        journal.markGlobalsDone(fire);
+        if (fire.isDone()) pendingFires.remove(fire);
         
-        // Don't run again if executed within last 2 minutes
-        if (now - lastExec < 120000) {
-            return false;
+        PlayerSnapshot snapshot = playerRegistry.snapshot();
+        AtomicLong fireCount = fireCounts.get(compiled.name());
+        PlaceholderContext context = new PlaceholderContext(placeholders, compiled.name(), fire.fireTime,
+                fireCount != null ? fireCount.get() : 0, 0);
+        for (int s = from; s < compiled.steps.size(); s++) {
+            CompiledEvent.Step step = compiled.steps.get(s);
+            if (step.kind != CompiledEvent.StepKind.GLOBAL || (step.console && !fire.runConsoleCommands)) continue;
+            executeGlobalCommand(compiled, snapshot, context, step.template);
         }
-        
-        return true;
-    }
-
-    private void markExecuted(String key) {
-        lastExecutionTime.put(key, System.currentTimeMillis());
     }
-
+    
     /**
-     * Execute event - apply commands to all players
+     * Hand a player the rest of every interrupted fire they are owed. The
+     * player stays a recipient until the worker journals the delivery, so a
+     * task discarded by shutdown is saved again with the rest.
      */
-    private void executeEvent(String eventName, List<String> commands, String broadcastMessage) {
-        Collection<Player> players = getOnlinePlayers();
-        
-        // Minimum player check
-        int minPlayers = config.getSettings().minPlayersRequired;
-        if (players.size() < minPlayers) {
-            if (config.getSettings().debugMode) {
-                LOGGER.info("[EventScheduler] " + eventName + " cancelled: Not enough players (" + players.size() + "/" + minPlayers + ")");
-            }
-            return;
+    private void resumeFor(OnlinePlayer player) {
+        for (PendingFire fire : pendingFires) {
+            if (!fire.recipients.containsKey(player.getUuid())) continue;
+            CompiledEvent compiled = resumable(fire);
+            if (compiled == null) continue;
+            // Joining again before the worker got to it queues nothing new
+            if (!fire.resuming.add(player.getUuid())) continue;
+            workers.execute(fire.eventName, () -> resumePlayerSteps(compiled, fire, player));
         }
-        
-        // Send broadcast message
-        if (broadcastMessage != null && !broadcastMessage.isEmpty()) {
-            String fullMessage = config.getBroadcastPrefix() + broadcastMessage;
-            broadcastToAll(fullMessage);
+    }
+    
+    private void resumePlayerSteps(CompiledEvent compiled, PendingFire fire, OnlinePlayer player) {
+        fire.resuming.remove(player.getUuid());
+        if (!running) {
+            // Still owed, saved again with the rest
+            return;
         }
+        Integer fromStep = fire.recipients.remove(player.getUuid());
+        if (fromStep == null) return;
+        // Journaled as delivered first: after a crash the player is not served twice
+        journal.markServed(fire, player.getUuid());
+        if (fire.isDone()) pendingFires.remove(fire);
         
-        // Process commands - separate global and per-player commands
-        for (String command : commands) {
-            if (isGlobalCommand(command)) {
-                // Global commands run only once (console:, server:, broadcast)
-                executeGlobalCommand(command);
-            } else {
-                // Per-player commands run for each player (give, message, cmd:, op:)
-                for (Player player : players) {
-                    executeCommandForPlayer(player, command);
-                }
+        FireStats stats = new FireStats();
+        AtomicLong fireCount = fireCounts.get(compiled.name());
+        PlaceholderContext context = new PlaceholderContext(placeholders, compiled.name(), fire.fireTime,
+                fireCount != null ? fireCount.get() : 0, 1);
+        context.setPlayer(player, 0);
+        for (int s = fromStep; s < compiled.steps.size(); s++) {
+            CompiledEvent.Step step = compiled.steps.get(s);
+            if (step.kind == CompiledEvent.StepKind.BUNDLE) {
+                // The same rolls the player would have got in the original fire
+                RandomGenerator random = LootTable.randomFor(config.getSettings().lootSeed, compiled.name(), fire.fireTime,
+                        player.getUuid());
+                grantInOrder(player, compiled.rewardsFor(random), compiled.name(), stats);
+            } else if (step.kind == CompiledEvent.StepKind.PLAYER) {
+                executeCommandForPlayer(context, step.template, stats);
             }
         }
-        
         if (config.getSettings().debugMode) {
-            LOGGER.info("[EventScheduler] Event executed: " + eventName + " (" + players.size() + " players)");
+            LOGGER.log(Level.INFO, "[EventScheduler] Resumed {0} for {1} ({2})",
+                    new Object[]{compiled.name(), player.getUsername(), stats.toString()});
         }
     }
-
+    
+    private static void count(FireStats stats, boolean success) {
+        if (success) {
+            stats.commands++;
+        } else {
+            stats.failures++;
+        }
+    }
+    
     /**
-     * Execute event manually - bypasses minimum player check
+     * Per-player and per-command debug lines (debugMode with debugVerbose)
      */
-    private void executeEventManual(String eventName, List<String> commands, String broadcastMessage) {
-        Collection<Player> players = getOnlinePlayers();
-        
-        // Send broadcast message first (even if no players)
-        if (broadcastMessage != null && !broadcastMessage.isEmpty()) {
-            String fullMessage = config.getBroadcastPrefix() + broadcastMessage;
-            broadcastToAll(fullMessage);
-            LOGGER.info("[EventScheduler] Broadcast: " + fullMessage);
-        }
-        
-        // Process commands - separate global and per-player commands
-        for (String command : commands) {
-            if (isGlobalCommand(command)) {
-                // Global commands run only once
-                executeGlobalCommand(command);
-            } else {
-                // Per-player commands run for each player
-                for (Player player : players) {
-                    executeCommandForPlayer(player, command);
-                }
-            }
+    private boolean verbose() {
+        return config.getSettings().debugMode && config.getSettings().debugVerbose && LOGGER.isLoggable(Level.INFO);
+    }
+    
+    private static Set<UUID> onlineUuids(PlayerSnapshot snapshot) {
+        Set<UUID> uuids = new HashSet<>(snapshot.size() * 2);
+        for (int i = 0; i < snapshot.size(); i++) {
+            uuids.add(snapshot.get(i).getUuid());
         }
-        
-        LOGGER.info("[EventScheduler] Event manually triggered: " + eventName + " (" + players.size() + " players)");
+        return uuids;
     }
     
     /**
      * Check if command is a global command (should run only once, not per-player)
      */
-    private boolean isGlobalCommand(String command) {
+    static boolean isGlobalCommand(String command) {
         String cmd = command.trim().toLowerCase();
         return cmd.startsWith("console:") || 
                cmd.startsWith("server:") || 
@@ -236,32 +1452,30 @@ public class SchedulerManager {
     }
     
     /**
-     * Execute a global command (runs only once, not per-player)
+     * Execute a global command (runs only once, not per-player). Fire
+     * placeholders such as {event} are filled in, player ones are not.
      */
-    private void executeGlobalCommand(String command) {
+    private boolean executeGlobalCommand(CompiledEvent compiled, PlayerSnapshot players, PlaceholderContext context,
+                                         CommandTemplate template) {
+        String command = template.source;
         try {
-            String cmd = command.trim();
+            String cmd = template.render(context).trim();
             
             if (cmd.toLowerCase().startsWith("console:") || cmd.toLowerCase().startsWith("server:")) {
                 String consoleCmd = cmd.substring(cmd.indexOf(':') + 1).trim();
-                executeConsoleCommand(consoleCmd);
+                return executeConsoleCommand(consoleCmd);
             } else if (cmd.toLowerCase().startsWith("broadcast ") || cmd.toLowerCase().startsWith("bc ")) {
                 String prefix = cmd.toLowerCase().startsWith("broadcast ") ? "broadcast " : "bc ";
                 String text = cmd.substring(prefix.length()).trim();
-                broadcastToAll(text);
+                broadcastToAll(compiled, players, text);
             }
+            return true;
         } catch (Exception e) {
-            LOGGER.warning("[EventScheduler] Global command error: " + command + " - " + e.getMessage());
+            LOGGER.log(Level.WARNING, "[EventScheduler] Global command error: {0} - {1}", new Object[]{command, e.getMessage()});
+            return false;
         }
     }
 
-    /**
-     * Get online players
-     */
-    private Collection<Player> getOnlinePlayers() {
-        return onlinePlayers.values();
-    }
-
     /**
      * Execute command for player (per-player commands only)
      * Supported command prefixes:
@@ -272,170 +1486,234 @@ public class SchedulerManager {
      * - give <itemId> <quantity> : Gives item to player
      * - message <text> : Sends message to player
      * 
-     * Placeholders:
-     * - {player} : Player's username
-     * - {uuid} : Player's UUID
-     * - {display_name} : Player's display name
+     * Placeholders such as {player} come from the {@link PlaceholderRegistry},
+     * see {@link #registerPlaceholders()}.
      * 
      * Note: Global commands (console:, server:, broadcast) are handled separately
-     * and run only once per event, not per-player.
+     * and run only once per event, not per-player. The command line itself was
+     * parsed once at load time, see {@link CommandTemplate}.
+     * 
+     * With commandsPerTick, cmd: and op: lines go through the command queue and
+     * are counted when they are sent. Once a fire has queued a line, its later
+     * message and built-in lines and its reward grants queue behind it, so
+     * players get them in order.
+     * Returns false if the line failed or the full queue dropped it.
      */
-    private void executeCommandForPlayer(Player player, String command) {
+    private boolean executeCommandForPlayer(PlaceholderContext context, CommandTemplate template, FireStats stats) {
+        OnlinePlayer player = context.getPlayer();
+        boolean success;
         try {
-            // Replace placeholders
-            String processedCommand = replacePlaceholders(command, player);
-            
-            // Skip global commands (they are handled by executeGlobalCommand)
-            if (isGlobalCommand(processedCommand)) {
-                return;
-            }
-            
-            if (processedCommand.startsWith("cmd:") || processedCommand.startsWith("command:")) {
-                // Player command - execute as the player
-                String playerCmd = processedCommand.substring(processedCommand.indexOf(':') + 1).trim();
-                executePlayerCommand(player, playerCmd);
-                return;
-            }
-            
-            if (processedCommand.startsWith("op:") || processedCommand.startsWith("admin:")) {
-                // OP command - execute with elevated permissions
-                String opCmd = processedCommand.substring(processedCommand.indexOf(':') + 1).trim();
-                executeOpCommand(player, opCmd);
-                return;
+            String body = template.render(context);
+            boolean queue = config.getSettings().commandsPerTick > 0 && (stats.hasQueued()
+                    || template.kind == CommandTemplate.Kind.PLAYER || template.kind == CommandTemplate.Kind.OP);
+            if (queue && enqueueCommand(() -> runPlayerLine(player, template, body), stats, player.getUuid())) {
+                return true;
             }
-            
-            // Built-in commands (legacy support)
-            String[] parts = processedCommand.trim().split("\\s+", 3);
-            if (parts.length == 0) return;
-            
-            String cmd = parts[0].toLowerCase();
-            
-            switch (cmd) {
-                case "give":
-                    // give <itemId> <quantity>
-                    if (parts.length >= 2) {
-                        String itemId = parts[1];
-                        int quantity = 1;
-                        if (parts.length >= 3) {
-                            try {
-                                quantity = Integer.parseInt(parts[2]);
-                            } catch (NumberFormatException e) {
-                                quantity = 1;
-                            }
-                        }
-                        giveItem(player, itemId, quantity);
-                    }
-                    break;
+            success = !queue && runPlayerLine(player, template, body);
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "[EventScheduler] Command error: {0} - {1}", new Object[]{template.source, e.getMessage()});
+            success = false;
+        }
+        if (success) {
+            stats.commands++;
+        } else {
+            stats.playerFailed(player.getUuid());
+        }
+        return success;
+    }
+    
+    private boolean runPlayerLine(OnlinePlayer player, CommandTemplate template, String body) {
+        try {
+            switch (template.kind) {
+                case PLAYER:
+                    // Player command - execute as the player
+                    return executePlayerCommand(player, body);
                     
-                case "message":
-                case "msg":
+                case OP:
+                    // OP command - execute with elevated permissions
+                    return executeOpCommand(player, body);
+                    
+                case MESSAGE:
                     // message <text>
-                    if (parts.length >= 2) {
-                        String text = processedCommand.substring(cmd.length()).trim();
-                        player.sendMessage(Message.raw(text));
+                    if (!body.isEmpty()) {
+                        bridge.sendMessage(player, body);
                     }
-                    break;
+                    return true;
                     
-                default:
-                    // Unknown command - log warning in debug mode
-                    if (config.getSettings().debugMode) {
-                        LOGGER.info("[EventScheduler] Unknown per-player command: " + cmd);
-                    }
-                    break;
+                case BUILTIN:
+                    return executeBuiltinCommand(player, body);
             }
+            return true;
         } catch (Exception e) {
-            LOGGER.warning("[EventScheduler] Command error: " + command + " - " + e.getMessage());
+            LOGGER.log(Level.WARNING, "[EventScheduler] Command error: {0} - {1}", new Object[]{template.source, e.getMessage()});
+            return false;
         }
     }
     
     /**
-     * Replace placeholders in command string
+     * Built-in commands (legacy support). Plain give lines are bundled at load
+     * time; this handles the rest, e.g. give lines that use placeholders.
      */
-    private String replacePlaceholders(String command, Player player) {
-        if (player == null) return command;
+    private boolean executeBuiltinCommand(OnlinePlayer player, String processedCommand) {
+        String[] parts = processedCommand.trim().split("\\s+", 3);
+        if (parts.length == 0) return true;
         
-        String result = command;
-        PlayerRef ref = player.getPlayerRef();
+        String cmd = parts[0].toLowerCase();
         
-        result = result.replace("{player}", ref.getUsername());
-        result = result.replace("{uuid}", ref.getUuid().toString());
-        result = result.replace("{display_name}", player.getDisplayName());
-        result = result.replace("{name}", ref.getUsername());
-        
-        return result;
+        switch (cmd) {
+            case "give":
+                // give <itemId> <quantity>
+                if (parts.length >= 2) {
+                    String itemId = parts[1];
+                    int quantity = 1;
+                    if (parts.length >= 3) {
+                        try {
+                            quantity = Integer.parseInt(parts[2]);
+                        } catch (NumberFormatException e) {
+                            quantity = 1;
+                        }
+                    }
+                    return giveItem(player, itemId, quantity);
+                }
+                return true;
+                
+            default:
+                // Unknown command - log warning in debug mode; nothing failed, so the player isn't audited as missed
+                if (verbose()) {
+                    LOGGER.log(Level.INFO, "[EventScheduler] Unknown per-player command: {0}", cmd);
+                }
+                return true;
+        }
     }
     
     /**
      * Execute command from server console (full permissions)
      */
-    private void executeConsoleCommand(String command) {
+    private boolean executeConsoleCommand(String command) {
         try {
-            CommandManager commandManager = HytaleServer.get().getCommandManager();
-            commandManager.handleCommand(ConsoleSender.INSTANCE, command);
+            bridge.dispatchCommand(null, command);
             
             if (config.getSettings().debugMode) {
-                LOGGER.info("[EventScheduler] Console command executed: " + command);
+                LOGGER.log(Level.INFO, "[EventScheduler] Console command executed: {0}", command);
             }
+            return true;
         } catch (Exception e) {
-            LOGGER.warning("[EventScheduler] Console command error: " + command + " - " + e.getMessage());
+            LOGGER.log(Level.WARNING, "[EventScheduler] Console command error: {0} - {1}", new Object[]{command, e.getMessage()});
+            return false;
         }
     }
     
     /**
      * Execute command as player
      */
-    private void executePlayerCommand(Player player, String command) {
+    private boolean executePlayerCommand(OnlinePlayer player, String command) {
         try {
-            CommandManager commandManager = HytaleServer.get().getCommandManager();
-            commandManager.handleCommand(player.getPlayerRef(), command);
+            bridge.dispatchCommand(player, command);
             
-            if (config.getSettings().debugMode) {
-                LOGGER.info("[EventScheduler] Player command executed: " + player.getDisplayName() + " -> " + command);
+            if (verbose()) {
+                LOGGER.log(Level.INFO, "[EventScheduler] Player command executed: {0} -> {1}", new Object[]{player.getDisplayName(), command});
             }
+            return true;
         } catch (Exception e) {
-            LOGGER.warning("[EventScheduler] Player command error: " + command + " - " + e.getMessage());
+            LOGGER.log(Level.WARNING, "[EventScheduler] Player command error: {0} - {1}", new Object[]{command, e.getMessage()});
+            return false;
         }
     }
     
     /**
      * Execute command with OP permissions (runs as console on behalf of player)
      */
-    private void executeOpCommand(Player player, String command) {
+    private boolean executeOpCommand(OnlinePlayer player, String command) {
         try {
             // For OP commands, we execute as console since console has full permissions
             // The command string may contain {player} placeholder which was already replaced
-            CommandManager commandManager = HytaleServer.get().getCommandManager();
-            commandManager.handleCommand(ConsoleSender.INSTANCE, command);
+            bridge.dispatchCommand(null, command);
             
-            if (config.getSettings().debugMode) {
-                LOGGER.info("[EventScheduler] OP command executed for " + player.getDisplayName() + ": " + command);
+            if (verbose()) {
+                LOGGER.log(Level.INFO, "[EventScheduler] OP command executed for {0}: {1}", new Object[]{player.getDisplayName(), command});
             }
+            return true;
         } catch (Exception e) {
-            LOGGER.warning("[EventScheduler] OP command error: " + command + " - " + e.getMessage());
+            LOGGER.log(Level.WARNING, "[EventScheduler] OP command error: {0} - {1}", new Object[]{command, e.getMessage()});
+            return false;
         }
     }
     
     /**
      * Give item to player
      */
-    private void giveItem(Player player, String itemId, int quantity) {
+    private boolean giveItem(OnlinePlayer player, String itemId, int quantity) {
         try {
-            ItemStack itemStack = new ItemStack(itemId, quantity);
-            Inventory inventory = player.getInventory();
-            ItemContainer storage = inventory.getStorage();
-            storage.addItemStack(itemStack);
+            RewardBundle overflow = bridge.giveItems(player, new RewardBundle.Builder().add(itemId, quantity).build());
+            if (!overflow.isEmpty()) {
+                overflowHandler.onOverflow(player, "give", overflow);
+            }
             
-            if (config.getSettings().debugMode) {
-                LOGGER.info("[EventScheduler] Item given: " + player.getDisplayName() + " -> " + quantity + "x " + itemId);
+            if (verbose()) {
+                LOGGER.log(Level.INFO, "[EventScheduler] Item given: {0} -> {1}x {2}", new Object[]{player.getDisplayName(), quantity, itemId});
+            }
+            return true;
+        } catch (Exception e) {
+            LOGGER.log(Level.WARNING, "[EventScheduler] Item give error: {0} - {1}", new Object[]{itemId, e.getMessage()});
+            return false;
+        }
+    }
+
+    /**
+     * Grant an event's reward bundle to a player in a single inventory transaction
+     */
+    /**
+     * Grant a player's rewards of a fire and count them. If lines of the fire
+     * are waiting in the command queue, the grant queues behind them, so it
+     * never overtakes a command configured before it. Returns false if the
+     * grant failed or the full queue dropped it.
+     */
+    private boolean grantInOrder(OnlinePlayer player, RewardBundle rewards, String eventName, FireStats stats) {
+        boolean granted;
+        if (stats.hasQueued()) {
+            if (enqueue(() -> grantRewards(player, rewards, eventName), stats, player.getUuid(), true)) {
+                return true;
             }
+            granted = false;
+        } else {
+            granted = grantRewards(player, rewards, eventName);
+            if (granted) stats.rewardGrants++;
+        }
+        if (!granted) stats.playerFailed(player.getUuid());
+        return granted;
+    }
+    
+    private boolean grantRewards(OnlinePlayer player, RewardBundle rewards, String eventName) {
+        if (rewards.isEmpty()) return true;
+        try {
+            RewardBundle overflow = bridge.giveItems(player, rewards);
+            if (!overflow.isEmpty()) {
+                overflowHandler.onOverflow(player, eventName, overflow);
+            }
+            
+            if (verbose()) {
+                LOGGER.log(Level.INFO, "[EventScheduler] Rewards given: {0} -> {1} item(s)", new Object[]{player.getDisplayName(), rewards.size()});
+            }
+            return true;
         } catch (Exception e) {
-            LOGGER.warning("[EventScheduler] Item give error: " + itemId + " - " + e.getMessage());
+            LOGGER.log(Level.WARNING, "[EventScheduler] Reward error: {0} - {1}", new Object[]{eventName, e.getMessage()});
+            return false;
         }
     }
 
-    private void broadcastToAll(String message) {
-        for (Player player : getOnlinePlayers()) {
-            player.sendMessage(Message.raw(message));
+    private void broadcastToAll(CompiledEvent compiled, PlayerSnapshot players, String message) {
+        broadcastTo(compiled, PlayerSelection.all(players), message);
+    }
+
+    /**
+     * Broadcasts of events firing close together are merged per player,
+     * unless the event opted out
+     */
+    private void broadcastTo(CompiledEvent compiled, PlayerSelection players, String message) {
+        if (compiled.definition.coalesceBroadcasts) {
+            broadcasts.broadcast(players, message);
+        } else {
+            bridge.broadcast(players, message);
         }
     }
 
@@ -446,7 +1724,7 @@ public class SchedulerManager {
         // Interval events
         for (IntervalEvent event : config.getIntervalEvents()) {
             if (event.name.equalsIgnoreCase(eventName)) {
-                executeEventManual(event.name, event.commands, event.broadcastMessage);
+                workers.execute(event.name, () -> executeEventManual(event));
                 return true;
             }
         }
@@ -454,7 +1732,7 @@ public class SchedulerManager {
         // Scheduled events
         for (ScheduledEvent event : config.getScheduledEvents()) {
             if (event.name.equalsIgnoreCase(eventName)) {
-                executeEventManual(event.name, event.commands, event.broadcastMessage);
+                workers.execute(event.name, () -> executeEventManual(event));
                 return true;
             }
         }
@@ -469,12 +1747,15 @@ public class SchedulerManager {
         for (IntervalEvent event : config.getIntervalEvents()) {
             if (event.name.equalsIgnoreCase(eventName)) {
                 event.enabled = enable;
-                if (enable && !runningIntervalTasks.containsKey(event.name)) {
+                if (event.playtime) {
+                    configurePlaytime();
+                } else if (enable && !runningIntervalTasks.containsKey(event.name)) {
                     scheduleIntervalEvent(event);
                 } else if (!enable && runningIntervalTasks.containsKey(event.name)) {
                     runningIntervalTasks.get(event.name).cancel(false);
                     runningIntervalTasks.remove(event.name);
                 }
+                configVersion.incrementAndGet();
                 return true;
             }
         }
@@ -482,6 +1763,13 @@ public class SchedulerManager {
         for (ScheduledEvent event : config.getScheduledEvents()) {
             if (event.name.equalsIgnoreCase(eventName)) {
                 event.enabled = enable;
+                if (enable && !scheduledSlots.containsKey(event.name)) {
+                    startTimeline(event);
+                } else if (!enable) {
+                    // Pending countdowns go with the fire
+                    cancelTimeline(event.name);
+                }
+                configVersion.incrementAndGet();
                 return true;
             }
         }
@@ -493,18 +1781,32 @@ public class SchedulerManager {
      * Reload all events
      */
     public void reload() {
+        ConfigReload jfr = new ConfigReload();
+        jfr.begin();
+        
         // Stop current tasks
         for (ScheduledFuture<?> task : runningIntervalTasks.values()) {
             task.cancel(false);
         }
         runningIntervalTasks.clear();
-        lastExecutionTime.clear();
+        for (String eventName : new ArrayList<>(scheduledSlots.keySet())) {
+            cancelTimeline(eventName);
+        }
         
         // Reload config
         config.reload();
+        compileEvents();
+        configureMailbox();
+        configureAudit();
+        configureCluster();
+        configureTickHealth();
+        broadcasts.setWindow(config.getSettings().broadcastCoalesceMillis);
         
         // Restart events
         startIntervalEvents();
+        startScheduledEvents();
+        configVersion.incrementAndGet();
+        jfr.end(config.getIntervalEvents().size(), config.getScheduledEvents().size());
         
         LOGGER.info("[EventScheduler] Scheduler reloaded.");
     }
@@ -515,25 +1817,79 @@ public class SchedulerManager {
     public void shutdown() {
         running = false;
         
-        if (timeCheckerTask != null) {
-            timeCheckerTask.cancel(false);
+        for (String eventName : new ArrayList<>(scheduledSlots.keySet())) {
+            cancelTimeline(eventName);
         }
-        
         for (ScheduledFuture<?> task : runningIntervalTasks.values()) {
             task.cancel(false);
         }
         
-        scheduler.shutdown();
-        try {
-            scheduler.awaitTermination(5, TimeUnit.SECONDS);
-        } catch (InterruptedException e) {
-            scheduler.shutdownNow();
+        if (playtimeTickTask != null) {
+            playtimeTickTask.cancel(false);
+            playtimeSaveTask.cancel(false);
+        }
+        
+        if (!workflows.isEmpty()) {
+            LOGGER.info("[EventScheduler] " + workflows.size() + " running workflow(s) stopped.");
+            for (WorkflowRun run : workflows) {
+                ScheduledFuture<?> task = run.task;
+                if (task != null) task.cancel(false);
+            }
+        }
+        
+        // Running fires may finish until the drain deadline; after it they stop
+        // at the next player and what they still owe is resumed on the next start
+        if (!workers.drain(config.getSettings().shutdownDrainSeconds, TimeUnit.SECONDS)) {
+            stopDistributing = true;
+        }
+        workers.shutdown(5, TimeUnit.SECONDS);
+        saveDistributions();
+        broadcasts.flush();
+        workflows.clear();
+        activeEvents.clear();
+        
+        // Don't lose commands that were queued but not yet sent
+        commandQueue.drainAll();
+        
+        if (tickHealth != null) {
+            tickHealth.stop();
+        }
+        
+        // Hand the lease over before the clock stops
+        closeCluster();
+        
+        clock.shutdown(5, TimeUnit.SECONDS);
+        
+        closeMailbox();
+        closeAudit();
+        if (playtime != null) {
+            // Online players keep the playtime of this session
+            playtime.close(clock.currentTimeMillis());
         }
         
         LOGGER.info("[EventScheduler] Scheduler stopped.");
     }
 
+    private void saveDistributions() {
+        int players = 0;
+        for (PendingFire fire : pendingFires) {
+            players += fire.recipients.size();
+        }
+        journal.save(pendingFires);
+        if (players > 0) {
+            LOGGER.info("[EventScheduler] " + players + " pending delivery(s) saved for the next start.");
+        }
+    }
+
     // Getters for commands
+    
+    /**
+     * Placeholders of event commands; other plugins may register their own
+     */
+    public PlaceholderRegistry getPlaceholders() {
+        return placeholders;
+    }
+
     public Map<String, ScheduledFuture<?>> getRunningTasks() {
         return runningIntervalTasks;
     }
@@ -541,4 +1897,96 @@ public class SchedulerManager {
     public EventConfig getEventConfig() {
         return config;
     }
+    
+    public int getQueuedCommandCount() {
+        return commandQueue.size();
+    }
+    
+    /**
+     * Fires waiting per event worker, empty when fires run on the clock's thread
+     */
+    public int[] getWorkerQueueDepths() {
+        return workers.queueDepths();
+    }
+    
+    /**
+     * Changes on every reload or toggle, for caches of the event list
+     */
+    public int getConfigVersion() {
+        return configVersion.get();
+    }
+    
+    /**
+     * Server tick monitor, null unless adaptiveDeferral is on
+     */
+    public TickHealthMonitor getTickHealth() {
+        return tickHealth;
+    }
+    
+    public DeferralStats getDeferralStats() {
+        return deferral;
+    }
+    
+    /**
+     * Workflows waiting for their next stage
+     */
+    public Collection<WorkflowRun> getRunningWorkflows() {
+        return Collections.unmodifiableCollection(workflows);
+    }
+    
+    /**
+     * Current phase plan, null when phaseStaggering is off
+     */
+    public PhasePlanner.Plan getPhasePlan() {
+        return phasePlan;
+    }
+    
+    /**
+     * Get notified after every event fire
+     */
+    public void addFireListener(FireListener listener) {
+        fireListeners.add(listener);
+    }
+    
+    public SchedulerClock getClock() {
+        return clock;
+    }
+    
+    public PlayerRegistry getPlayerRegistry() {
+        return playerRegistry;
+    }
+    
+    public ExecutionHistory getHistory() {
+        return history;
+    }
+    
+    /**
+     * Reward audit log, or null if auditEnabled is off
+     */
+    public RewardAudit getAudit() {
+        return audit;
+    }
+    
+    /**
+     * Reward mailbox, or null if neither offline rewards nor overflow use it
+     */
+    public RewardMailbox getMailbox() {
+        return mailbox;
+    }
+    
+    /**
+     * Cluster coordinator, or null if clusterMode is off
+     */
+    public ClusterCoordinator getCluster() {
+        return cluster;
+    }
+    
+    /**
+     * Replace the policy for reward items that do not fit into an inventory.
+     * It stays in place across reloads; null goes back to rewardOverflow.
+     */
+    public synchronized void setOverflowHandler(RewardOverflowHandler overflowHandler) {
+        this.customOverflowHandler = overflowHandler;
+        this.overflowHandler = overflowHandler != null ? overflowHandler : configuredOverflowHandler;
+    }
 }
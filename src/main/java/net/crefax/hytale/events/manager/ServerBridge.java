@@ -0,0 +1,40 @@
+package net.crefax.hytale.events.manager;
+
+import net.crefax.hytale.events.player.OnlinePlayer;
+import net.crefax.hytale.events.player.PlayerSelection;
+import net.crefax.hytale.events.reward.RewardBundle;
+
+/**
+ * Server Bridge
+ *
+ * Everything the scheduler does to the server and its players: messages,
+ * inventories and commands. The plugin uses {@link HytaleServerBridge};
+ * simulations plug in a stub so the scheduler can run without a server.
+ *
+ * @author Crefax
+ */
+public interface ServerBridge {
+
+    /**
+     * Send a chat message to one player
+     */
+    void sendMessage(OnlinePlayer player, String text);
+
+    /**
+     * Send the same chat message to every selected player
+     */
+    void broadcast(PlayerSelection players, String text);
+
+    /**
+     * Add items to a player's inventory in one transaction.
+     * Returns what did not fit ({@link RewardBundle#EMPTY} if everything was added).
+     */
+    RewardBundle giveItems(OnlinePlayer player, RewardBundle items);
+
+    /**
+     * Run a server command
+     *
+     * @param sender the player to run it as, or null to run it from the console
+     */
+    void dispatchCommand(OnlinePlayer sender, String command);
+}
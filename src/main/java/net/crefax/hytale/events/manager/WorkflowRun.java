@@ -0,0 +1,46 @@
+package net.crefax.hytale.events.manager;
+
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Workflow Run
+ *
+ * Progress of one running workflow: which stage comes next and when. No
+ * thread waits for a stage; the scheduler keeps the next stage as a
+ * delayed task and the run only carries this state between stages.
+ *
+ * @author Crefax
+ */
+public final class WorkflowRun {
+
+    final CompiledEvent event;
+    final long fireTime;  // intended time of the fire that started the workflow
+    final boolean manual;
+    volatile int nextStage;
+    volatile long nextAt;
+    volatile ScheduledFuture<?> task;
+
+    WorkflowRun(CompiledEvent event, long fireTime, boolean manual) {
+        this.event = event;
+        this.fireTime = fireTime;
+        this.manual = manual;
+    }
+
+    public String getEventName() {
+        return event.name();
+    }
+
+    /** Stage that runs next, 2 for the first stage after the event's own commands */
+    public int getNextStage() {
+        return nextStage + 2;
+    }
+
+    /** Stages including the event's own commands */
+    public int getTotalStages() {
+        return event.stages.size() + 1;
+    }
+
+    public long getNextAt() {
+        return nextAt;
+    }
+}
@@ -0,0 +1,138 @@
+package net.crefax.hytale.events.placeholder;
+
+import net.crefax.hytale.events.placeholder.PlaceholderRegistry.Binding;
+import net.crefax.hytale.events.placeholder.PlaceholderRegistry.Slot;
+import net.crefax.hytale.events.placeholder.PlaceholderResolver.Scope;
+import net.crefax.hytale.events.player.OnlinePlayer;
+
+/**
+ * Placeholder Context
+ *
+ * One fire as seen by placeholder resolvers, and the cache of their
+ * values: a fire value is resolved the first time a command of the fire
+ * needs it, a player value the first time a command for that player
+ * does. The caches are only allocated once something is resolved.
+ * Without a player (global lines, broadcast messages) player
+ * placeholders are left as written.
+ *
+ * Used by the one thread that runs the fire.
+ *
+ * @author Crefax
+ */
+public final class PlaceholderContext {
+
+    private static final String UNRESOLVED = new String(""); // cached "resolver returned null", compared by identity
+
+    private final PlaceholderRegistry registry;
+    private final String eventName;
+    private final long fireTime;
+    private final long fireCount;
+    private final int players;
+    private OnlinePlayer player;
+    private int playerIndex;
+    private String[] fireValues;
+    private String[][] playerValues;
+
+    /**
+     * @param players size of the fire's player selection, the range of {@link #setPlayer} indices
+     */
+    public PlaceholderContext(PlaceholderRegistry registry, String eventName, long fireTime, long fireCount, int players) {
+        this.registry = registry;
+        this.eventName = eventName;
+        this.fireTime = fireTime;
+        this.fireCount = fireCount;
+        this.players = players;
+    }
+
+    public String getEventName() {
+        return eventName;
+    }
+
+    /** Epoch millis the fire was due */
+    public long getFireTime() {
+        return fireTime;
+    }
+
+    /** How many times the event has fired since the server started, this fire included */
+    public long getFireCount() {
+        return fireCount;
+    }
+
+    /** The player being rendered, null for fire-scoped resolvers and global lines */
+    public OnlinePlayer getPlayer() {
+        return player;
+    }
+
+    /**
+     * Select the player commands are rendered for next
+     *
+     * @param player the player, or null to render global lines
+     * @param index  the player's position in the fire's selection
+     */
+    public void setPlayer(OnlinePlayer player, int index) {
+        this.player = player;
+        this.playerIndex = index;
+    }
+
+    /**
+     * Append the value of a slot, or the placeholder as written if it has none
+     */
+    public void append(StringBuilder out, Slot slot) {
+        String value = value(slot);
+        out.append(value != null ? value : slot.text);
+    }
+
+    private String value(Slot slot) {
+        Binding binding = slot.binding;
+        if (binding == null) return null;
+        if (binding.scope == Scope.FIRE) {
+            if (fireValues == null || slot.id >= fireValues.length) {
+                fireValues = grow(fireValues);
+            }
+            String value = fireValues[slot.id];
+            if (value == null) {
+                value = resolve(binding, null);
+                fireValues[slot.id] = value;
+            }
+            return value != UNRESOLVED ? value : null;
+        }
+        if (player == null) return null;
+        if (playerIndex < 0 || playerIndex >= players) {
+            String value = resolve(binding, player);
+            return value != UNRESOLVED ? value : null;
+        }
+        if (playerValues == null) {
+            playerValues = new String[players][];
+        }
+        String[] values = playerValues[playerIndex];
+        if (values == null || slot.id >= values.length) {
+            values = grow(values);
+            playerValues[playerIndex] = values;
+        }
+        String value = values[slot.id];
+        if (value == null) {
+            value = resolve(binding, player);
+            values[slot.id] = value;
+        }
+        return value != UNRESOLVED ? value : null;
+    }
+
+    private String resolve(Binding binding, OnlinePlayer subject) {
+        OnlinePlayer current = player;
+        player = subject;
+        try {
+            String value = binding.resolver.resolve(this);
+            return value != null ? value : UNRESOLVED;
+        } finally {
+            player = current;
+        }
+    }
+
+    private String[] grow(String[] values) {
+        String[] grown = new String[registry.size()];
+        if (values != null) {
+            System.arraycopy(values, 0, grown, 0, values.length);
+        }
+        return grown;
+    }
+}
@@ -0,0 +1,131 @@
+package net.crefax.hytale.events.placeholder;
+
+import net.crefax.hytale.events.placeholder.PlaceholderResolver.Scope;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Placeholder Registry
+ *
+ * The placeholders event commands can use, by name without braces. Other
+ * plugins register their own through
+ * {@code EventSchedulerMod.getInstance().getSchedulerManager().getPlaceholders()}.
+ *
+ * Commands are parsed once per config load and keep a {@link Slot} per
+ * placeholder they contain. A slot is bound by name, so a placeholder can
+ * be registered, replaced or removed after the commands were parsed; an
+ * unbound one is rendered as written.
+ *
+ * @author Crefax
+ */
+public final class PlaceholderRegistry {
+
+    private static final Logger LOGGER = Logger.getLogger("EventScheduler");
+
+    /**
+     * A named placeholder as referenced by parsed commands
+     */
+    public static final class Slot {
+        final String name;
+        final String text; // "{name}", rendered while unbound
+        final int id;      // index into the per-fire and per-player caches
+        volatile Binding binding;
+
+        private Slot(String name, int id) {
+            this.name = name;
+            this.text = "{" + name + "}";
+            this.id = id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public boolean isBound() {
+            return binding != null;
+        }
+    }
+
+    static final class Binding {
+        final Scope scope;
+        final PlaceholderResolver resolver;
+
+        Binding(Scope scope, PlaceholderResolver resolver) {
+            this.scope = scope;
+            this.resolver = resolver;
+        }
+    }
+
+    private final Map<String, Slot> slots = new ConcurrentHashMap<>();
+    private final List<Slot> byId = new ArrayList<>(); // guarded by this
+
+    /**
+     * Register or replace a placeholder
+     *
+     * @param name placeholder name without braces, e.g. "faction" for {faction}
+     */
+    public void register(String name, Scope scope, PlaceholderResolver resolver) {
+        if (!isValidName(name)) {
+            throw new IllegalArgumentException("Invalid placeholder name: " + name);
+        }
+        Slot slot = slot(name);
+        if (slot.binding != null) {
+            LOGGER.log(Level.FINE, "[EventScheduler] Placeholder replaced: {0}", slot.text);
+        }
+        slot.binding = new Binding(scope, resolver);
+    }
+
+    /**
+     * Remove a placeholder; commands using it render it as written again
+     */
+    public void unregister(String name) {
+        Slot slot = slots.get(name);
+        if (slot != null) {
+            slot.binding = null;
+        }
+    }
+
+    public boolean isRegistered(String name) {
+        Slot slot = slots.get(name);
+        return slot != null && slot.binding != null;
+    }
+
+    /**
+     * The slot for a name, created unbound on first use
+     */
+    public Slot slot(String name) {
+        Slot slot = slots.get(name);
+        if (slot != null) return slot;
+        synchronized (this) {
+            return slots.computeIfAbsent(name, key -> {
+                Slot created = new Slot(key, byId.size());
+                byId.add(created);
+                return created;
+            });
+        }
+    }
+
+    /**
+     * Number of slots so far, the size the caches of a fire need
+     */
+    synchronized int size() {
+        return byId.size();
+    }
+
+    /**
+     * Names that can be placeholders: letters, digits and _ . : -
+     */
+    public static boolean isValidName(String name) {
+        if (name == null || name.isEmpty()) return false;
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (!Character.isLetterOrDigit(c) && c != '_' && c != '.' && c != ':' && c != '-') return false;
+        }
+        return true;
+    }
+}
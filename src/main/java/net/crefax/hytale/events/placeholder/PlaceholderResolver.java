@@ -0,0 +1,30 @@
+package net.crefax.hytale.events.placeholder;
+
+/**
+ * Placeholder Resolver
+ *
+ * Supplies the value of one placeholder in event commands. Register it
+ * with the {@link PlaceholderRegistry} of the scheduler:
+ *
+ * <pre>
+ * registry.register("faction", Scope.PLAYER, context -&gt; factions.of(context.getPlayer().getUuid()));
+ * </pre>
+ *
+ * A resolver is only called for commands that use its placeholder, at
+ * most once per fire or once per player of a fire depending on its scope.
+ *
+ * @author Crefax
+ */
+@FunctionalInterface
+public interface PlaceholderResolver {
+
+    enum Scope {
+        FIRE,   // same for every player of a fire, e.g. {event}; the context has no player
+        PLAYER  // per player, e.g. {world}
+    }
+
+    /**
+     * @return the text to insert, null leaves the placeholder as written
+     */
+    String resolve(PlaceholderContext context);
+}
@@ -0,0 +1,118 @@
+package net.crefax.hytale.events.player;
+
+import com.hypixel.hytale.server.core.entity.entities.Player;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.world.World;
+
+import net.crefax.hytale.events.i18n.I18nManager;
+
+import java.util.UUID;
+import java.util.function.Predicate;
+
+/**
+ * Online Player Entry
+ *
+ * Immutable registry entry for an online player. Username, UUID string,
+ * display name and locale are read once on registration so event fan-out
+ * never has to go back to the PlayerRef accessors. The world can change
+ * while the player stays online; targeting, conditions and {world} read
+ * it through {@link #getCurrentWorld()}.
+ *
+ * Entries can also be created without a live player (see
+ * {@link #detached}), which is what simulations run against.
+ *
+ * @author Crefax
+ */
+public final class OnlinePlayer {
+
+    private final Player player;
+    private final PlayerRef ref;
+    private final UUID uuid;
+    private final String uuidString;
+    private final String username;
+    private final String displayName;
+    private final String world;
+    private final String locale;
+    private final long joinedAt;
+    private final Predicate<String> permissions;
+
+    OnlinePlayer(Player player, long joinedAt) {
+        this.player = player;
+        this.ref = player.getPlayerRef();
+        this.uuid = ref.getUuid();
+        this.uuidString = uuid.toString();
+        this.username = ref.getUsername();
+        this.displayName = player.getDisplayName();
+        this.world = readWorldName(player);
+        this.locale = I18nManager.normalizeLanguage(ref.getLanguage());
+        this.joinedAt = joinedAt;
+        this.permissions = player::hasPermission;
+    }
+
+    private OnlinePlayer(Player player, PlayerRef ref, UUID uuid, String username, String displayName,
+                         String world, String locale, long joinedAt, Predicate<String> permissions) {
+        this.player = player;
+        this.ref = ref;
+        this.uuid = uuid;
+        this.uuidString = uuid.toString();
+        this.username = username;
+        this.displayName = displayName;
+        this.world = world;
+        this.locale = locale;
+        this.joinedAt = joinedAt;
+        this.permissions = permissions;
+    }
+
+    /**
+     * Entry without a live player behind it, e.g. a simulated player
+     */
+    public static OnlinePlayer detached(UUID uuid, String username, String world, String locale,
+                                        long joinedAt, Predicate<String> permissions) {
+        return new OnlinePlayer(null, null, uuid, username, username, world, locale, joinedAt, permissions);
+    }
+
+    /**
+     * Same entry with a different session start
+     */
+    OnlinePlayer withJoinedAt(long joinedAt) {
+        return new OnlinePlayer(player, ref, uuid, username, displayName, world, locale, joinedAt, permissions);
+    }
+
+    private static String readWorldName(Player player) {
+        try {
+            World world = player.getWorld();
+            return world != null ? world.getName() : null;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /** Live player, or null for detached entries */
+    public Player getPlayer() { return player; }
+    /** Live player reference, or null for detached entries */
+    public PlayerRef getRef() { return ref; }
+    public UUID getUuid() { return uuid; }
+    public String getUuidString() { return uuidString; }
+    public String getUsername() { return username; }
+    public String getDisplayName() { return displayName; }
+    /** World name at registration time, or null if unknown */
+    public String getWorld() { return world; }
+
+    /**
+     * World the player is in now, read from the live player; detached
+     * entries and unreadable worlds fall back to {@link #getWorld()}
+     */
+    public String getCurrentWorld() {
+        if (player == null) return world;
+        String current = readWorldName(player);
+        return current != null ? current : world;
+    }
+    /** Normalized locale code (e.g. "en-us"), or null if the client did not report one */
+    public String getLocale() { return locale; }
+    /** Session start in epoch millis */
+    public long getJoinedAt() { return joinedAt; }
+
+    public boolean hasPermission(String node) {
+        return permissions.test(node);
+    }
+}
@@ -0,0 +1,112 @@
+package net.crefax.hytale.events.player;
+
+import com.hypixel.hytale.server.core.entity.entities.Player;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.function.LongSupplier;
+
+/**
+ * Online Player Registry
+ *
+ * Copy-on-write registry of online players. Joins and leaves build a new
+ * array and bump the epoch; readers grab the current {@link PlayerSnapshot}
+ * once per fire and get a consistent player set for the whole fan-out,
+ * without locking and without copying.
+ *
+ * @author Crefax
+ */
+public class PlayerRegistry {
+
+    private final Object writeLock = new Object();
+    private final LongSupplier clock;
+    private volatile PlayerSnapshot snapshot = PlayerSnapshot.EMPTY;
+
+    /**
+     * @param clock source of join times, in epoch millis
+     */
+    public PlayerRegistry(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Register a player. A player that is already registered (e.g. after a
+     * world change) is refreshed in place and keeps its join time.
+     */
+    public OnlinePlayer register(Player player) {
+        return register(new OnlinePlayer(player, clock.getAsLong()));
+    }
+
+    /**
+     * Register a prepared entry (same rules as {@link #register(Player)})
+     */
+    public OnlinePlayer register(OnlinePlayer entry) {
+        synchronized (writeLock) {
+            OnlinePlayer[] current = snapshot.players();
+            int existing = indexOf(current, entry.getUuid());
+            OnlinePlayer[] next;
+            if (existing >= 0) {
+                entry = entry.withJoinedAt(current[existing].getJoinedAt());
+                next = current.clone();
+                next[existing] = entry;
+            } else {
+                next = Arrays.copyOf(current, current.length + 1);
+                next[current.length] = entry;
+            }
+            snapshot = new PlayerSnapshot(snapshot.getEpoch() + 1, next);
+            return entry;
+        }
+    }
+
+    /**
+     * Unregister a player. Returns the removed entry, or null if it was not registered.
+     */
+    public OnlinePlayer unregister(PlayerRef ref) {
+        return ref != null ? unregister(ref.getUuid()) : null;
+    }
+
+    /**
+     * Unregister a player by UUID. Returns the removed entry, or null if it was not registered.
+     */
+    public OnlinePlayer unregister(UUID uuid) {
+        synchronized (writeLock) {
+            OnlinePlayer[] current = snapshot.players();
+            int existing = indexOf(current, uuid);
+            if (existing < 0) {
+                return null;
+            }
+            OnlinePlayer[] next = new OnlinePlayer[current.length - 1];
+            System.arraycopy(current, 0, next, 0, existing);
+            System.arraycopy(current, existing + 1, next, existing, current.length - existing - 1);
+            snapshot = new PlayerSnapshot(snapshot.getEpoch() + 1, next);
+            return current[existing];
+        }
+    }
+
+    /**
+     * Current snapshot. Cheap: a single volatile read.
+     */
+    public PlayerSnapshot snapshot() {
+        return snapshot;
+    }
+
+    public OnlinePlayer find(UUID uuid) {
+        OnlinePlayer[] current = snapshot.players();
+        int index = indexOf(current, uuid);
+        return index >= 0 ? current[index] : null;
+    }
+
+    public int size() {
+        return snapshot.size();
+    }
+
+    private static int indexOf(OnlinePlayer[] players, UUID uuid) {
+        for (int i = 0; i < players.length; i++) {
+            if (players[i].getUuid().equals(uuid)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,81 @@
+package net.crefax.hytale.events.player;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Player Selection
+ *
+ * The players an event fans out to: either a whole snapshot or a sorted
+ * subset of its positions produced by a {@link TargetSelector}.
+ *
+ * @author Crefax
+ */
+public final class PlayerSelection {
+
+    private final PlayerSnapshot snapshot;
+    private final int[] positions; // null = the first `size` players of the snapshot
+    private final int size;
+
+    private PlayerSelection(PlayerSnapshot snapshot, int[] positions, int size) {
+        this.snapshot = snapshot;
+        this.positions = positions;
+        this.size = size;
+    }
+
+    public static PlayerSelection all(PlayerSnapshot snapshot) {
+        return new PlayerSelection(snapshot, null, snapshot.size());
+    }
+
+    /**
+     * Selection of players gathered from several snapshots, e.g. the
+     * recipients of messages collected over a few fires
+     */
+    public static PlayerSelection of(List<OnlinePlayer> players) {
+        OnlinePlayer[] array = players.toArray(new OnlinePlayer[0]);
+        return all(new PlayerSnapshot(-1L, array));
+    }
+
+    static PlayerSelection prefix(PlayerSnapshot snapshot, int size) {
+        return new PlayerSelection(snapshot, null, size);
+    }
+
+    static PlayerSelection of(PlayerSnapshot snapshot, int[] positions) {
+        return new PlayerSelection(snapshot, positions, positions.length);
+    }
+
+    public PlayerSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public OnlinePlayer get(int i) {
+        return snapshot.get(positions != null ? positions[i] : i);
+    }
+
+    /**
+     * The players of this selection that pass the filter, in the same order
+     */
+    public PlayerSelection filter(Predicate<OnlinePlayer> filter) {
+        int[] selected = new int[size];
+        int n = 0;
+        for (int i = 0; i < size; i++) {
+            int position = positions != null ? positions[i] : i;
+            if (filter.test(snapshot.get(position))) {
+                selected[n++] = position;
+            }
+        }
+        if (n == size) {
+            return this;
+        }
+        return new PlayerSelection(snapshot, Arrays.copyOf(selected, n), n);
+    }
+}
@@ -0,0 +1,205 @@
+package net.crefax.hytale.events.player;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Player Snapshot
+ *
+ * Immutable, array-backed view of the online players at one registry epoch.
+ * Players are kept in join order. Secondary indices (by world and by locale)
+ * map a key to the positions of matching players and are built lazily the
+ * first time a snapshot is asked for them. Players change worlds without
+ * leaving, so the world index reads their current world and is rebuilt for
+ * every new fire time; events firing at the same moment share it.
+ *
+ * @author Crefax
+ */
+public final class PlayerSnapshot {
+
+    static final PlayerSnapshot EMPTY = new PlayerSnapshot(0L, new OnlinePlayer[0]);
+    private static final int[] NO_INDICES = new int[0];
+    // Permission results are memoized per snapshot, but not forever
+    private static final long PERMISSION_MEMO_MILLIS = 60_000L;
+    private static final byte UNKNOWN = 0, GRANTED = 1, DENIED = 2;
+
+    private final long epoch;
+    private final OnlinePlayer[] players;
+    private volatile Indices indices;
+    private volatile WorldIndex worldIndex;
+    private volatile PermissionMemo permissionMemo;
+
+    PlayerSnapshot(long epoch, OnlinePlayer[] players) {
+        this.epoch = epoch;
+        this.players = players;
+    }
+
+    public long getEpoch() {
+        return epoch;
+    }
+
+    public int size() {
+        return players.length;
+    }
+
+    public boolean isEmpty() {
+        return players.length == 0;
+    }
+
+    public OnlinePlayer get(int index) {
+        return players[index];
+    }
+
+    /**
+     * Backing array, shared with the registry. Must not be modified.
+     */
+    OnlinePlayer[] players() {
+        return players;
+    }
+
+    /**
+     * Number of players that joined at or before the given time. Since players
+     * are kept in join order, they are exactly the positions [0, result).
+     */
+    public int countJoinedAtOrBefore(long cutoffMillis) {
+        int low = 0;
+        int high = players.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (players[mid].getJoinedAt() <= cutoffMillis) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Positions of the players in the given world at the given time, in join order
+     *
+     * @param nowMillis scheduler time, the index is rebuilt once per distinct time
+     */
+    public int[] indicesForWorld(String world, long nowMillis) {
+        WorldIndex index = worldIndex;
+        if (index == null || index.builtAt != nowMillis) {
+            index = new WorldIndex(nowMillis, players);
+            worldIndex = index;
+        }
+        int[] result = index.byWorld.get(world);
+        return result != null ? result : NO_INDICES;
+    }
+
+    /**
+     * Positions of the players using the given locale, in join order
+     */
+    public int[] indicesForLocale(String locale) {
+        int[] result = indices().byLocale.get(locale);
+        return result != null ? result : NO_INDICES;
+    }
+
+    /**
+     * Distinct locales present in this snapshot (players without a locale are keyed by "")
+     */
+    public Map<String, int[]> localeIndex() {
+        return indices().byLocale;
+    }
+
+    /**
+     * Permission check for the player at the given position. Results are
+     * memoized per node, so repeated fires between joins and leaves only
+     * ask the server once per player and node.
+     *
+     * @param nowMillis scheduler time, the memo is renewed once it is old
+     */
+    public boolean hasPermission(int index, String node, long nowMillis) {
+        PermissionMemo memo = permissionMemo;
+        if (memo == null || nowMillis - memo.createdAt > PERMISSION_MEMO_MILLIS) {
+            memo = new PermissionMemo(nowMillis);
+            permissionMemo = memo;
+        }
+        byte[] results = memo.byNode.computeIfAbsent(node, k -> new byte[players.length]);
+        byte result = results[index];
+        if (result == UNKNOWN) {
+            boolean granted;
+            try {
+                granted = players[index].hasPermission(node);
+            } catch (Exception e) {
+                granted = false;
+            }
+            result = granted ? GRANTED : DENIED;
+            results[index] = result;
+        }
+        return result == GRANTED;
+    }
+
+    private Indices indices() {
+        Indices current = indices;
+        if (current == null) {
+            current = new Indices(players);
+            indices = current;
+        }
+        return current;
+    }
+
+    private static final class PermissionMemo {
+        final long createdAt;
+        final Map<String, byte[]> byNode = new ConcurrentHashMap<>();
+
+        PermissionMemo(long createdAt) {
+            this.createdAt = createdAt;
+        }
+    }
+
+    /**
+     * Locale index over one snapshot
+     */
+    private static final class Indices {
+        final Map<String, int[]> byLocale;
+
+        Indices(OnlinePlayer[] players) {
+            String[] locales = new String[players.length];
+            for (int i = 0; i < players.length; i++) {
+                locales[i] = players[i].getLocale();
+            }
+            this.byLocale = group(locales);
+        }
+    }
+
+    /**
+     * World index over one snapshot, as the players stood at one time
+     */
+    private static final class WorldIndex {
+        final long builtAt;
+        final Map<String, int[]> byWorld;
+
+        WorldIndex(long builtAt, OnlinePlayer[] players) {
+            String[] worlds = new String[players.length];
+            for (int i = 0; i < players.length; i++) {
+                worlds[i] = players[i].getCurrentWorld();
+            }
+            this.builtAt = builtAt;
+            this.byWorld = group(worlds);
+        }
+    }
+
+    /**
+     * Positions per distinct key, in order (a null key is grouped as "")
+     */
+    private static Map<String, int[]> group(String[] keys) {
+        Map<String, Integer> counts = new HashMap<>();
+        for (String key : keys) {
+            counts.merge(key != null ? key : "", 1, Integer::sum);
+        }
+        Map<String, int[]> groups = new HashMap<>();
+        counts.forEach((k, n) -> groups.put(k, new int[n]));
+        Map<String, Integer> fill = new HashMap<>();
+        for (int i = 0; i < keys.length; i++) {
+            String key = keys[i] != null ? keys[i] : "";
+            groups.get(key)[fill.merge(key, 1, Integer::sum) - 1] = i;
+        }
+        return Collections.unmodifiableMap(groups);
+    }
+}
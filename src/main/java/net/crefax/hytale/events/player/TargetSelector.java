@@ -0,0 +1,147 @@
+package net.crefax.hytale.events.player;
+
+import net.crefax.hytale.events.config.EventConfig.Targeting;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Target Selector
+ *
+ * Compiled form of an event's targeting section. Filters run cheapest and
+ * most selective first: session length is a binary search over the
+ * join-ordered snapshot, worlds come from the snapshot's world index (of
+ * where the players are at fire time), and only the remaining candidates
+ * are asked for permissions. A narrow event therefore costs in proportion
+ * to the players it actually targets.
+ *
+ * @author Crefax
+ */
+public final class TargetSelector {
+
+    /** Selector that targets every online player */
+    public static final TargetSelector ALL = new TargetSelector(new String[0], new String[0], 0L);
+
+    private final String[] worlds;
+    private final String[] permissions;
+    private final long minOnlineMillis;
+
+    private TargetSelector(String[] worlds, String[] permissions, long minOnlineMillis) {
+        this.worlds = worlds;
+        this.permissions = permissions;
+        this.minOnlineMillis = minOnlineMillis;
+    }
+
+    /**
+     * Compile a targeting section. A null or empty section compiles to {@link #ALL}.
+     */
+    public static TargetSelector compile(Targeting targeting) {
+        if (targeting == null) {
+            return ALL;
+        }
+        String[] worlds = distinct(targeting.worlds);
+        String[] permissions = distinct(targeting.permissions);
+        long minOnlineMillis = Math.max(0, targeting.minOnlineMinutes) * 60_000L;
+        if (worlds.length == 0 && permissions.length == 0 && minOnlineMillis == 0) {
+            return ALL;
+        }
+        return new TargetSelector(worlds, permissions, minOnlineMillis);
+    }
+
+    public boolean isAll() {
+        return this == ALL;
+    }
+
+    /**
+     * Select the targeted players from a snapshot
+     */
+    public PlayerSelection select(PlayerSnapshot snapshot, long nowMillis) {
+        if (isAll() || snapshot.isEmpty()) {
+            return PlayerSelection.all(snapshot);
+        }
+
+        // Session length: players [0, limit) have been online long enough
+        int limit = snapshot.size();
+        if (minOnlineMillis > 0) {
+            limit = snapshot.countJoinedAtOrBefore(nowMillis - minOnlineMillis);
+        }
+
+        // World index: sorted candidate positions below the limit
+        int[] candidates;
+        int count;
+        if (worlds.length > 0) {
+            candidates = worldCandidates(snapshot, limit, nowMillis);
+            count = candidates.length;
+        } else {
+            candidates = null;
+            count = limit;
+        }
+
+        if (permissions.length == 0) {
+            if (candidates != null) {
+                return PlayerSelection.of(snapshot, candidates);
+            }
+            return PlayerSelection.prefix(snapshot, limit);
+        }
+
+        // Permissions: only evaluated for the remaining candidates
+        int[] selected = new int[count];
+        int n = 0;
+        for (int i = 0; i < count; i++) {
+            int position = candidates != null ? candidates[i] : i;
+            if (hasAnyPermission(snapshot, position, nowMillis)) {
+                selected[n++] = position;
+            }
+        }
+        return PlayerSelection.of(snapshot, n == count ? selected : Arrays.copyOf(selected, n));
+    }
+
+    private int[] worldCandidates(PlayerSnapshot snapshot, int limit, long nowMillis) {
+        if (worlds.length == 1) {
+            return truncate(snapshot.indicesForWorld(worlds[0], nowMillis), limit);
+        }
+        int total = 0;
+        int[][] parts = new int[worlds.length][];
+        for (int w = 0; w < worlds.length; w++) {
+            parts[w] = truncate(snapshot.indicesForWorld(worlds[w], nowMillis), limit);
+            total += parts[w].length;
+        }
+        // World sets are disjoint; merge and sort to keep join order
+        int[] merged = new int[total];
+        int offset = 0;
+        for (int[] part : parts) {
+            System.arraycopy(part, 0, merged, offset, part.length);
+            offset += part.length;
+        }
+        Arrays.sort(merged);
+        return merged;
+    }
+
+    private boolean hasAnyPermission(PlayerSnapshot snapshot, int position, long nowMillis) {
+        for (String permission : permissions) {
+            if (snapshot.hasPermission(position, permission, nowMillis)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static int[] truncate(int[] sorted, int limit) {
+        int n = Arrays.binarySearch(sorted, limit);
+        n = n >= 0 ? n : -n - 1;
+        return n == sorted.length ? sorted : Arrays.copyOf(sorted, n);
+    }
+
+    private static String[] distinct(List<String> values) {
+        List<String> result = new ArrayList<>();
+        if (values != null) {
+            for (String value : values) {
+                if (value != null && !value.isEmpty() && !result.contains(value)) {
+                    result.add(value);
+                }
+            }
+        }
+        return result.toArray(new String[0]);
+    }
+}
@@ -0,0 +1,433 @@
+package net.crefax.hytale.events.playtime;
+
+import net.crefax.hytale.events.time.TimingWheel;
+import net.crefax.hytale.events.time.TimingWheel.Timeout;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Playtime Tracker
+ *
+ * Counts each player's own playtime across sessions and tells when a
+ * playtime event is due for them, e.g. "every 60 minutes this player has
+ * been online". Every online player has one timer per playtime event on
+ * a single {@link TimingWheel}; {@link #advance} is called once per
+ * second and returns who became due, grouped by event. A player's
+ * progress only moves once {@link #rewarded} confirms the reward reached
+ * them; until then they are due again every minute.
+ *
+ * For every known player the file mods/EventScheduler/playtime.dat keeps
+ * the total playtime, when they were last seen and, per event, the
+ * playtime at which they were last rewarded. Players not seen for longer
+ * than a horizon are dropped by {@link #evict}. The file is rewritten in
+ * the background every few minutes and on shutdown, through a temporary
+ * file so a crash never leaves it half written.
+ *
+ * File layout: magic (int), version (byte), event count (varint) and
+ * names (UTF), player count (varint), then per player: uuid (2 longs),
+ * playtime seconds (varlong), last seen epoch seconds (varlong, since
+ * version 2), mark count (varint) and per mark the event index (varint)
+ * and playtime seconds (varlong).
+ *
+ * @author Crefax
+ */
+public class PlaytimeTracker {
+
+    private static final Logger LOGGER = Logger.getLogger("EventScheduler");
+    private static final int MAGIC = 0x45535054; // "ESPT"
+    private static final byte VERSION = 2;
+    private static final long TICK_MILLIS = 1000;
+    private static final int WHEEL_SLOTS = 512;
+    private static final long NO_MARK = -1;
+    private static final long RETRY_MILLIS = 60_000; // due again this soon while a reward did not reach the player
+
+    /**
+     * Totals of a player, online or not. Marks are aligned with the current event names.
+     */
+    private static final class Record {
+        long playtimeMillis; // closed sessions only
+        long lastSeenMillis; // wall time of the last join or leave
+        long[] marks;        // playtime at the last reward per event, NO_MARK if never rewarded
+
+        Record(int events) {
+            marks = new long[events];
+            Arrays.fill(marks, NO_MARK);
+        }
+    }
+
+    private static final class Session {
+        final UUID uuid;
+        final Record record;
+        final long joinedAt;
+        Timeout<Due>[] timers;
+
+        Session(UUID uuid, Record record, long joinedAt) {
+            this.uuid = uuid;
+            this.record = record;
+            this.joinedAt = joinedAt;
+        }
+
+        long playtimeMillis(long now) {
+            return record.playtimeMillis + Math.max(0, now - joinedAt);
+        }
+    }
+
+    private static final class Due {
+        final Session session;
+        final int event;
+
+        Due(Session session, int event) {
+            this.session = session;
+            this.event = event;
+        }
+    }
+
+    private final Path file;
+    private final long createdAt;
+    private final ExecutorService io;
+    private final TimingWheel<Due> wheel;
+    private final Map<UUID, Record> records = new HashMap<>();
+    private final Map<UUID, Session> sessions = new HashMap<>();
+    private String[] eventNames = new String[0];
+    private long[] intervalMillis = new long[0];
+    private boolean dirty;
+
+    public PlaytimeTracker(Path file, long nowMillis) {
+        this.file = file;
+        this.createdAt = nowMillis;
+        this.wheel = new TimingWheel<>(TICK_MILLIS, WHEEL_SLOTS, nowMillis);
+        this.io = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "EventScheduler-Playtime");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Set the playtime events and their intervals (seconds). Marks of events
+     * that are no longer configured are dropped, online players are re-armed.
+     */
+    public synchronized void setEvents(Map<String, Integer> intervals, long now) {
+        String[] names = intervals.keySet().toArray(new String[0]);
+        long[] millis = new long[names.length];
+        for (int i = 0; i < names.length; i++) {
+            millis[i] = Math.max(1, intervals.get(names[i])) * 1000L;
+        }
+        if (!Arrays.equals(names, eventNames)) {
+            for (Record record : records.values()) {
+                record.marks = remap(record.marks, eventNames, names);
+            }
+        }
+        for (Session session : sessions.values()) {
+            disarm(session);
+        }
+        eventNames = names;
+        intervalMillis = millis;
+        for (Session session : sessions.values()) {
+            arm(session, now);
+        }
+    }
+
+    /**
+     * A player came online. Does nothing if they already are (e.g. a world change).
+     */
+    public synchronized void join(UUID uuid, long now) {
+        if (sessions.containsKey(uuid)) return;
+        Record record = records.computeIfAbsent(uuid, id -> new Record(eventNames.length));
+        record.lastSeenMillis = now;
+        Session session = new Session(uuid, record, now);
+        sessions.put(uuid, session);
+        arm(session, now);
+    }
+
+    /**
+     * A player went offline: their session is added to their playtime
+     */
+    public synchronized void leave(UUID uuid, long now) {
+        Session session = sessions.remove(uuid);
+        if (session == null) return;
+        disarm(session);
+        session.record.playtimeMillis = session.playtimeMillis(now);
+        session.record.lastSeenMillis = now;
+        dirty = true;
+    }
+
+    /**
+     * Expire every timer up to now. Returns the players that became due,
+     * per event name. Their progress stays until {@link #rewarded}; in the
+     * meantime they are due again after a minute (or the interval if shorter).
+     */
+    public synchronized Map<String, List<UUID>> advance(long now) {
+        Map<String, List<UUID>> due = new LinkedHashMap<>();
+        wheel.advance(now, timer -> {
+            Session session = timer.session;
+            if (sessions.get(session.uuid) != session) return;
+            long retry = Math.min(RETRY_MILLIS, intervalMillis[timer.event]);
+            session.timers[timer.event] = wheel.add(now + retry, timer);
+            due.computeIfAbsent(eventNames[timer.event], name -> new ArrayList<>()).add(session.uuid);
+        });
+        return due;
+    }
+
+    /**
+     * The event's reward reached these players: count it against their
+     * playtime and arm their next timer. Unknown events or players are ignored.
+     */
+    public synchronized void rewarded(String eventName, Collection<UUID> players, long now) {
+        int event = Arrays.asList(eventNames).indexOf(eventName);
+        if (event < 0) return;
+        long interval = intervalMillis[event];
+        for (UUID uuid : players) {
+            Record record = records.get(uuid);
+            if (record == null) continue;
+            Session session = sessions.get(uuid);
+            long playtime = session != null ? session.playtimeMillis(now) : record.playtimeMillis;
+            long mark = record.marks[event] == NO_MARK ? 0 : record.marks[event];
+            if (mark + interval > playtime) continue; // already counted
+            // Keep the cadence, but never owe more than one reward
+            mark += interval;
+            if (mark + interval <= playtime) {
+                mark = playtime;
+            }
+            record.marks[event] = mark;
+            dirty = true;
+            if (session != null && session.timers != null) {
+                Timeout<Due> timer = session.timers[event];
+                wheel.cancel(timer);
+                session.timers[event] = wheel.add(deadline(session, event, now), timer.value);
+            }
+        }
+    }
+
+    /**
+     * Forget offline players not seen for longer than horizonMillis.
+     * Returns how many were dropped.
+     */
+    public synchronized int evict(long horizonMillis, long now) {
+        int before = records.size();
+        records.entrySet().removeIf(entry -> !sessions.containsKey(entry.getKey())
+                && now - entry.getValue().lastSeenMillis > horizonMillis);
+        int evicted = before - records.size();
+        if (evicted > 0) dirty = true;
+        return evicted;
+    }
+
+    /**
+     * Total playtime of a player including the current session
+     */
+    public synchronized long getPlaytimeMillis(UUID uuid, long now) {
+        Session session = sessions.get(uuid);
+        if (session != null) return session.playtimeMillis(now);
+        Record record = records.get(uuid);
+        return record != null ? record.playtimeMillis : 0;
+    }
+
+    public synchronized int getKnownPlayers() {
+        return records.size();
+    }
+
+    public synchronized int getPendingTimers() {
+        return wheel.size();
+    }
+
+    private void arm(Session session, long now) {
+        @SuppressWarnings("unchecked")
+        Timeout<Due>[] timers = (Timeout<Due>[]) new Timeout[eventNames.length];
+        for (int i = 0; i < eventNames.length; i++) {
+            timers[i] = wheel.add(deadline(session, i, now), new Due(session, i));
+        }
+        session.timers = timers;
+    }
+
+    private void disarm(Session session) {
+        if (session.timers == null) return;
+        for (Timeout<Due> timer : session.timers) {
+            wheel.cancel(timer);
+        }
+        session.timers = null;
+    }
+
+    /**
+     * Wall time at which the player's playtime reaches their next reward for the event
+     */
+    private long deadline(Session session, int event, long now) {
+        long mark = session.record.marks[event];
+        long dueAt = (mark == NO_MARK ? 0 : mark) + intervalMillis[event];
+        long playtime = session.playtimeMillis(now);
+        return now + Math.max(0, dueAt - playtime);
+    }
+
+    private static long[] remap(long[] marks, String[] from, String[] to) {
+        long[] result = new long[to.length];
+        Arrays.fill(result, NO_MARK);
+        for (int i = 0; i < to.length; i++) {
+            int old = Arrays.asList(from).indexOf(to[i]);
+            if (old >= 0 && old < marks.length) result[i] = marks[old];
+        }
+        return result;
+    }
+
+    /**
+     * Read the playtime file, if there is one. Call before any player joins
+     * and before {@link #setEvents}.
+     */
+    public synchronized void load() throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a playtime file: " + file);
+            }
+            byte version = in.readByte();
+            if (version < 1 || version > VERSION) {
+                throw new IOException("Unsupported playtime file version " + version + ": " + file);
+            }
+            String[] names = new String[readVarInt(in)];
+            for (int i = 0; i < names.length; i++) {
+                names[i] = in.readUTF();
+            }
+            int players = readVarInt(in);
+            for (int p = 0; p < players; p++) {
+                UUID uuid = new UUID(in.readLong(), in.readLong());
+                Record record = new Record(names.length);
+                record.playtimeMillis = readVarLong(in) * 1000L;
+                // Version 1 did not keep it; count them as seen now
+                record.lastSeenMillis = version >= 2 ? readVarLong(in) * 1000L : createdAt;
+                int marks = readVarInt(in);
+                for (int m = 0; m < marks; m++) {
+                    int event = readVarInt(in);
+                    long seconds = readVarLong(in);
+                    if (event < names.length) record.marks[event] = seconds * 1000L;
+                }
+                records.put(uuid, record);
+            }
+            // Marks stay aligned with the saved names until setEvents maps them
+            eventNames = names;
+            intervalMillis = new long[names.length];
+        } catch (NoSuchFileException e) {
+            return;
+        }
+        LOGGER.info("[EventScheduler] Playtime loaded: " + records.size() + " player(s).");
+    }
+
+    /**
+     * Write the file in the background if anything changed. Online players
+     * are saved with their session so far.
+     */
+    public void saveAsync(long now) {
+        byte[] bytes;
+        synchronized (this) {
+            if (!dirty && sessions.isEmpty()) return;
+            bytes = encode(now);
+            dirty = false;
+        }
+        io.execute(() -> write(bytes));
+    }
+
+    /**
+     * Save and wait for the file to be written
+     */
+    public void close(long now) {
+        byte[] bytes;
+        synchronized (this) {
+            bytes = encode(now);
+        }
+        io.execute(() -> write(bytes));
+        io.shutdown();
+        try {
+            if (!io.awaitTermination(10, TimeUnit.SECONDS)) {
+                LOGGER.warning("[EventScheduler] Playtime save did not finish in time.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private byte[] encode(long now) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(64 + records.size() * 32);
+        try (DataOutputStream out = new DataOutputStream(buffer)) {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            writeVarLong(out, eventNames.length);
+            for (String name : eventNames) {
+                out.writeUTF(name);
+            }
+            writeVarLong(out, records.size());
+            for (Map.Entry<UUID, Record> entry : records.entrySet()) {
+                Record record = entry.getValue();
+                Session session = sessions.get(entry.getKey());
+                out.writeLong(entry.getKey().getMostSignificantBits());
+                out.writeLong(entry.getKey().getLeastSignificantBits());
+                writeVarLong(out, (session != null ? session.playtimeMillis(now) : record.playtimeMillis) / 1000L);
+                writeVarLong(out, (session != null ? now : record.lastSeenMillis) / 1000L);
+                int marks = 0;
+                for (long mark : record.marks) {
+                    if (mark != NO_MARK) marks++;
+                }
+                writeVarLong(out, marks);
+                for (int i = 0; i < record.marks.length; i++) {
+                    if (record.marks[i] == NO_MARK) continue;
+                    writeVarLong(out, i);
+                    writeVarLong(out, record.marks[i] / 1000L);
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // in-memory stream
+        }
+        return buffer.toByteArray();
+    }
+
+    private void write(byte[] bytes) {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            try (BufferedOutputStream out = new BufferedOutputStream(Files.newOutputStream(temp))) {
+                out.write(bytes);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOGGER.warning("[EventScheduler] Playtime write error: " + e.getMessage());
+        }
+    }
+
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        return (int) readVarLong(in);
+    }
+}
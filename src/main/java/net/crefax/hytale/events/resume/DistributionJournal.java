@@ -0,0 +1,288 @@
+package net.crefax.hytale.events.resume;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * Distribution Journal
+ *
+ * Keeps the fires that a shutdown cut short, so the next start can finish
+ * them. A pending fire remembers the first global step that has not run
+ * yet and, per player who has not been served completely, the first step
+ * that player still needs.
+ *
+ * The snapshot mods/EventScheduler/pending-fires.dat is written on
+ * shutdown and rewritten right after it is read on start, through a
+ * temporary file so a crash never leaves it half written. While resumed
+ * fires are handed out, each served player and each run of the global
+ * steps is first appended to pending-fires.log, which the next load
+ * applies to the snapshot: a crash can cost a delivery but never repeats
+ * one. Without pending fires there is no file.
+ *
+ * Snapshot layout: magic (int), version (byte), generation (long), fire
+ * count (varint), then per fire: event name (UTF), command signature
+ * (int), fire time and interruption time (longs), global step (varint, 0
+ * for none, otherwise step + 1), console flag (boolean), player count
+ * (varint) and per player the uuid (2 longs) and first step (varint).
+ *
+ * Log layout: magic (int), generation (long) of the snapshot it belongs
+ * to, then records of kind (byte), fire index (varint) in the snapshot
+ * and, for a served player, the uuid (2 longs). A log of another
+ * generation or a torn last record is ignored.
+ *
+ * @author Crefax
+ */
+public class DistributionJournal {
+
+    private static final Logger LOGGER = Logger.getLogger("EventScheduler");
+    private static final int MAGIC = 0x45535046; // "ESPF"
+    private static final int LOG_MAGIC = 0x4553504C; // "ESPL"
+    private static final byte VERSION = 2;
+    private static final byte SERVED = 1, GLOBALS_DONE = 2;
+
+    /**
+     * What is left of one interrupted fire
+     */
+    public static final class PendingFire {
+        public static final int NONE = -1;
+
+        public final String eventName;
+        public final int signature;     // of the event's commands, a changed event is not resumed
+        public final long fireTime;     // the fire's time, loot rolls and audit refer to it
+        public final long interruptedAt;
+        public final boolean runConsoleCommands;
+        public final Map<UUID, Integer> recipients = new ConcurrentHashMap<>(); // first step each player still needs
+        public final Set<UUID> resuming = ConcurrentHashMap.newKeySet(); // recipients queued on a worker, not saved
+        public volatile int globalStep; // first global step still to run, NONE once they all ran
+
+        public PendingFire(String eventName, int signature, long fireTime, long interruptedAt,
+                           int globalStep, boolean runConsoleCommands) {
+            this.eventName = eventName;
+            this.signature = signature;
+            this.fireTime = fireTime;
+            this.interruptedAt = interruptedAt;
+            this.globalStep = globalStep;
+            this.runConsoleCommands = runConsoleCommands;
+        }
+
+        public boolean isDone() {
+            return globalStep == NONE && recipients.isEmpty();
+        }
+    }
+
+    private final Path file;
+    private final Path logFile;
+    private long generation;
+    private Map<PendingFire, Integer> indices = new IdentityHashMap<>(); // positions in the current snapshot
+    private DataOutputStream log;
+
+    public DistributionJournal(Path file) {
+        this.file = file;
+        this.logFile = file.resolveSibling(file.getFileName().toString().replaceFirst("\\.dat$", "") + ".log");
+    }
+
+    /**
+     * Read the pending fires, none if there is no file
+     */
+    public synchronized List<PendingFire> load() throws IOException {
+        List<PendingFire> fires = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readByte() != VERSION) {
+                throw new IOException("Not a pending fires file: " + file);
+            }
+            generation = in.readLong();
+            int count = readVarInt(in);
+            for (int f = 0; f < count; f++) {
+                String eventName = in.readUTF();
+                int signature = in.readInt();
+                long fireTime = in.readLong();
+                long interruptedAt = in.readLong();
+                int globalStep = readVarInt(in) - 1;
+                PendingFire fire = new PendingFire(eventName, signature, fireTime, interruptedAt, globalStep, in.readBoolean());
+                int players = readVarInt(in);
+                for (int p = 0; p < players; p++) {
+                    fire.recipients.put(new UUID(in.readLong(), in.readLong()), readVarInt(in));
+                }
+                fires.add(fire);
+            }
+        } catch (NoSuchFileException e) {
+            return fires;
+        }
+        applyLog(fires);
+        return fires;
+    }
+
+    /**
+     * Apply what was handed out after the snapshot was written
+     */
+    private void applyLog(List<PendingFire> fires) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(logFile)))) {
+            if (in.readInt() != LOG_MAGIC || in.readLong() != generation) {
+                return; // left over from an older snapshot
+            }
+            while (true) {
+                int kind = in.read();
+                if (kind < 0) break;
+                int index = readVarInt(in);
+                if (index >= fires.size()) break;
+                PendingFire fire = fires.get(index);
+                if (kind == SERVED) {
+                    fire.recipients.remove(new UUID(in.readLong(), in.readLong()));
+                } else if (kind == GLOBALS_DONE) {
+                    fire.globalStep = PendingFire.NONE;
+                } else {
+                    break;
+                }
+            }
+        } catch (NoSuchFileException | EOFException e) {
+            // No log, or the last record was cut off by the crash
+        }
+    }
+
+    /**
+     * Record, before it happens, that a player of a saved fire is served
+     */
+    public synchronized void markServed(PendingFire fire, UUID uuid) {
+        append(fire, SERVED, uuid);
+    }
+
+    /**
+     * Record, before they run, that the global steps of a saved fire ran
+     */
+    public synchronized void markGlobalsDone(PendingFire fire) {
+        append(fire, GLOBALS_DONE, null);
+    }
+
+    private void append(PendingFire fire, byte kind, UUID uuid) {
+        Integer index = indices.get(fire);
+        if (index == null) {
+            // Not in the snapshot yet, write a new one that has it
+            List<PendingFire> fires = new ArrayList<>(indices.keySet());
+            fires.add(fire);
+            save(fires);
+            return;
+        }
+        try {
+            if (log == null) {
+                log = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(logFile)));
+                log.writeInt(LOG_MAGIC);
+                log.writeLong(generation);
+            }
+            log.writeByte(kind);
+            writeVarLong(log, index);
+            if (uuid != null) {
+                log.writeLong(uuid.getMostSignificantBits());
+                log.writeLong(uuid.getLeastSignificantBits());
+            }
+            // Handed to the OS before the delivery happens, so it survives the process
+            log.flush();
+        } catch (IOException e) {
+            LOGGER.warning("[EventScheduler] Pending fires log error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Stop appending; the next start reads the snapshot and the log
+     */
+    public synchronized void close() {
+        closeLog();
+    }
+
+    private void closeLog() {
+        if (log == null) return;
+        try {
+            log.close();
+        } catch (IOException e) {
+            LOGGER.warning("[EventScheduler] Pending fires log error: " + e.getMessage());
+        }
+        log = null;
+    }
+
+    /**
+     * Replace the snapshot with the given fires and start a new log, or
+     * remove both if all fires are done
+     */
+    public synchronized void save(Collection<PendingFire> fires) {
+        List<PendingFire> pending = new ArrayList<>();
+        for (PendingFire fire : fires) {
+            if (!fire.isDone()) pending.add(fire);
+        }
+        closeLog();
+        indices = new IdentityHashMap<>();
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            if (pending.isEmpty()) {
+                Files.deleteIfExists(file);
+                Files.deleteIfExists(logFile);
+                return;
+            }
+            // A log left from the previous generation no longer matches and is ignored
+            generation++;
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeByte(VERSION);
+                out.writeLong(generation);
+                writeVarLong(out, pending.size());
+                for (PendingFire fire : pending) {
+                    out.writeUTF(fire.eventName);
+                    out.writeInt(fire.signature);
+                    out.writeLong(fire.fireTime);
+                    out.writeLong(fire.interruptedAt);
+                    writeVarLong(out, fire.globalStep + 1);
+                    out.writeBoolean(fire.runConsoleCommands);
+                    // Copied first, the count has to match the entries written
+                    List<Map.Entry<UUID, Integer>> recipients = new ArrayList<>(fire.recipients.entrySet());
+                    writeVarLong(out, recipients.size());
+                    for (Map.Entry<UUID, Integer> entry : recipients) {
+                        out.writeLong(entry.getKey().getMostSignificantBits());
+                        out.writeLong(entry.getKey().getLeastSignificantBits());
+                        writeVarLong(out, entry.getValue());
+                    }
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.deleteIfExists(logFile);
+            for (int i = 0; i < pending.size(); i++) {
+                indices.put(pending.get(i), i);
+            }
+        } catch (IOException e) {
+            LOGGER.warning("[EventScheduler] Pending fires write error: " + e.getMessage());
+        }
+    }
+
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return (int) value;
+        }
+        throw new IOException("Malformed varint");
+    }
+}
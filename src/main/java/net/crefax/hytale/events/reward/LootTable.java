@@ -0,0 +1,144 @@
+package net.crefax.hytale.events.reward;
+
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
+
+/**
+ * Loot Table
+ *
+ * Weighted item outcomes compiled into an alias table (Vose's method), so
+ * every roll is one uniform index and one uniform fraction no matter how
+ * many entries the table has. An outcome without an item is a roll that
+ * gives nothing.
+ *
+ * @author Crefax
+ */
+public final class LootTable {
+
+    private final String name;
+    private final int rolls;
+    private final String[] itemIds;
+    private final int[] amounts;
+    private final RewardBundle[] outcomes; // prebuilt, so a single roll allocates nothing
+    private final double[] probability;
+    private final int[] alias;
+
+    /**
+     * @param itemIds outcome items, null or empty for "nothing"
+     * @param amounts quantity given per outcome
+     * @param weights relative weights, all positive
+     * @param rolls   outcomes drawn per use of the table
+     */
+    public LootTable(String name, String[] itemIds, int[] amounts, double[] weights, int rolls) {
+        int n = weights.length;
+        if (n == 0 || itemIds.length != n || amounts.length != n) {
+            throw new IllegalArgumentException("Loot table " + name + " needs one item, amount and weight per entry");
+        }
+        this.name = name;
+        this.rolls = Math.max(1, rolls);
+        this.itemIds = itemIds.clone();
+        this.amounts = amounts.clone();
+        this.outcomes = new RewardBundle[n];
+        for (int i = 0; i < n; i++) {
+            outcomes[i] = new RewardBundle.Builder().add(itemIds[i], amounts[i]).build();
+        }
+        this.probability = new double[n];
+        this.alias = new int[n];
+
+        double total = 0;
+        for (double weight : weights) {
+            if (!(weight > 0)) {
+                throw new IllegalArgumentException("Loot table " + name + " has a weight that is not positive");
+            }
+            total += weight;
+        }
+
+        // Scale so the average column is 1, then pair each short column with a tall one
+        double[] scaled = new double[n];
+        int[] small = new int[n];
+        int[] large = new int[n];
+        int smallCount = 0;
+        int largeCount = 0;
+        for (int i = 0; i < n; i++) {
+            scaled[i] = weights[i] * n / total;
+            if (scaled[i] < 1.0) {
+                small[smallCount++] = i;
+            } else {
+                large[largeCount++] = i;
+            }
+        }
+        while (smallCount > 0 && largeCount > 0) {
+            int less = small[--smallCount];
+            int more = large[--largeCount];
+            probability[less] = scaled[less];
+            alias[less] = more;
+            scaled[more] = (scaled[more] + scaled[less]) - 1.0;
+            if (scaled[more] < 1.0) {
+                small[smallCount++] = more;
+            } else {
+                large[largeCount++] = more;
+            }
+        }
+        // Whatever is left is 1 up to rounding
+        while (largeCount > 0) {
+            probability[large[--largeCount]] = 1.0;
+        }
+        while (smallCount > 0) {
+            probability[small[--smallCount]] = 1.0;
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getRolls() {
+        return rolls;
+    }
+
+    /**
+     * Index of one weighted outcome
+     */
+    public int sample(RandomGenerator random) {
+        int column = random.nextInt(probability.length);
+        return random.nextDouble() < probability[column] ? column : alias[column];
+    }
+
+    /**
+     * Items of one weighted outcome
+     */
+    public RewardBundle rollOnce(RandomGenerator random) {
+        return outcomes[sample(random)];
+    }
+
+    /**
+     * Roll the table times * rolls and add the outcomes to the builder
+     */
+    public void roll(RandomGenerator random, int times, RewardBundle.Builder into) {
+        for (int r = times * rolls; r > 0; r--) {
+            int outcome = sample(random);
+            into.add(itemIds[outcome], amounts[outcome]);
+        }
+    }
+
+    /**
+     * Random source for one player's rolls in a fire. Unseeded rolls use the
+     * calling thread's generator; with a seed every player of every fire gets
+     * their own generator derived from the seed, event, fire time and player,
+     * so results don't depend on which thread ran the fire, on the order the
+     * players were served in, or on whether a player was served on resume.
+     */
+    public static RandomGenerator randomFor(long seed, String eventName, long fireTime, UUID player) {
+        if (seed == 0) {
+            return ThreadLocalRandom.current();
+        }
+        long mixed = seed;
+        mixed = mixed * 0x9E3779B97F4A7C15L + eventName.hashCode();
+        mixed = mixed * 0x9E3779B97F4A7C15L + fireTime;
+        mixed = mixed * 0x9E3779B97F4A7C15L + player.getMostSignificantBits();
+        mixed = mixed * 0x9E3779B97F4A7C15L + player.getLeastSignificantBits();
+        return new SplittableRandom(mixed);
+    }
+}
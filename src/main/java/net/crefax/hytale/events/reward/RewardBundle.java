@@ -0,0 +1,79 @@
+package net.crefax.hytale.events.reward;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Reward Bundle
+ *
+ * All item grants of one event, merged at load time. Stacks of the same
+ * item are coalesced, and the whole bundle goes into a player's inventory
+ * in a single transaction instead of one mutation per give line.
+ *
+ * @author Crefax
+ */
+public final class RewardBundle {
+
+    public static final RewardBundle EMPTY = new RewardBundle(new String[0], new int[0]);
+
+    private final String[] itemIds;
+    private final int[] quantities;
+
+    private RewardBundle(String[] itemIds, int[] quantities) {
+        this.itemIds = itemIds;
+        this.quantities = quantities;
+    }
+
+    public boolean isEmpty() {
+        return itemIds.length == 0;
+    }
+
+    /** Number of distinct items in the bundle */
+    public int size() {
+        return itemIds.length;
+    }
+
+    public String getItemId(int i) {
+        return itemIds[i];
+    }
+
+    public int getQuantity(int i) {
+        return quantities[i];
+    }
+
+    /**
+     * Builder that coalesces grants of the same item
+     */
+    public static final class Builder {
+        private final Map<String, Integer> items = new LinkedHashMap<>();
+
+        public Builder add(String itemId, int quantity) {
+            if (itemId != null && !itemId.isEmpty() && quantity > 0) {
+                items.merge(itemId, quantity, Integer::sum);
+            }
+            return this;
+        }
+
+        public Builder addAll(RewardBundle bundle) {
+            for (int i = 0; i < bundle.size(); i++) {
+                add(bundle.getItemId(i), bundle.getQuantity(i));
+            }
+            return this;
+        }
+
+        public RewardBundle build() {
+            if (items.isEmpty()) {
+                return EMPTY;
+            }
+            String[] ids = new String[items.size()];
+            int[] counts = new int[items.size()];
+            int i = 0;
+            for (Map.Entry<String, Integer> entry : items.entrySet()) {
+                ids[i] = entry.getKey();
+                counts[i] = entry.getValue();
+                i++;
+            }
+            return new RewardBundle(ids, counts);
+        }
+    }
+}
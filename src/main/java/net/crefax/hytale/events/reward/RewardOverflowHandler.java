@@ -0,0 +1,37 @@
+package net.crefax.hytale.events.reward;
+
+import net.crefax.hytale.events.player.OnlinePlayer;
+
+import java.util.logging.Logger;
+
+/**
+ * Reward Overflow Handler
+ *
+ * Decides what happens to reward items that did not fit into a player's
+ * inventory. Selected with the "rewardOverflow" setting: "mailbox" keeps
+ * them in the reward mailbox and hands them out on the player's next join,
+ * "drop" discards them; by default they go to the mailbox if it is enabled
+ * (mailboxEnabled) and are dropped otherwise. Another plugin can install its
+ * own handler, which then stays in place across reloads.
+ *
+ * @author Crefax
+ */
+public interface RewardOverflowHandler {
+
+    /**
+     * Handle items that could not be added to the player's inventory
+     */
+    void onOverflow(OnlinePlayer player, String eventName, RewardBundle overflow);
+
+    /**
+     * The remainder is discarded and logged; used when rewardOverflow is "drop"
+     * or the mailbox could not be opened
+     */
+    RewardOverflowHandler DROP = (player, eventName, overflow) -> {
+        Logger logger = Logger.getLogger("EventScheduler");
+        for (int i = 0; i < overflow.size(); i++) {
+            logger.warning("[EventScheduler] Inventory full, reward dropped: " + player.getUsername()
+                    + " -> " + overflow.getQuantity(i) + "x " + overflow.getItemId(i) + " (" + eventName + ")");
+        }
+    };
+}
@@ -0,0 +1,190 @@
+package net.crefax.hytale.events.time;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Phase Planner
+ *
+ * Picks start offsets for interval events so their fires coincide as little
+ * as possible. Two events with intervals a and b and offsets x and y fire
+ * together exactly when x and y are congruent modulo gcd(a, b), and then
+ * once every lcm(a, b) seconds. Events are placed one by one, heaviest
+ * first, at the offset with the lowest expected coincident cost against
+ * the events already placed; ties go to the offset furthest away from
+ * their fires.
+ *
+ * Because pairwise compatible congruences always have a common solution,
+ * the peak (the worst instant over the whole hyperperiod) is the heaviest
+ * set of pairwise coincident events.
+ *
+ * @author Crefax
+ */
+public final class PhasePlanner {
+
+    // Large intervals are searched on a coarser grid to keep planning cheap
+    private static final int MAX_CANDIDATES = 3600;
+
+    /**
+     * One interval event to plan
+     */
+    public static final class Entry {
+        public final String name;
+        public final long intervalSeconds;
+        public final double weight;
+
+        public Entry(String name, long intervalSeconds, double weight) {
+            this.name = name;
+            this.intervalSeconds = Math.max(1, intervalSeconds);
+            this.weight = weight > 0 ? weight : 1;
+        }
+    }
+
+    /**
+     * Planned offsets and the predicted peak with and without them
+     */
+    public static final class Plan {
+        private final Map<String, Long> offsets;
+        public final int peakFiresBefore;
+        public final double peakCostBefore;
+        public final int peakFiresAfter;
+        public final double peakCostAfter;
+
+        Plan(Map<String, Long> offsets, Peak before, Peak after) {
+            this.offsets = Collections.unmodifiableMap(offsets);
+            this.peakFiresBefore = before.fires;
+            this.peakCostBefore = before.cost;
+            this.peakFiresAfter = after.fires;
+            this.peakCostAfter = after.cost;
+        }
+
+        /**
+         * Offset in seconds (0 until one interval), or -1 for events not in the plan
+         */
+        public long offsetSeconds(String name) {
+            Long offset = offsets.get(name);
+            return offset != null ? offset : -1;
+        }
+
+        public Map<String, Long> getOffsets() {
+            return offsets;
+        }
+    }
+
+    private static final class Peak {
+        int fires;
+        double cost;
+    }
+
+    private PhasePlanner() {
+    }
+
+    public static Plan plan(List<Entry> entries) {
+        List<Entry> order = new ArrayList<>(entries);
+        order.sort(Comparator.comparingDouble((Entry e) -> -e.weight)
+            .thenComparingLong(e -> e.intervalSeconds)
+            .thenComparing(e -> e.name));
+
+        long[] offsets = new long[order.size()];
+        for (int i = 0; i < order.size(); i++) {
+            offsets[i] = bestOffset(order, offsets, i);
+        }
+
+        Map<String, Long> byName = new LinkedHashMap<>();
+        for (int i = 0; i < order.size(); i++) {
+            byName.put(order.get(i).name, offsets[i]);
+        }
+        return new Plan(byName, peak(order, new long[order.size()]), peak(order, offsets));
+    }
+
+    private static long bestOffset(List<Entry> order, long[] offsets, int index) {
+        Entry entry = order.get(index);
+        long period = entry.intervalSeconds;
+        long step = Math.max(1, period / MAX_CANDIDATES);
+
+        long best = 0;
+        double bestCost = Double.MAX_VALUE;
+        long bestDistance = -1;
+        for (long offset = 0; offset < period; offset += step) {
+            double cost = 0;
+            long distance = Long.MAX_VALUE;
+            for (int j = 0; j < index; j++) {
+                Entry other = order.get(j);
+                long gcd = gcd(period, other.intervalSeconds);
+                long residue = Math.floorMod(offset - offsets[j], gcd);
+                if (residue == 0) {
+                    // Coincident fires per second: once every lcm(a, b)
+                    cost += entry.weight * other.weight * gcd / ((double) period * other.intervalSeconds);
+                }
+                distance = Math.min(distance, Math.min(residue, gcd - residue));
+            }
+            if (cost < bestCost || (cost == bestCost && distance > bestDistance)) {
+                best = offset;
+                bestCost = cost;
+                bestDistance = distance;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Heaviest set of events that all fire at the same instant
+     */
+    private static Peak peak(List<Entry> order, long[] offsets) {
+        int n = order.size();
+        BitSet[] together = new BitSet[n];
+        for (int i = 0; i < n; i++) {
+            together[i] = new BitSet(n);
+        }
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                long gcd = gcd(order.get(i).intervalSeconds, order.get(j).intervalSeconds);
+                if (Math.floorMod(offsets[i] - offsets[j], gcd) == 0) {
+                    together[i].set(j);
+                    together[j].set(i);
+                }
+            }
+        }
+        Peak peak = new Peak();
+        BitSet all = new BitSet(n);
+        all.set(0, n);
+        heaviest(order, together, all, 0, 0, peak);
+        return peak;
+    }
+
+    private static void heaviest(List<Entry> order, BitSet[] together, BitSet candidates,
+                                 int fires, double cost, Peak peak) {
+        if (cost > peak.cost) {
+            peak.cost = cost;
+            peak.fires = fires;
+        }
+        double reachable = cost;
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+            reachable += order.get(i).weight;
+        }
+        if (reachable <= peak.cost) {
+            return;
+        }
+        BitSet remaining = (BitSet) candidates.clone();
+        for (int i = remaining.nextSetBit(0); i >= 0; i = remaining.nextSetBit(i + 1)) {
+            BitSet next = (BitSet) remaining.clone();
+            next.and(together[i]);
+            heaviest(order, together, next, fires + 1, cost + order.get(i).weight, peak);
+            remaining.clear(i);
+        }
+    }
+
+    private static long gcd(long a, long b) {
+        while (b != 0) {
+            long t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+}
@@ -0,0 +1,48 @@
+package net.crefax.hytale.events.time;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scheduler Clock
+ *
+ * The scheduler's only source of time: reading the current time and
+ * running tasks later both go through here. The server uses
+ * {@link SystemSchedulerClock}; {@link VirtualSchedulerClock} replaces
+ * wall-clock time with virtual time so days of schedules can be replayed
+ * in milliseconds.
+ *
+ * @author Crefax
+ */
+public interface SchedulerClock {
+
+    /**
+     * Current time in epoch milliseconds
+     */
+    long currentTimeMillis();
+
+    /**
+     * Current date and time in a zone
+     */
+    default ZonedDateTime now(ZoneId zone) {
+        return Instant.ofEpochMilli(currentTimeMillis()).atZone(zone);
+    }
+
+    /**
+     * Run a task once after a delay
+     */
+    ScheduledFuture<?> schedule(Runnable task, long delay, TimeUnit unit);
+
+    /**
+     * Run a task periodically, at a fixed rate
+     */
+    ScheduledFuture<?> scheduleAtFixedRate(Runnable task, long initialDelay, long period, TimeUnit unit);
+
+    /**
+     * Stop running tasks, waiting up to the timeout for running ones to finish
+     */
+    void shutdown(long timeout, TimeUnit unit);
+}
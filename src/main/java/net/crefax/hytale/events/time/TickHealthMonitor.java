@@ -0,0 +1,95 @@
+package net.crefax.hytale.events.time;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tick Health Monitor
+ *
+ * Estimates how far behind the server is running. The server API gives
+ * plugins no tick timing, so this is a proxy, not the server's tick health:
+ * a probe is scheduled every tick length (50 ms), and when the process is
+ * starved (CPU saturation, long GC pauses) the probe runs late; 50 ms plus
+ * that lateness is the observed tick time. Samples go into an exponential
+ * moving average, and the server counts as overloaded while the average is
+ * above the limit. It only recovers once the average falls below 80% of
+ * the limit, so the state doesn't flap around the threshold.
+ *
+ * The probe needs a clock whose thread runs nothing else, or a long fire
+ * on that thread would delay it and the plugin would defer its own work
+ * because of load it created itself. The scheduler gives it a thread of
+ * its own, which the monitor shuts down when it stops.
+ *
+ * @author Crefax
+ */
+public class TickHealthMonitor {
+
+    public static final long TICK_MILLIS = 50;
+    // About the last second of samples
+    private static final double ALPHA = 0.05;
+    private static final double RECOVER_FACTOR = 0.8;
+
+    private final SchedulerClock clock;
+    private final boolean ownsClock;
+    private final double limitMillis;
+    private volatile double averageTickMillis = TICK_MILLIS;
+    private volatile boolean overloaded;
+    private long expectedAt;
+    private ScheduledFuture<?> probeTask;
+
+    /**
+     * @param clock probe clock; with ownsClock it is shut down on {@link #stop}
+     */
+    public TickHealthMonitor(SchedulerClock clock, boolean ownsClock, long limitMillis) {
+        this.clock = clock;
+        this.ownsClock = ownsClock;
+        this.limitMillis = Math.max(TICK_MILLIS + 1, limitMillis);
+    }
+
+    public void start() {
+        expectedAt = clock.currentTimeMillis() + TICK_MILLIS;
+        probeTask = clock.scheduleAtFixedRate(this::probe, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private void probe() {
+        long now = clock.currentTimeMillis();
+        long lateness = Math.max(0, now - expectedAt);
+        expectedAt += TICK_MILLIS;
+        if (expectedAt < now - 10 * TICK_MILLIS) {
+            // Skipped far behind (e.g. the machine slept), don't replay every missed tick
+            expectedAt = now + TICK_MILLIS;
+        }
+        sample(TICK_MILLIS + lateness);
+    }
+
+    /**
+     * Feed one observed tick time
+     */
+    public void sample(double tickMillis) {
+        double average = averageTickMillis + ALPHA * (tickMillis - averageTickMillis);
+        averageTickMillis = average;
+        if (overloaded) {
+            if (average < limitMillis * RECOVER_FACTOR) overloaded = false;
+        } else if (average > limitMillis) {
+            overloaded = true;
+        }
+    }
+
+    public boolean isOverloaded() {
+        return overloaded;
+    }
+
+    public double getAverageTickMillis() {
+        return averageTickMillis;
+    }
+
+    public void stop() {
+        if (probeTask != null) {
+            probeTask.cancel(false);
+            probeTask = null;
+        }
+        if (ownsClock) {
+            clock.shutdown(1, TimeUnit.SECONDS);
+        }
+    }
+}
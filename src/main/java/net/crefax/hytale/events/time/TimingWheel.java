@@ -0,0 +1,139 @@
+package net.crefax.hytale.events.time;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Timing Wheel
+ *
+ * Hashed timing wheel for very many timers with coarse deadlines. Each
+ * timer sits in the bucket of its deadline tick; advancing the wheel by
+ * one tick only visits that bucket, and a timer further away than one
+ * revolution simply stays in its bucket until its tick comes round.
+ * Adding and cancelling are O(1), so thousands of per-player timers cost
+ * one clock task in total instead of one scheduled task each.
+ *
+ * Not thread-safe: the owner guards it.
+ *
+ * @author Crefax
+ */
+public final class TimingWheel<T> {
+
+    /**
+     * A timer on the wheel
+     */
+    public static final class Timeout<T> {
+        public final T value;
+        public final long deadlineMillis;
+        private final long tick;
+        private Timeout<T> prev;
+        private Timeout<T> next;
+        private boolean linked;
+
+        private Timeout(T value, long deadlineMillis, long tick) {
+            this.value = value;
+            this.deadlineMillis = deadlineMillis;
+            this.tick = tick;
+        }
+    }
+
+    private final long tickMillis;
+    private final long startMillis;
+    private final Timeout<T>[] heads;
+    private final int mask;
+    private long currentTick; // last tick that was processed
+    private int size;
+
+    /**
+     * @param slots rounded up to a power of two
+     */
+    @SuppressWarnings("unchecked")
+    public TimingWheel(long tickMillis, int slots, long startMillis) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("tickMillis must be positive");
+        }
+        int n = Integer.highestOneBit(Math.max(2, slots - 1)) << 1;
+        this.tickMillis = tickMillis;
+        this.startMillis = startMillis;
+        this.heads = (Timeout<T>[]) new Timeout[n];
+        this.mask = n - 1;
+    }
+
+    /**
+     * Add a timer. A deadline that has already passed expires on the next tick.
+     */
+    public Timeout<T> add(long deadlineMillis, T value) {
+        long tick = Math.max(currentTick + 1, Math.floorDiv(deadlineMillis - startMillis + tickMillis - 1, tickMillis));
+        Timeout<T> timeout = new Timeout<>(value, deadlineMillis, tick);
+        int slot = (int) (tick & mask);
+        timeout.next = heads[slot];
+        if (timeout.next != null) timeout.next.prev = timeout;
+        heads[slot] = timeout;
+        timeout.linked = true;
+        size++;
+        return timeout;
+    }
+
+    /**
+     * Remove a timer that has not expired yet; does nothing otherwise
+     */
+    public void cancel(Timeout<T> timeout) {
+        if (timeout == null || !timeout.linked) return;
+        unlink(timeout);
+    }
+
+    /**
+     * Process every tick up to the given time and hand each expired timer's
+     * value to the consumer, in deadline-tick order. Returns the number expired.
+     */
+    public int advance(long nowMillis, Consumer<? super T> expired) {
+        long target = Math.floorDiv(nowMillis - startMillis, tickMillis);
+        int count = 0;
+        List<T> due = new ArrayList<>();
+        while (currentTick < target) {
+            if (size == 0) {
+                // Nothing to visit, jump straight to now
+                currentTick = target;
+                break;
+            }
+            currentTick++;
+            Timeout<T> timeout = heads[(int) (currentTick & mask)];
+            while (timeout != null) {
+                Timeout<T> next = timeout.next;
+                if (timeout.tick <= currentTick) {
+                    unlink(timeout);
+                    due.add(timeout.value);
+                }
+                timeout = next;
+            }
+            // Handed out after the scan, so the consumer may add or cancel timers
+            for (T value : due) {
+                expired.accept(value);
+            }
+            count += due.size();
+            due.clear();
+        }
+        return count;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void unlink(Timeout<T> timeout) {
+        int slot = (int) (timeout.tick & mask);
+        if (timeout.prev != null) {
+            timeout.prev.next = timeout.next;
+        } else {
+            heads[slot] = timeout.next;
+        }
+        if (timeout.next != null) {
+            timeout.next.prev = timeout.prev;
+        }
+        timeout.prev = null;
+        timeout.next = null;
+        timeout.linked = false;
+        size--;
+    }
+}
@@ -0,0 +1,171 @@
+package net.crefax.hytale.events.time;
+
+import java.time.Duration;
+import java.util.PriorityQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Virtual Scheduler Clock
+ *
+ * A clock whose time only moves when {@link #advance(Duration)} is called.
+ * Advancing runs every due task on the calling thread, in time order, with
+ * the clock set to each task's due time, so a week of interval and
+ * scheduled fires replays as fast as the CPU allows and always in the same
+ * order. Not thread-safe: drive it from a single thread.
+ *
+ * @author Crefax
+ */
+public class VirtualSchedulerClock implements SchedulerClock {
+
+    private final PriorityQueue<VirtualTask> queue = new PriorityQueue<>();
+    private long now;
+    private long sequence;
+    private long executedTasks;
+    private boolean shutdown;
+
+    public VirtualSchedulerClock(long startMillis) {
+        this.now = startMillis;
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        return now;
+    }
+
+    @Override
+    public ScheduledFuture<?> schedule(Runnable task, long delay, TimeUnit unit) {
+        return enqueue(new VirtualTask(task, now + unit.toMillis(Math.max(0, delay)), 0L));
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable task, long initialDelay, long period, TimeUnit unit) {
+        if (period <= 0) {
+            throw new IllegalArgumentException("period must be positive");
+        }
+        return enqueue(new VirtualTask(task, now + unit.toMillis(Math.max(0, initialDelay)), unit.toMillis(period)));
+    }
+
+    @Override
+    public void shutdown(long timeout, TimeUnit unit) {
+        shutdown = true;
+        queue.clear();
+    }
+
+    /**
+     * Move time forward, running every task that becomes due on the way
+     */
+    public void advance(Duration duration) {
+        advanceTo(now + duration.toMillis());
+    }
+
+    /**
+     * Move time forward to an absolute instant, running every task that becomes due on the way
+     */
+    public void advanceTo(long targetMillis) {
+        while (!queue.isEmpty() && queue.peek().dueAt <= targetMillis) {
+            VirtualTask task = queue.poll();
+            if (task.cancelled) continue;
+            now = Math.max(now, task.dueAt);
+            executedTasks++;
+            try {
+                task.runnable.run();
+            } catch (RuntimeException e) {
+                // Same as a scheduled executor: a failing periodic task is not rescheduled
+                task.done = true;
+                continue;
+            }
+            if (task.period > 0 && !task.cancelled && !shutdown) {
+                task.dueAt += task.period;
+                task.sequence = sequence++;
+                queue.add(task);
+            } else {
+                task.done = true;
+            }
+        }
+        now = Math.max(now, targetMillis);
+    }
+
+    /**
+     * Number of task runs so far
+     */
+    public long getExecutedTasks() {
+        return executedTasks;
+    }
+
+    /**
+     * Number of tasks waiting to run
+     */
+    public int getPendingTasks() {
+        return queue.size();
+    }
+
+    private VirtualTask enqueue(VirtualTask task) {
+        if (shutdown) {
+            task.cancelled = true;
+            return task;
+        }
+        task.sequence = sequence++;
+        queue.add(task);
+        return task;
+    }
+
+    private final class VirtualTask implements ScheduledFuture<Object> {
+        final Runnable runnable;
+        final long period;
+        long dueAt;
+        long sequence;
+        boolean cancelled;
+        boolean done;
+
+        VirtualTask(Runnable runnable, long dueAt, long period) {
+            this.runnable = runnable;
+            this.dueAt = dueAt;
+            this.period = period;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(dueAt - now, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            if (other instanceof VirtualTask) {
+                VirtualTask task = (VirtualTask) other;
+                int byTime = Long.compare(dueAt, task.dueAt);
+                return byTime != 0 ? byTime : Long.compare(sequence, task.sequence);
+            }
+            return Long.compare(getDelay(TimeUnit.MILLISECONDS), other.getDelay(TimeUnit.MILLISECONDS));
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            if (done || cancelled) return false;
+            cancelled = true;
+            queue.remove(this);
+            return true;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        @Override
+        public boolean isDone() {
+            return done || cancelled;
+        }
+
+        @Override
+        public Object get() {
+            return null;
+        }
+
+        @Override
+        public Object get(long timeout, TimeUnit unit) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package net.crefax.hytale.events.time;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Zone Calendar
+ *
+ * Turns local times of one time zone into instants. Every scheduled event
+ * in the same zone shares one calendar, which looks at the zone's offset
+ * transitions once per local day: on a day without a transition a local
+ * time is plain arithmetic from midnight, only the rare DST days go
+ * through the full zone rules.
+ *
+ * Calendars are cached per zone id for the life of the process.
+ *
+ * @author Crefax
+ */
+public final class ZoneCalendar {
+
+    /** Returned for a local time that a DST gap skips */
+    public static final long NO_TIME = Long.MIN_VALUE;
+
+    private static final Map<String, ZoneCalendar> CALENDARS = new ConcurrentHashMap<>();
+
+    /**
+     * One local day: where it starts and, unless it has a transition, its single offset
+     */
+    private static final class Day {
+        final LocalDate date;
+        final long startMillis; // local midnight (or the first instant of the day)
+        final long endMillis;   // start of the next day
+        final boolean fixed;    // no offset transition within the day
+        final long midnightMillis; // for fixed days: epoch millis of 00:00 at the day's offset
+
+        Day(LocalDate date, ZoneId zone, ZoneRules rules) {
+            this.date = date;
+            this.startMillis = date.atStartOfDay(zone).toInstant().toEpochMilli();
+            this.endMillis = date.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+            ZoneOffset offset = rules.getOffset(Instant.ofEpochMilli(startMillis));
+            ZoneOffsetTransition next = rules.nextTransition(Instant.ofEpochMilli(startMillis));
+            this.midnightMillis = (date.toEpochDay() * 86_400L - offset.getTotalSeconds()) * 1000L;
+            // A gap at either midnight shortens the day, such a day is not fixed either
+            this.fixed = (next == null || next.getInstant().toEpochMilli() >= endMillis)
+                && startMillis == midnightMillis && endMillis == midnightMillis + 86_400_000L;
+        }
+    }
+
+    private final ZoneId zone;
+    private final ZoneRules rules;
+    // The last two days asked for; slots look at today and tomorrow
+    private Day recent;
+    private Day previous;
+
+    private ZoneCalendar(ZoneId zone) {
+        this.zone = zone;
+        this.rules = zone.getRules();
+    }
+
+    /**
+     * The shared calendar for a zone id
+     *
+     * @throws java.time.DateTimeException if the id is not a valid zone
+     */
+    public static ZoneCalendar of(String zoneId) {
+        ZoneCalendar calendar = CALENDARS.get(zoneId);
+        if (calendar == null) {
+            calendar = CALENDARS.computeIfAbsent(zoneId, id -> new ZoneCalendar(ZoneId.of(id)));
+        }
+        return calendar;
+    }
+
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    /**
+     * The local date at an instant
+     */
+    public synchronized LocalDate dateOf(long epochMillis) {
+        if (recent != null && epochMillis >= recent.startMillis && epochMillis < recent.endMillis) return recent.date;
+        if (previous != null && epochMillis >= previous.startMillis && epochMillis < previous.endMillis) return previous.date;
+        return day(LocalDate.ofInstant(Instant.ofEpochMilli(epochMillis), zone)).date;
+    }
+
+    /**
+     * The instant of a local date and time. A time repeated by a DST
+     * overlap gives its first instant, one skipped by a gap {@link #NO_TIME}.
+     */
+    public synchronized long epochMillis(LocalDate date, LocalTime time) {
+        Day day = day(date);
+        if (day.fixed) {
+            return day.midnightMillis + time.toNanoOfDay() / 1_000_000L;
+        }
+        ZonedDateTime candidate = ZonedDateTime.of(date, time, zone);
+        return candidate.toLocalTime().equals(time) ? candidate.toInstant().toEpochMilli() : NO_TIME;
+    }
+
+    private Day day(LocalDate date) {
+        if (recent != null && recent.date.equals(date)) return recent;
+        if (previous != null && previous.date.equals(date)) {
+            Day day = previous;
+            previous = recent;
+            recent = day;
+            return day;
+        }
+        Day day = new Day(date, zone, rules);
+        previous = recent;
+        recent = day;
+        return day;
+    }
+}
@@ -0,0 +1,161 @@
+package net.crefax.hytale.events.mailbox;
+
+import net.crefax.hytale.events.reward.RewardBundle;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Reward Mailbox Test
+ *
+ * Compaction interrupted by a crash: the mailbox is reopened from the
+ * files a crash at each step would leave behind, and every pending
+ * reward must come back exactly once. Rewards taken for delivery stay
+ * pending until the grant is confirmed.
+ *
+ * @author Crefax
+ */
+class RewardMailboxTest {
+
+    private static final UUID CLEARED = new UUID(0, 1);
+    private static final UUID WAITING = new UUID(0, 2);
+    private static final long NOW = 1_767_225_600_000L;
+
+    @TempDir
+    Path directory;
+
+    @TempDir
+    Path backup;
+
+    @Test
+    void crashAfterCompactionWasWrittenRestoresOnce() throws Exception {
+        List<Path> oldSegments = compactWithBackup();
+        Path compacted = single(segments(directory));
+
+        // Compacted and synced, old segments not yet deleted
+        Files.move(compacted, directory.resolve(RewardMailbox.COMPACT_DONE));
+        restore(oldSegments);
+
+        assertEquals(3, pendingAfterReopen(WAITING));
+        assertEquals(0, pendingAfterReopen(CLEARED));
+        assertFalse(Files.exists(directory.resolve(RewardMailbox.COMPACT_DONE)));
+    }
+
+    @Test
+    void crashWhileCompactingKeepsTheOldSegments() throws Exception {
+        List<Path> oldSegments = compactWithBackup();
+        Path compacted = single(segments(directory));
+
+        // Crash halfway through writing the compaction
+        byte[] bytes = Files.readAllBytes(compacted);
+        Files.delete(compacted);
+        Files.write(directory.resolve(RewardMailbox.COMPACT_TEMP), Arrays.copyOf(bytes, bytes.length / 2));
+        restore(oldSegments);
+
+        assertEquals(3, pendingAfterReopen(WAITING));
+        assertEquals(0, pendingAfterReopen(CLEARED));
+        assertFalse(Files.exists(directory.resolve(RewardMailbox.COMPACT_TEMP)));
+    }
+
+    @Test
+    void onlyConfirmedDeliveriesLeaveTheMailbox() throws Exception {
+        RewardMailbox mailbox = new RewardMailbox(directory, 7);
+        mailbox.open();
+        mailbox.storeAsync(WAITING, "raid", new RewardBundle.Builder().add("Gold", 1).add("Iron", 2).build(), NOW);
+        assertEquals(2, mailbox.takeAsync(WAITING).get(5, TimeUnit.SECONDS).size());
+        assertEquals(0, mailbox.takeAsync(WAITING).get(5, TimeUnit.SECONDS).size(), "already being delivered");
+        mailbox.releaseAsync(WAITING);
+        assertEquals(2, mailbox.takeAsync(WAITING).get(5, TimeUnit.SECONDS).size(), "released after a failed grant");
+        // Crash before the grant was confirmed
+        mailbox.close();
+
+        assertEquals(2, pendingAfterReopen(WAITING));
+
+        mailbox = new RewardMailbox(directory, 7);
+        mailbox.open();
+        assertEquals(2, mailbox.takeAsync(WAITING).get(5, TimeUnit.SECONDS).size());
+        mailbox.storeAsync(WAITING, "raid", new RewardBundle.Builder().add("Wood", 3).build(), NOW);
+        // Iron did not fit
+        mailbox.confirmAsync(WAITING, 2, new RewardBundle.Builder().add("Iron", 2).build(), NOW);
+        mailbox.close();
+
+        mailbox = new RewardMailbox(directory, 7);
+        mailbox.open();
+        try {
+            List<RewardMailbox.PendingReward> left = mailbox.takeAsync(WAITING).get(5, TimeUnit.SECONDS);
+            assertEquals(2, left.size());
+            assertEquals("Wood", left.get(0).itemId);
+            assertEquals("Iron", left.get(1).itemId);
+        } finally {
+            mailbox.close();
+        }
+    }
+
+    /**
+     * Fill the log with enough dead records to compact, keep a copy of the
+     * segments as they were before, then compact. Returns the copies.
+     */
+    private List<Path> compactWithBackup() throws Exception {
+        RewardMailbox mailbox = new RewardMailbox(directory, 7);
+        mailbox.open();
+        for (int i = 0; i < 1100; i++) {
+            mailbox.storeAsync(CLEARED, "raid", new RewardBundle.Builder().add("Gold", 1).build(), NOW);
+        }
+        mailbox.storeAsync(WAITING, "raid", new RewardBundle.Builder().add("Gold", 1).add("Iron", 2).add("Wood", 3).build(), NOW);
+        assertEquals(1100, mailbox.takeAsync(CLEARED).get(5, TimeUnit.SECONDS).size());
+        mailbox.confirmAsync(CLEARED, 1100, RewardBundle.EMPTY, NOW);
+        mailbox.close();
+
+        List<Path> copies = new ArrayList<>();
+        for (Path segment : segments(directory)) {
+            copies.add(Files.copy(segment, backup.resolve(segment.getFileName())));
+        }
+
+        mailbox = new RewardMailbox(directory, 7);
+        mailbox.open();
+        mailbox.compactAsync(NOW);
+        mailbox.close();
+        assertEquals(1, segments(directory).size(), "compacted into one segment");
+        return copies;
+    }
+
+    private void restore(List<Path> copies) throws Exception {
+        for (Path copy : copies) {
+            Files.copy(copy, directory.resolve(copy.getFileName()));
+        }
+    }
+
+    private int pendingAfterReopen(UUID player) throws Exception {
+        RewardMailbox mailbox = new RewardMailbox(directory, 7);
+        mailbox.open();
+        try {
+            return mailbox.takeAsync(player).get(5, TimeUnit.SECONDS).size();
+        } finally {
+            mailbox.close();
+        }
+    }
+
+    private static List<Path> segments(Path directory) throws Exception {
+        List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "segment-*.dat")) {
+            files.forEach(segments::add);
+        }
+        return segments;
+    }
+
+    private static Path single(List<Path> paths) {
+        assertEquals(1, paths.size());
+        return paths.get(0);
+    }
+}
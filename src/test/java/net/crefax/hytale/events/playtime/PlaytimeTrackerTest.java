@@ -0,0 +1,85 @@
+package net.crefax.hytale.events.playtime;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Playtime Tracker Test
+ *
+ * A player's progress only moves once the reward reached them: an
+ * undelivered reward is due again a minute later, a delivered one at
+ * the next interval. Players gone for longer than the horizon are
+ * forgotten, also after a save and reload.
+ *
+ * @author Crefax
+ */
+class PlaytimeTrackerTest {
+
+    private static final String EVENT = "hourly";
+    private static final UUID PLAYER = new UUID(0, 1);
+    private static final long START = 1_767_225_600_000L;
+    private static final long MINUTE = 60_000L;
+    private static final long HOUR = 60 * MINUTE;
+
+    @TempDir
+    Path dataDir;
+
+    @Test
+    void undeliveredRewardsStayDue() {
+        PlaytimeTracker tracker = tracker();
+        tracker.join(PLAYER, START);
+
+        assertTrue(due(tracker, START + HOUR - MINUTE).isEmpty());
+        assertEquals(Collections.singletonList(PLAYER), due(tracker, START + HOUR));
+        // Not delivered: due again a minute later
+        assertEquals(Collections.singletonList(PLAYER), due(tracker, START + HOUR + MINUTE));
+
+        // Delivered late, the cadence is kept
+        tracker.rewarded(EVENT, Collections.singletonList(PLAYER), START + HOUR + MINUTE);
+        assertTrue(due(tracker, START + 2 * HOUR - MINUTE).isEmpty());
+        assertEquals(Collections.singletonList(PLAYER), due(tracker, START + 2 * HOUR));
+    }
+
+    @Test
+    void playersPastTheHorizonAreForgotten() throws Exception {
+        PlaytimeTracker tracker = tracker();
+        UUID online = new UUID(0, 2);
+        tracker.join(PLAYER, START);
+        tracker.join(online, START);
+        tracker.leave(PLAYER, START + HOUR);
+
+        long horizon = 24 * HOUR;
+        assertEquals(0, tracker.evict(horizon, START + 24 * HOUR));
+        assertEquals(1, tracker.evict(horizon, START + 26 * HOUR));
+        assertEquals(0, tracker.getPlaytimeMillis(PLAYER, START + 26 * HOUR));
+        tracker.close(START + 26 * HOUR);
+
+        PlaytimeTracker reloaded = new PlaytimeTracker(dataDir.resolve("playtime.dat"), START + 26 * HOUR);
+        reloaded.load();
+        assertEquals(1, reloaded.getKnownPlayers());
+        assertEquals(26 * HOUR, reloaded.getPlaytimeMillis(online, START + 26 * HOUR));
+        // Last seen when saved, so still kept a day later
+        assertEquals(0, reloaded.evict(horizon, START + 49 * HOUR));
+        reloaded.close(START + 49 * HOUR);
+    }
+
+    private PlaytimeTracker tracker() {
+        PlaytimeTracker tracker = new PlaytimeTracker(dataDir.resolve("playtime.dat"), START);
+        tracker.setEvents(Collections.singletonMap(EVENT, 3600), START);
+        return tracker;
+    }
+
+    private static List<UUID> due(PlaytimeTracker tracker, long now) {
+        Map<String, List<UUID>> due = tracker.advance(now);
+        return due.getOrDefault(EVENT, Collections.emptyList());
+    }
+}
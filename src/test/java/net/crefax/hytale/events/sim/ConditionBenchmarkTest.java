@@ -0,0 +1,113 @@
+package net.crefax.hytale.events.sim;
+
+import net.crefax.hytale.events.condition.Condition;
+import net.crefax.hytale.events.condition.ConditionContext;
+import net.crefax.hytale.events.condition.ConditionLanguage;
+import net.crefax.hytale.events.player.OnlinePlayer;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Condition Benchmark
+ *
+ * Measures player conditions compiled the way events.json conditions are
+ * against the same conditions walked by the tree interpreter, over a crowd
+ * of simulated players. Both must agree on every player, which runs in
+ * every build; the timing (nanoseconds per evaluation after warm-up) is
+ * tagged benchmark and only runs with mvn test -Psoak.
+ *
+ * Longer runs: -Dbench.players=5000 -Dbench.rounds=5000
+ *
+ * @author Crefax
+ */
+class ConditionBenchmarkTest {
+
+    private static final int PLAYERS = Integer.getInteger("bench.players", 2000);
+    private static final int ROUNDS = Integer.getInteger("bench.rounds", 200);
+    private static final String[] WORLDS = {"default", "arena", "nether", "lobby"};
+
+    private static final String CONDITION_ALL = "players >= 10 && hour in 18..23 && !eventActive(\"pvp_arena\")"
+            + " && onlineMinutes >= 30 && (world == \"arena\" || hasPermission(\"vip\")) && minute % (60 / 4) < 60 * 5";
+    private static final String CONDITION_ANY = "world == \"lobby\" || name == \"Player7\" || onlineMinutes > 90";
+    private static final String CONDITION_NOT = "eventActive(\"boss_raid\") && !hasPermission(\"vip\") && dayOfWeek in 1..5";
+
+    private static final ZonedDateTime NOW = ZonedDateTime.of(2026, 1, 9, 20, 15, 0, 0, ZoneOffset.UTC);
+
+    @ParameterizedTest
+    @ValueSource(strings = {CONDITION_ALL, CONDITION_ANY, CONDITION_NOT})
+    void compiledAgreesWithTheInterpreter(String source) {
+        OnlinePlayer[] players = players();
+        ConditionContext context = context();
+        Condition compiled = ConditionLanguage.compile(source, true);
+        Condition interpreted = ConditionLanguage.interpret(source, true);
+
+        for (OnlinePlayer player : players) {
+            context.player = player;
+            assertEquals(interpreted.test(context), compiled.test(context), player.getUsername());
+        }
+    }
+
+    @Tag("benchmark")
+    @ParameterizedTest
+    @ValueSource(strings = {CONDITION_ALL, CONDITION_ANY, CONDITION_NOT})
+    void timesCompiledAgainstTheInterpreter(String source) {
+        OnlinePlayer[] players = players();
+        ConditionContext context = context();
+        Condition compiled = ConditionLanguage.compile(source, true);
+        Condition interpreted = ConditionLanguage.interpret(source, true);
+
+        int passed = 0;
+        for (OnlinePlayer player : players) {
+            context.player = player;
+            if (interpreted.test(context)) passed++;
+        }
+
+        // Warm up both, then measure; reported only, timings depend on the machine
+        run(interpreted, context, players, ROUNDS / 4);
+        run(compiled, context, players, ROUNDS / 4);
+        double interpretedNanos = run(interpreted, context, players, ROUNDS);
+        double compiledNanos = run(compiled, context, players, ROUNDS);
+        System.out.println("Condition: " + source);
+        System.out.println(passed + "/" + PLAYERS + " player(s) pass");
+        System.out.printf("Interpreted: %.1f ns/eval%n", interpretedNanos);
+        System.out.printf("Compiled:    %.1f ns/eval (%.1fx)%n", compiledNanos, interpretedNanos / compiledNanos);
+    }
+
+    private static OnlinePlayer[] players() {
+        Random random = new Random(1);
+        long nowMillis = NOW.toInstant().toEpochMilli();
+        OnlinePlayer[] players = new OnlinePlayer[PLAYERS];
+        for (int i = 0; i < PLAYERS; i++) {
+            boolean vip = random.nextInt(4) == 0;
+            players[i] = OnlinePlayer.detached(new UUID(0, i), "Player" + i, WORLDS[random.nextInt(WORLDS.length)],
+                "en-us", nowMillis - random.nextInt(120) * 60_000L, node -> vip && node.equals("vip"));
+        }
+        return players;
+    }
+
+    private static ConditionContext context() {
+        return new ConditionContext(PLAYERS, NOW, name -> name.equals("boss_raid"));
+    }
+
+    private static double run(Condition condition, ConditionContext context, OnlinePlayer[] players, int rounds) {
+        int sink = 0;
+        long start = System.nanoTime();
+        for (int r = 0; r < rounds; r++) {
+            for (OnlinePlayer player : players) {
+                context.player = player;
+                if (condition.test(context)) sink++;
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        if (sink == -1) System.out.println(sink);
+        return (double) elapsed / ((long) rounds * players.length);
+    }
+}
@@ -0,0 +1,56 @@
+package net.crefax.hytale.events.sim;
+
+import net.crefax.hytale.events.manager.ServerBridge;
+import net.crefax.hytale.events.player.OnlinePlayer;
+import net.crefax.hytale.events.player.PlayerSelection;
+import net.crefax.hytale.events.reward.RewardBundle;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counting Server Bridge
+ *
+ * Stub {@link ServerBridge} for simulations. Nothing reaches a server;
+ * every message, item grant and command is only counted. Inventories
+ * never overflow.
+ *
+ * @author Crefax
+ */
+public class CountingServerBridge implements ServerBridge {
+
+    private final LongAdder messages = new LongAdder();
+    private final LongAdder itemGrants = new LongAdder();
+    private final LongAdder items = new LongAdder();
+    private final LongAdder commands = new LongAdder();
+
+    @Override
+    public void sendMessage(OnlinePlayer player, String text) {
+        messages.increment();
+    }
+
+    @Override
+    public void broadcast(PlayerSelection players, String text) {
+        messages.add(players.size());
+    }
+
+    @Override
+    public RewardBundle giveItems(OnlinePlayer player, RewardBundle bundle) {
+        itemGrants.increment();
+        for (int i = 0; i < bundle.size(); i++) {
+            items.add(bundle.getQuantity(i));
+        }
+        return RewardBundle.EMPTY;
+    }
+
+    @Override
+    public void dispatchCommand(OnlinePlayer sender, String command) {
+        commands.increment();
+    }
+
+    public long getMessages() { return messages.sum(); }
+    /** Inventory transactions */
+    public long getItemGrants() { return itemGrants.sum(); }
+    /** Total item count handed out */
+    public long getItems() { return items.sum(); }
+    public long getCommands() { return commands.sum(); }
+}
@@ -0,0 +1,93 @@
+package net.crefax.hytale.events.sim;
+
+import net.crefax.hytale.events.config.EventConfig;
+import net.crefax.hytale.events.manager.SchedulerManager;
+import net.crefax.hytale.events.placeholder.PlaceholderResolver.Scope;
+import net.crefax.hytale.events.player.OnlinePlayer;
+import net.crefax.hytale.events.player.PlayerSelection;
+import net.crefax.hytale.events.time.VirtualSchedulerClock;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Placeholder Resolution Test
+ *
+ * One event with fire and player placeholders in its broadcast message,
+ * global lines and per-player lines, fired twice for 100 players. A fire
+ * resolver must run once per fire and a player resolver once per player
+ * per fire, however many lines use them; global lines get fire values
+ * and keep player placeholders as written.
+ *
+ * @author Crefax
+ */
+class PlaceholderResolutionTest {
+
+    private static final int PLAYERS = 100;
+    private static final int FIRES = 2;
+
+    @TempDir
+    Path dataDir;
+
+    @Test
+    void resolversRunOncePerFireAndPlayer() throws Exception {
+        EventConfig config = ScheduleSimulation.loadConfig("/sim/placeholders.json", dataDir);
+        long startMillis = LocalDate.of(2026, 1, 5).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+        VirtualSchedulerClock clock = new VirtualSchedulerClock(startMillis);
+        List<String> broadcasts = new ArrayList<>();
+        List<String> consoleCommands = new ArrayList<>();
+        CountingServerBridge bridge = new CountingServerBridge() {
+            @Override
+            public void broadcast(PlayerSelection players, String text) {
+                super.broadcast(players, text);
+                broadcasts.add(text);
+            }
+
+            @Override
+            public void dispatchCommand(OnlinePlayer sender, String command) {
+                super.dispatchCommand(sender, command);
+                if (sender == null) consoleCommands.add(command);
+            }
+        };
+        SchedulerManager manager = new SchedulerManager(null, config, clock, bridge);
+
+        AtomicInteger seasonCalls = new AtomicInteger();
+        AtomicInteger factionCalls = new AtomicInteger();
+        manager.getPlaceholders().register("season", Scope.FIRE, context -> {
+            seasonCalls.incrementAndGet();
+            return "winter";
+        });
+        manager.getPlaceholders().register("faction", Scope.PLAYER, context -> {
+            factionCalls.incrementAndGet();
+            return "team_" + context.getPlayer().getUsername();
+        });
+
+        for (int i = 0; i < PLAYERS; i++) {
+            manager.registerPlayer(ScheduleSimulation.simulatedPlayer(i, startMillis));
+        }
+        try {
+            clock.advance(Duration.ofHours(FIRES));
+        } finally {
+            manager.shutdown();
+        }
+
+        assertEquals(FIRES, seasonCalls.get(), "fire resolver calls");
+        assertEquals(FIRES * PLAYERS, factionCalls.get(), "player resolver calls");
+
+        assertTrue(consoleCommands.contains("say raid #1 in winter for {player}"), consoleCommands.toString());
+        assertTrue(consoleCommands.contains("say raid #2 in winter for {player}"), consoleCommands.toString());
+        assertTrue(broadcasts.contains("[Events] raid starts in winter!"), broadcasts.toString());
+        assertTrue(broadcasts.contains("winter raid begins"), broadcasts.toString());
+        assertEquals(FIRES * PLAYERS * 2L, bridge.getMessages() - broadcasts.size() * (long) PLAYERS, "per-player messages");
+    }
+}
@@ -0,0 +1,152 @@
+package net.crefax.hytale.events.sim;
+
+import net.crefax.hytale.events.config.EventConfig;
+import net.crefax.hytale.events.config.EventConfig.IntervalEvent;
+import net.crefax.hytale.events.config.EventConfig.ScheduledEvent;
+import net.crefax.hytale.events.manager.SchedulerManager;
+import net.crefax.hytale.events.player.OnlinePlayer;
+import net.crefax.hytale.events.time.VirtualSchedulerClock;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Schedule Simulation
+ *
+ * Replays an events.json in virtual time against simulated players and
+ * counts how often every event fired next to how often its schedule says
+ * it should. A week of fires takes milliseconds. The config folder is also
+ * the data folder, so a simulation keeps its audit, playtime and pending
+ * fires out of the server's files.
+ *
+ * @author Crefax
+ */
+public final class ScheduleSimulation {
+
+    /**
+     * Fire counts per event: what happened and what the schedule says
+     */
+    public static final class Result {
+        public final Map<String, Long> actual = new TreeMap<>();
+        public final Map<String, Long> expected = new TreeMap<>();
+        public long totalFires;
+        public long taskRuns;
+        public long wallNanos;
+    }
+
+    private final EventConfig config;
+    private final LocalDate startDate;
+    private final int days;
+    private final int playerCount;
+
+    public ScheduleSimulation(EventConfig config, LocalDate startDate, int days, int playerCount) {
+        this.config = config;
+        this.startDate = startDate;
+        this.days = days;
+        this.playerCount = playerCount;
+    }
+
+    /**
+     * Load a config from the test resources into its own folder
+     */
+    public static EventConfig loadConfig(String resource, Path folder) throws IOException {
+        try (InputStream in = ScheduleSimulation.class.getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IOException("Missing test resource: " + resource);
+            }
+            Files.createDirectories(folder);
+            Files.copy(in, folder.resolve("events.json"), StandardCopyOption.REPLACE_EXISTING);
+        }
+        EventConfig config = new EventConfig(folder);
+        config.load();
+        return config;
+    }
+
+    /**
+     * Run the simulation and print a report
+     */
+    public Result run() {
+        ZoneId zone = ZoneId.of(config.getSettings().timezone);
+        ZonedDateTime start = startDate.atStartOfDay(zone);
+        long startMillis = start.toInstant().toEpochMilli();
+        long endMillis = start.plusDays(days).toInstant().toEpochMilli();
+
+        Result result = new Result();
+        VirtualSchedulerClock clock = new VirtualSchedulerClock(startMillis);
+        CountingServerBridge bridge = new CountingServerBridge();
+        SchedulerManager manager = new SchedulerManager(null, config, clock, bridge);
+        manager.addFireListener((eventName, time, players, manual, nanos) -> result.actual.merge(eventName, 1L, Long::sum));
+
+        for (int i = 0; i < playerCount; i++) {
+            manager.registerPlayer(simulatedPlayer(i, startMillis));
+        }
+
+        long wallStart = System.nanoTime();
+        clock.advanceTo(endMillis - 1); // simulated window is [start, end)
+        result.wallNanos = System.nanoTime() - wallStart;
+        result.taskRuns = clock.getExecutedTasks();
+        manager.shutdown();
+
+        // What the schedule says
+        for (IntervalEvent event : config.getIntervalEvents()) {
+            if (!event.enabled || event.playtime) continue;
+            long period = event.interval * 1000L;
+            long offset = manager.getPhasePlan() != null ? manager.getPhasePlan().offsetSeconds(event.name) * 1000L : 0;
+            long first = startMillis + (offset > 0 ? offset : period);
+            result.expected.put(event.name, first <= endMillis - 1 ? (endMillis - 1 - first) / period + 1 : 0);
+        }
+        for (ScheduledEvent event : config.getScheduledEvents()) {
+            if (!event.enabled) continue;
+            result.expected.put(event.name, expectedScheduledFires(event, startMillis, endMillis, zone));
+        }
+        result.totalFires = result.actual.values().stream().mapToLong(Long::longValue).sum();
+
+        double millis = result.wallNanos / 1_000_000.0;
+        System.out.println("Simulated " + days + " day(s) from " + start + " with " + playerCount + " player(s)");
+        System.out.printf("%d fire(s), %d task run(s) in %.1f ms (%.0f fires/s)%n",
+                result.totalFires, result.taskRuns, millis, result.totalFires / Math.max(millis / 1000.0, 1e-9));
+        System.out.printf("%d message(s), %d inventory transaction(s), %d item(s), %d command(s)%n",
+                bridge.getMessages(), bridge.getItemGrants(), bridge.getItems(), bridge.getCommands());
+        return result;
+    }
+
+    /**
+     * Once per local day of the event's zone for each time that exists on
+     * that day and falls in the simulated window (times skipped by a DST
+     * gap don't fire)
+     */
+    private static long expectedScheduledFires(ScheduledEvent event, long startMillis, long endMillis, ZoneId defaultZone) {
+        ZoneId zone = event.timezone.isEmpty() ? defaultZone : ZoneId.of(event.timezone);
+        LocalDate last = Instant.ofEpochMilli(endMillis).atZone(zone).toLocalDate();
+        long expected = 0;
+        for (LocalDate date = Instant.ofEpochMilli(startMillis).atZone(zone).toLocalDate(); !date.isAfter(last); date = date.plusDays(1)) {
+            for (String time : event.times) {
+                LocalTime local = LocalTime.parse(time);
+                ZonedDateTime candidate = ZonedDateTime.of(date, local, zone);
+                long millis = candidate.toInstant().toEpochMilli();
+                if (candidate.toLocalTime().equals(local) && millis >= startMillis && millis < endMillis) {
+                    expected++;
+                }
+            }
+        }
+        return expected;
+    }
+
+    static OnlinePlayer simulatedPlayer(int index, long joinedAt) {
+        String name = "sim_" + index;
+        UUID uuid = UUID.nameUUIDFromBytes(name.getBytes(StandardCharsets.UTF_8));
+        return OnlinePlayer.detached(uuid, name, "default", "en-us", joinedAt, node -> false);
+    }
+}
@@ -0,0 +1,67 @@
+package net.crefax.hytale.events.sim;
+
+import net.crefax.hytale.events.config.EventConfig;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Schedule Simulation Test
+ *
+ * Six weeks of virtual time over the spring DST changes of every zone in
+ * the configs: each event must fire exactly as often as its schedule says.
+ *
+ * @author Crefax
+ */
+class ScheduleSimulationTest {
+
+    private static final LocalDate START = LocalDate.of(2026, 3, 1);
+    private static final int DAYS = 42;
+    private static final int PLAYERS = 200;
+
+    @TempDir
+    Path dataDir;
+
+    @ParameterizedTest
+    @ValueSource(strings = {"basic", "phased", "coalesced", "zones"})
+    void firesMatchTheSchedule(String name) throws Exception {
+        EventConfig config = ScheduleSimulation.loadConfig("/sim/" + name + ".json", dataDir);
+
+        ScheduleSimulation.Result result = new ScheduleSimulation(config, START, DAYS, PLAYERS).run();
+
+        assertFalse(result.expected.isEmpty());
+        for (String event : result.expected.keySet()) {
+            assertEquals(result.expected.get(event), result.actual.getOrDefault(event, 0L), event);
+        }
+    }
+
+    @Test
+    void dataStaysInTheConfigFolder() throws Exception {
+        EventConfig config = ScheduleSimulation.loadConfig("/sim/basic.json", dataDir);
+
+        new ScheduleSimulation(config, START, 1, PLAYERS).run();
+
+        assertTrue(Files.isDirectory(dataDir.resolve("audit")));
+        assertTrue(Files.isDirectory(dataDir.resolve("mailbox")));
+        assertTrue(Files.exists(dataDir.resolve("playtime.dat")));
+    }
+
+    @Test
+    void noMailboxUnlessItIsUsed() throws Exception {
+        EventConfig config = ScheduleSimulation.loadConfig("/sim/basic.json", dataDir);
+        config.getSettings().mailboxEnabled = false;
+
+        new ScheduleSimulation(config, START, 1, PLAYERS).run();
+
+        assertFalse(Files.exists(dataDir.resolve("mailbox")));
+    }
+}
@@ -0,0 +1,225 @@
+package net.crefax.hytale.events.sim;
+
+import net.crefax.hytale.events.config.EventConfig;
+import net.crefax.hytale.events.manager.SchedulerManager;
+import net.crefax.hytale.events.time.VirtualSchedulerClock;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Soak Test
+ *
+ * Load generator for the scheduler. Thousands of simulated players join
+ * and leave through registerPlayer/unregisterPlayer every virtual minute
+ * while the configured events fire against a {@link CountingServerBridge}.
+ * Players come from a fixed population (four times the target), so they
+ * come back, collect their mailbox and keep the per-player data bounded.
+ * Everything runs on one thread in virtual time, so hours of server time
+ * replay in seconds.
+ *
+ * Every virtual hour the registry has to match who is online and the
+ * command and worker queues have to be empty again. The mailbox stays on;
+ * its writes run on its own thread in real time, so each virtual hour
+ * waits for them before checking. Throughput, fire latency percentiles,
+ * heap after GC per hour and the allocation rate of the scheduler thread
+ * are reported, not asserted: they depend on the machine and JVM.
+ *
+ * Tagged soak, so it only runs with mvn test -Psoak.
+ * Longer runs: -Dsoak.hours=24 -Dsoak.players=5000 -Dsoak.churn=100 -Dsoak.seed=7
+ *
+ * @author Crefax
+ */
+@Tag("soak")
+class SoakTest {
+
+    private static final int HOURS = Integer.getInteger("soak.hours", 6);
+    private static final int PLAYERS = Integer.getInteger("soak.players", 2000);
+    private static final int POPULATION = PLAYERS * 4;
+    private static final int CHURN_PER_MINUTE = Integer.getInteger("soak.churn", Math.max(1, PLAYERS / 50));
+    private static final long SEED = Long.getLong("soak.seed", 1L);
+
+    @TempDir
+    Path dataDir;
+
+    private final Random random = new Random(SEED);
+    private long[] latencies = new long[1024];
+    private int fireCount;
+    private long targetedPlayers;
+
+    // The population, online players first: [0, onlineCount) are online
+    private final int[] population = new int[POPULATION];
+    private int onlineCount;
+    private long joins;
+    private long leaves;
+
+    @Test
+    void registryAndQueuesStayBoundedUnderChurn() throws Exception {
+        EventConfig config = ScheduleSimulation.loadConfig("/sim/basic.json", dataDir);
+        long startMillis = LocalDate.of(2026, 1, 5).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+        VirtualSchedulerClock clock = new VirtualSchedulerClock(startMillis);
+        CountingServerBridge bridge = new CountingServerBridge();
+        SchedulerManager manager = new SchedulerManager(null, config, clock, bridge);
+        manager.addFireListener((eventName, time, players, manual, nanos) -> recordFire(players, nanos));
+
+        // Initial population
+        for (int i = 0; i < POPULATION; i++) {
+            population[i] = i;
+        }
+        for (int i = 0; i < PLAYERS; i++) {
+            join(manager, clock.currentTimeMillis());
+        }
+
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long[] heapSamples = new long[HOURS + 1];
+        heapSamples[0] = usedHeapAfterGc(memory);
+
+        long allocatedBefore = allocatedBytes(threads, threadId);
+        long gcNanos = 0;
+        long wallStart = System.nanoTime();
+
+        try {
+            for (int hour = 1; hour <= HOURS; hour++) {
+                for (int minute = 0; minute < 60; minute++) {
+                    churn(manager, clock.currentTimeMillis());
+                    clock.advance(Duration.ofMinutes(1));
+                }
+                if (manager.getMailbox() != null) {
+                    manager.getMailbox().flushAsync().get(1, TimeUnit.MINUTES);
+                }
+                assertEquals(onlineCount, manager.getPlayerRegistry().size(), "registered players at hour " + hour);
+                assertEquals(0, manager.getQueuedCommandCount(), "queued commands at hour " + hour);
+                assertEquals(0, Arrays.stream(manager.getWorkerQueueDepths()).sum(), "queued fires at hour " + hour);
+                assertTrue(manager.getRunningWorkflows().isEmpty(), "workflows left at hour " + hour);
+
+                long gcStart = System.nanoTime();
+                heapSamples[hour] = usedHeapAfterGc(memory);
+                gcNanos += System.nanoTime() - gcStart;
+            }
+        } finally {
+            manager.shutdown();
+        }
+
+        long wallNanos = System.nanoTime() - wallStart - gcNanos;
+        long allocated = allocatedBefore >= 0 ? allocatedBytes(threads, threadId) - allocatedBefore : -1;
+        report(bridge, heapSamples, wallNanos, allocated, manager);
+
+        assertTrue(fireCount > 0, "no fires");
+    }
+
+    private void recordFire(int players, long nanos) {
+        if (fireCount == latencies.length) {
+            latencies = Arrays.copyOf(latencies, fireCount * 2);
+        }
+        latencies[fireCount++] = nanos;
+        targetedPlayers += players;
+    }
+
+    /**
+     * One virtual minute of joins and leaves, drifting around the target population
+     */
+    private void churn(SchedulerManager manager, long now) {
+        int leaving = random.nextInt(CHURN_PER_MINUTE + 1) + (onlineCount > PLAYERS ? 1 : 0);
+        for (int i = 0; i < leaving && onlineCount > 0; i++) {
+            int slot = random.nextInt(onlineCount);
+            int player = population[slot];
+            swap(slot, --onlineCount);
+            manager.unregisterPlayer(ScheduleSimulation.simulatedPlayer(player, now).getUuid());
+            leaves++;
+        }
+        int joining = random.nextInt(CHURN_PER_MINUTE + 1) + (onlineCount < PLAYERS ? 1 : 0);
+        for (int i = 0; i < joining; i++) {
+            join(manager, now);
+        }
+    }
+
+    private void join(SchedulerManager manager, long now) {
+        if (onlineCount == POPULATION) return;
+        int slot = onlineCount + random.nextInt(POPULATION - onlineCount);
+        int player = population[slot];
+        swap(slot, onlineCount++);
+        manager.registerPlayer(ScheduleSimulation.simulatedPlayer(player, now));
+        joins++;
+    }
+
+    private void swap(int a, int b) {
+        int player = population[a];
+        population[a] = population[b];
+        population[b] = player;
+    }
+
+    private void report(CountingServerBridge bridge, long[] heapSamples, long wallNanos, long allocated,
+                        SchedulerManager manager) {
+        double seconds = Math.max(wallNanos / 1e9, 1e-9);
+        System.out.println("Soaked " + HOURS + " virtual hour(s), " + PLAYERS + " target player(s), "
+                + joins + " join(s), " + leaves + " leave(s), " + onlineCount + " online at end");
+        System.out.printf("%d fire(s) in %.2f s wall (%.0f fires/s), %d targeted player(s) (%.0f players/s)%n",
+                fireCount, seconds, fireCount / seconds, targetedPlayers, targetedPlayers / seconds);
+
+        if (fireCount > 0) {
+            long[] sorted = Arrays.copyOf(latencies, fireCount);
+            Arrays.sort(sorted);
+            System.out.printf("Fire latency: p50 %.3f ms, p90 %.3f ms, p99 %.3f ms, max %.3f ms%n",
+                    percentile(sorted, 50), percentile(sorted, 90), percentile(sorted, 99),
+                    sorted[sorted.length - 1] / 1e6);
+        }
+
+        // The first hour includes warm-up (class loading, compiled events), so the trend starts after it
+        long growth = heapSamples[heapSamples.length - 1] - heapSamples[0];
+        long steady = heapSamples.length > 2 ? heapSamples[heapSamples.length - 1] - heapSamples[1] : growth;
+        System.out.printf("Heap after GC: %.1f MiB -> %.1f MiB (%+.1f MiB, %+.1f KiB/hour after warm-up)%n",
+                heapSamples[0] / 1048576.0, heapSamples[heapSamples.length - 1] / 1048576.0,
+                growth / 1048576.0, heapSamples.length > 2 ? steady / 1024.0 / (heapSamples.length - 2) : 0.0);
+
+        if (allocated >= 0) {
+            // Includes joins and leaves, which copy the registry array
+            System.out.printf("Allocated: %.1f MiB (%.1f MiB/s, %.0f bytes per fire or join/leave)%n",
+                    allocated / 1048576.0, allocated / 1048576.0 / seconds,
+                    (double) allocated / Math.max(1, fireCount + joins + leaves));
+        }
+        System.out.printf("%d message(s), %d inventory transaction(s), %d item(s), %d command(s)%n",
+                bridge.getMessages(), bridge.getItemGrants(), bridge.getItems(), bridge.getCommands());
+        if (manager.getMailbox() != null) {
+            System.out.println(manager.getMailbox().pendingPlayerCount() + " player(s) with mailbox rewards at end");
+        }
+    }
+
+    private static double percentile(long[] sorted, int percent) {
+        int index = (int) Math.ceil(percent / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    private static long usedHeapAfterGc(MemoryMXBean memory) {
+        System.gc();
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * Bytes allocated by a thread so far, or -1 if the JVM does not track it
+     */
+    private static long allocatedBytes(ThreadMXBean threads, long threadId) {
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean hotspot = (com.sun.management.ThreadMXBean) threads;
+            if (hotspot.isThreadAllocatedMemorySupported() && hotspot.isThreadAllocatedMemoryEnabled()) {
+                return hotspot.getThreadAllocatedBytes(threadId);
+            }
+        }
+        return -1;
+    }
+}